@@ -0,0 +1,159 @@
+package com.quize.quizproject.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Concurrency limit that adapts to observed latency, AIMD style: every response inside the latency target
+// while the limit is in real use grows it by 1/limit (about +1 per limit's worth of responses), and a slow
+// or failed response cuts it by a fixed factor, at most once per target interval so a burst of slow
+// responses counts as one signal. Requests over the limit wait in a bounded FIFO queue per priority for
+// a bounded time. HIGH waiters are always admitted first, and LOW requests may only fill lowShare of the
+// limit, so low-priority work is the first to be shed.
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Priority {
+        HIGH, LOW
+    }
+
+    public enum Admission {
+        ADMITTED(true), QUEUED(true), QUEUE_FULL(false), TIMED_OUT(false);
+
+        private final boolean admitted;
+
+        Admission(boolean admitted) {
+            this.admitted = admitted;
+        }
+
+        public boolean isAdmitted() {
+            return admitted;
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoff;
+    private final double lowShare;
+
+    // A lock rather than synchronized, so waiting never pins a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] turns = {lock.newCondition(), lock.newCondition()};
+    private final int[] waiting = new int[2];
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis,
+                                      double backoff, double lowShare) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.backoff = backoff;
+        this.lowShare = lowShare;
+        this.lastDecreaseNanos = System.nanoTime() - targetLatencyNanos;
+    }
+
+    // An admitted caller must call release exactly once when it is done
+    public Admission acquire(Priority priority, int maxQueue, long maxWaitMillis) throws InterruptedException {
+        int p = priority.ordinal();
+        lock.lock();
+        try {
+            // Arrivals never overtake requests already queued ahead of them
+            if (waiting[p] == 0 && canAdmit(priority)) {
+                inFlight++;
+                return Admission.ADMITTED;
+            }
+            if (waiting[p] >= maxQueue) {
+                return Admission.QUEUE_FULL;
+            }
+            waiting[p]++;
+            boolean admitted = false;
+            try {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (!canAdmit(priority)) {
+                    if (nanos <= 0) {
+                        return Admission.TIMED_OUT;
+                    }
+                    nanos = turns[p].awaitNanos(nanos);
+                }
+                inFlight++;
+                admitted = true;
+                return Admission.QUEUED;
+            } finally {
+                waiting[p]--;
+                if (!admitted) {
+                    // This waiter may have taken a wake-up meant for a free slot; pass it on
+                    wakeNext();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // overloaded: the request failed in a way that points at the backend (a 5xx, or no database capacity),
+    // whatever its latency
+    public void release(long latencyNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            inFlight--;
+            long now = System.nanoTime();
+            if (overloaded || latencyNanos > targetLatencyNanos) {
+                if (now - lastDecreaseNanos >= targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * backoff);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlight + 1 >= limit / 2) {
+                // Only grow while the limit is actually being used, or an idle period would inflate it
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            wakeNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canAdmit(Priority priority) {
+        if (priority == Priority.HIGH) {
+            return inFlight < (int) limit;
+        }
+        return waiting[Priority.HIGH.ordinal()] == 0 && inFlight < Math.max(1, (int) (limit * lowShare));
+    }
+
+    private void wakeNext() {
+        if (waiting[Priority.HIGH.ordinal()] > 0 && canAdmit(Priority.HIGH)) {
+            turns[Priority.HIGH.ordinal()].signal();
+        } else if (waiting[Priority.LOW.ordinal()] > 0 && canAdmit(Priority.LOW)) {
+            turns[Priority.LOW.ordinal()].signal();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting(Priority priority) {
+        lock.lock();
+        try {
+            return waiting[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.quize.quizproject.view;
+
+import com.quize.quizproject.model.Question;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Full question as returned by the /question admin endpoints, answer included
+public record AdminQuestionView(Integer questionId, String category, String questionTitle,
+                                String option1, String option2, String option3, String option4,
+                                String rightAns, String difficultyLevel) {
+
+    public static AdminQuestionView from(Question question) {
+        return new AdminQuestionView(question.getQuestionId(), question.getCategory(), question.getQuestionTitle(),
+                question.getOption1(), question.getOption2(), question.getOption3(), question.getOption4(),
+                question.getRightAns(), question.getDifficultyLevel());
+    }
+
+    public static List<AdminQuestionView> fromAll(List<Question> questions) {
+        List<AdminQuestionView> views = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            views.add(from(question));
+        }
+        return views;
+    }
+}
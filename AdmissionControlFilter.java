@@ -0,0 +1,194 @@
+package com.quize.quizproject.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quize.quizproject.config.AdaptiveConcurrencyLimiter.Admission;
+import com.quize.quizproject.config.AdaptiveConcurrencyLimiter.Priority;
+import com.quize.quizproject.metrics.QuizMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// Admission control for the two write endpoints that pile up under exam load. Both share one adaptive
+// concurrency limit, since both end up waiting on the same connection pool. Submissions are HIGH priority:
+// they are admitted first and may use the whole limit. Quiz creation is LOW priority and only gets a share
+// of it. Requests over the limit queue briefly. A full queue gets an immediate 429 and a wait past
+// max-wait gets a 503, both with Retry-After, instead of holding a thread until the pool times out.
+// Off by default: the latency target only means something relative to how fast these endpoints are on the
+// deployment at hand, so set target-latency-ms from their measured latency when turning it on.
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private QuizMetrics quizMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${quiz.admission.enabled:false}")
+    private boolean enabled;
+
+    @Value("${quiz.admission.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${quiz.admission.min-limit:2}")
+    private int minLimit;
+
+    @Value("${quiz.admission.max-limit:200}")
+    private int maxLimit;
+
+    // Responses slower than this shrink the limit; a few times the endpoints' p99 under normal load
+    @Value("${quiz.admission.target-latency-ms:250}")
+    private long targetLatencyMillis;
+
+    @Value("${quiz.admission.backoff:0.9}")
+    private double backoff;
+
+    // Fraction of the limit quiz creation may occupy
+    @Value("${quiz.admission.create-share:0.5}")
+    private double createShare;
+
+    @Value("${quiz.admission.submit.max-queue:100}")
+    private int submitMaxQueue;
+
+    @Value("${quiz.admission.submit.max-wait-ms:1000}")
+    private long submitMaxWaitMillis;
+
+    @Value("${quiz.admission.create.max-queue:20}")
+    private int createMaxQueue;
+
+    @Value("${quiz.admission.create.max-wait-ms:200}")
+    private long createMaxWaitMillis;
+
+    @Value("${quiz.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    private static final Logger logger = LogManager.getLogger(AdmissionControlFilter.class);
+
+    private AdaptiveConcurrencyLimiter limiter;
+    private final Map<String, Endpoint> endpoints = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, targetLatencyMillis, backoff,
+                createShare);
+        MeterRegistry registry = quizMetrics.getRegistry();
+        endpoints.put("/quiz/quizSubmit",
+                new Endpoint("/quiz/quizSubmit", Priority.HIGH, submitMaxQueue, submitMaxWaitMillis, registry));
+        endpoints.put("/quiz/create",
+                new Endpoint("/quiz/create", Priority.LOW, createMaxQueue, createMaxWaitMillis, registry));
+
+        Gauge.builder("quiz.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .register(registry);
+        Gauge.builder("quiz.admission.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(registry);
+        for (Priority priority : Priority.values()) {
+            Gauge.builder("quiz.admission.waiting", limiter, l -> l.getWaiting(priority))
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(registry);
+        }
+        if (enabled) {
+            logger.info("Admission control on /quiz/quizSubmit and /quiz/create: initial limit {}, target latency {} ms",
+                    initialLimit, targetLatencyMillis);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod())
+                || !endpoints.containsKey(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Endpoint endpoint = endpoints.get(request.getRequestURI().substring(request.getContextPath().length()));
+        Admission admission;
+        try {
+            admission = limiter.acquire(endpoint.priority, endpoint.maxQueue, endpoint.maxWaitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admission = Admission.TIMED_OUT;
+        }
+        endpoint.outcomes.get(admission).increment();
+        if (!admission.isAdmitted()) {
+            reject(response, endpoint, admission);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean overloaded = true;
+        try {
+            filterChain.doFilter(request, response);
+            // Not every failure reaches the status line, so the guard's own signal counts as well
+            overloaded = response.getStatus() >= 500
+                    || request.getAttribute(DatabaseConcurrencyGuard.BUSY_ATTRIBUTE) != null;
+        } finally {
+            limiter.release(System.nanoTime() - start, overloaded);
+        }
+    }
+
+    private void reject(HttpServletResponse response, Endpoint endpoint, Admission admission) throws IOException {
+        boolean queueFull = admission == Admission.QUEUE_FULL;
+        logger.debug("Shed {} request ({}), limit {}", endpoint.path, admission, limiter.getLimit());
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("status", "error");
+        body.put("message", queueFull ? "Too many requests, please retry shortly"
+                : "Server is busy, please retry shortly");
+        response.setStatus(queueFull ? HttpStatus.TOO_MANY_REQUESTS.value() : HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    private static final class Endpoint {
+        private final String path;
+        private final Priority priority;
+        private final int maxQueue;
+        private final long maxWaitMillis;
+        private final Map<Admission, Counter> outcomes = new EnumMap<>(Admission.class);
+
+        Endpoint(String path, Priority priority, int maxQueue, long maxWaitMillis, MeterRegistry registry) {
+            this.path = path;
+            this.priority = priority;
+            this.maxQueue = maxQueue;
+            this.maxWaitMillis = maxWaitMillis;
+            outcomes.put(Admission.ADMITTED, outcome(registry, "admitted", null));
+            outcomes.put(Admission.QUEUED, outcome(registry, "queued", null));
+            outcomes.put(Admission.QUEUE_FULL, outcome(registry, "rejected", "queue_full"));
+            outcomes.put(Admission.TIMED_OUT, outcome(registry, "rejected", "timeout"));
+        }
+
+        // queued counts requests that waited and were then admitted
+        private Counter outcome(MeterRegistry registry, String outcome, String reason) {
+            return Counter.builder("quiz.admission.requests")
+                    .tag("endpoint", path)
+                    .tag("outcome", outcome)
+                    .tag("reason", reason != null ? reason : "none")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.QuestionRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Resident copy of every question's right answer, used to grade submissions without a DB round-trip.
+// Loaded once at startup and then kept in step with QuestionService writes through QuestionChangeEvent.
+// Questions it does not have, such as ones written by another instance, are read from the database on
+// first use and kept from then on.
+@Component
+public class AnswerKeyIndex {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    // How long an id the database did not have either is answered as unknown without asking again
+    @Value("${quiz.answer-key.miss-ttl-ms:5000}")
+    private long missTtlMillis;
+
+    private static final Logger logger = LogManager.getLogger(AnswerKeyIndex.class);
+
+    // Ids found in no table, until their deadline (System.nanoTime); bounded by clearing when full
+    private static final int MAX_ABSENT = 100000;
+    private final Map<Integer, Long> absent = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private AnswerTable table = new AnswerTable(16);
+
+    private volatile boolean loaded;
+
+    // Bumped by every change event, so a database read that raced with one does not overwrite it
+    private final AtomicLong changes = new AtomicLong();
+
+    // Change events that arrive while refresh() builds its table, replayed onto it before the swap.
+    // Guarded by the write lock; null when no refresh is running.
+    private List<QuestionChangeEvent> changesDuringRefresh;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong refreshes = new AtomicLong();
+    private volatile long lastRefreshMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changesDuringRefresh = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Object[]> rows;
+        try {
+            rows = questionRepository.findAllAnswerKeys();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRefresh = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        // Build the new table off to the side so graders are only blocked for the swap
+        AnswerTable fresh = new AnswerTable(rows.size());
+        for (Object[] row : rows) {
+            fresh.put((Integer) row[0], (String) row[1]);
+        }
+
+        lock.writeLock().lock();
+        try {
+            // A write committed after the query started may be missing from its rows
+            for (QuestionChangeEvent event : changesDuringRefresh) {
+                apply(fresh, event);
+            }
+            changesDuringRefresh = null;
+            table = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded = true;
+        refreshes.incrementAndGet();
+        lastRefreshMillis = System.currentTimeMillis() - start;
+        logger.info("Answer key index loaded with {} questions in {} ms", fresh.size(), lastRefreshMillis);
+    }
+
+    // Returns the right answer for each id, positionally; unknown questions come back as null
+    public String[] answersFor(int[] questionIds) {
+        String[] answers = new String[questionIds.length];
+        List<Integer> missingIds = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < questionIds.length; i++) {
+                int slot = table.indexOf(questionIds[i]);
+                if (slot >= 0) {
+                    answers[i] = table.answerAt(slot);
+                } else {
+                    missingIds.add(questionIds[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.add(questionIds.length - missingIds.size());
+        misses.add(missingIds.size());
+
+        if (!missingIds.isEmpty()) {
+            loadMissing(questionIds, answers, missingIds);
+        }
+        return answers;
+    }
+
+    // Before the first load every question misses; after it, only ones this instance has not seen written
+    private void loadMissing(int[] questionIds, String[] answers, List<Integer> missingIds) {
+        if (!absent.isEmpty()) {
+            long now = System.nanoTime();
+            missingIds.removeIf(id -> {
+                Long until = absent.get(id);
+                return until != null && now - until < 0;
+            });
+            if (missingIds.isEmpty()) {
+                return;
+            }
+        }
+        logger.debug("Fetching {} answers missing from the index from the database", missingIds.size());
+        long changesBefore = changes.get();
+        Map<Integer, String> fetched = new HashMap<>();
+        for (Object[] row : questionRepository.findCorrectAnswersByQuestionIds(missingIds)) {
+            fetched.put((Integer) row[0], (String) row[1]);
+        }
+        for (int i = 0; i < questionIds.length; i++) {
+            if (answers[i] == null && fetched.containsKey(questionIds[i])) {
+                answers[i] = fetched.get(questionIds[i]);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(missTtlMillis);
+        if (absent.size() + missingIds.size() > MAX_ABSENT) {
+            absent.clear();
+        }
+        for (Integer questionId : missingIds) {
+            if (!fetched.containsKey(questionId)) {
+                absent.put(questionId, deadline);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Backfilled unless a change event arrived meanwhile; it may carry a newer answer than this read
+            if (changes.get() == changesBefore) {
+                for (Map.Entry<Integer, String> entry : fetched.entrySet()) {
+                    table.put(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChange(QuestionChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            changes.incrementAndGet();
+            apply(table, event);
+            if (changesDuringRefresh != null) {
+                changesDuringRefresh.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Question question : event.getUpserted()) {
+            if (question.getQuestionId() != null) {
+                absent.remove(question.getQuestionId());
+            }
+        }
+    }
+
+    private static void apply(AnswerTable target, QuestionChangeEvent event) {
+        for (Question question : event.getUpserted()) {
+            if (question.getQuestionId() != null) {
+                target.put(question.getQuestionId(), question.getRightAns());
+            }
+        }
+        for (Integer questionId : event.getDeletedIds()) {
+            target.remove(questionId);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return table.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    public long getLastRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    // Open-addressing int -> answer table with primitive keys. Answers are held as they came, since they are
+    // mostly a question's own option text and rarely shared. Package-private for its tests.
+    static final class AnswerTable {
+
+        private int[] keys;
+        private String[] answers;
+        // A slot is taken even when its question has no answer
+        private boolean[] used;
+        private int size;
+
+        AnswerTable(int expectedSize) {
+            int capacity = 16;
+            while (capacity < expectedSize * 2) {
+                capacity <<= 1;
+            }
+            keys = new int[capacity];
+            answers = new String[capacity];
+            used = new boolean[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        int indexOf(int key) {
+            int mask = keys.length - 1;
+            int i = home(key, mask);
+            while (used[i]) {
+                if (keys[i] == key) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        String answerAt(int slot) {
+            return answers[slot];
+        }
+
+        void put(int key, String answer) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length << 1);
+            }
+            int mask = keys.length - 1;
+            int i = home(key, mask);
+            while (used[i]) {
+                if (keys[i] == key) {
+                    answers[i] = answer;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            answers[i] = answer;
+            used[i] = true;
+            size++;
+        }
+
+        void remove(int key) {
+            int gap = indexOf(key);
+            if (gap < 0) {
+                return;
+            }
+            // Backward-shift deletion keeps probe chains intact without tombstones
+            int mask = keys.length - 1;
+            int j = gap;
+            while (true) {
+                j = (j + 1) & mask;
+                if (!used[j]) {
+                    break;
+                }
+                int home = home(keys[j], mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    answers[gap] = answers[j];
+                    gap = j;
+                }
+            }
+            answers[gap] = null;
+            used[gap] = false;
+            size--;
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            String[] oldAnswers = answers;
+            boolean[] oldUsed = used;
+            keys = new int[capacity];
+            answers = new String[capacity];
+            used = new boolean[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int j = home(oldKeys[i], mask);
+                    while (used[j]) {
+                        j = (j + 1) & mask;
+                    }
+                    keys[j] = oldKeys[i];
+                    answers[j] = oldAnswers[i];
+                    used[j] = true;
+                }
+            }
+        }
+
+        private static int home(int key, int mask) {
+            int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.repository.AnswerSheetRow;
+
+import java.util.Arrays;
+import java.util.List;
+
+// A quiz's answer key compiled for grading by position: its question ids in ascending order and, at the
+// same position, the right option as an index 1-4. Submissions usually list questions in quiz order, so
+// each lookup first tries the position after the previous one before falling back to a binary search.
+// Immutable; AnswerSheets replaces it when the quiz or one of its questions changes.
+public final class AnswerSheet {
+
+    public static final int OPTIONS = 4;
+
+    private final Integer quizId;
+    private final int[] questionIds;
+    // 0 when rightAns is none of the options, which only rows written before import validation can be
+    private final byte[] rightOptions;
+    private final String[] rightAnswers;
+    // OPTIONS texts per position
+    private final String[] optionTexts;
+
+    private AnswerSheet(Integer quizId, int[] questionIds, byte[] rightOptions, String[] rightAnswers,
+                        String[] optionTexts) {
+        this.quizId = quizId;
+        this.questionIds = questionIds;
+        this.rightOptions = rightOptions;
+        this.rightAnswers = rightAnswers;
+        this.optionTexts = optionTexts;
+    }
+
+    // Rows in ascending questionId order, as findAnswerSheetRows returns them
+    public static AnswerSheet compile(Integer quizId, List<? extends AnswerSheetRow> rows) {
+        int size = 0;
+        for (AnswerSheetRow row : rows) {
+            if (row.getQuestionId() != null) {
+                size++;
+            }
+        }
+        int[] questionIds = new int[size];
+        byte[] rightOptions = new byte[size];
+        String[] rightAnswers = new String[size];
+        String[] optionTexts = new String[size * OPTIONS];
+        int position = 0;
+        for (AnswerSheetRow row : rows) {
+            if (row.getQuestionId() == null) {
+                continue;
+            }
+            questionIds[position] = row.getQuestionId();
+            rightAnswers[position] = row.getRightAns();
+            int base = position * OPTIONS;
+            optionTexts[base] = row.getOption1();
+            optionTexts[base + 1] = row.getOption2();
+            optionTexts[base + 2] = row.getOption3();
+            optionTexts[base + 3] = row.getOption4();
+            for (int option = 0; option < OPTIONS; option++) {
+                if (row.getRightAns() != null && row.getRightAns().equals(optionTexts[base + option])) {
+                    rightOptions[position] = (byte) (option + 1);
+                    break;
+                }
+            }
+            position++;
+        }
+        return new AnswerSheet(quizId, questionIds, rightOptions, rightAnswers, optionTexts);
+    }
+
+    // -1 when the question is not in the quiz. hint is the position expected to hold it.
+    public int positionOf(int questionId, int hint) {
+        if (hint >= 0 && hint < questionIds.length && questionIds[hint] == questionId) {
+            return hint;
+        }
+        int position = Arrays.binarySearch(questionIds, questionId);
+        return position >= 0 ? position : -1;
+    }
+
+    // The option 1-4 whose text is response, or 0 when it matches none
+    public int optionOf(int position, String response) {
+        if (response == null) {
+            return 0;
+        }
+        int base = position * OPTIONS;
+        for (int option = 0; option < OPTIONS; option++) {
+            if (response.equals(optionTexts[base + option])) {
+                return option + 1;
+            }
+        }
+        return 0;
+    }
+
+    // An option picked by index is compared as a byte; a free-text response only when rightAns is no option
+    public boolean isCorrect(int position, int option, String response) {
+        byte right = rightOptions[position];
+        if (right != 0) {
+            return option == right;
+        }
+        return response != null && response.equals(rightAnswers[position]);
+    }
+
+    public String optionText(int position, int option) {
+        return option >= 1 && option <= OPTIONS ? optionTexts[position * OPTIONS + option - 1] : null;
+    }
+
+    public String rightAnswer(int position) {
+        return rightAnswers[position];
+    }
+
+    public int questionIdAt(int position) {
+        return questionIds[position];
+    }
+
+    public boolean contains(int questionId) {
+        return Arrays.binarySearch(questionIds, questionId) >= 0;
+    }
+
+    public Integer getQuizId() {
+        return quizId;
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+}
@@ -0,0 +1,18 @@
+package com.quize.quizproject.repository;
+
+// One question of a quiz with its options and right answer, for compiling the quiz's answer sheet.
+// questionId is null for a quiz that has no questions.
+public interface AnswerSheetRow {
+
+    Integer getQuestionId();
+
+    String getOption1();
+
+    String getOption2();
+
+    String getOption3();
+
+    String getOption4();
+
+    String getRightAns();
+}
@@ -0,0 +1,202 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.event.QuizChangeEvent;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.AnswerSheetRow;
+import com.quize.quizproject.repository.QuizRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Compiled answer sheets per quizId, for grading quiz-scoped submissions. Reads are a lock-free map lookup;
+// a miss compiles the sheet from one query, shared by concurrent misses for the same quiz. Sheets are
+// dropped when their quiz is rewritten or when any of their questions changes. A quizId with no rows is
+// remembered as absent for a short while, so submissions naming a bogus or deleted quiz do not each query.
+@Component
+public class AnswerSheets {
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Value("${quiz.answer-sheet.max-entries:10000}")
+    private int maxEntries;
+
+    // How long a miss waits on another request's compile of the same sheet before compiling its own
+    @Value("${quiz.answer-sheet.coalesce-timeout-ms:2000}")
+    private long coalesceTimeoutMillis;
+
+    // How long a quizId the database had no rows for is answered as unknown without asking again
+    @Value("${quiz.answer-sheet.miss-ttl-ms:5000}")
+    private long missTtlMillis;
+
+    private static final Logger logger = LogManager.getLogger(AnswerSheets.class);
+
+    private final ConcurrentHashMap<Integer, AnswerSheet> sheets = new ConcurrentHashMap<>();
+    // Guarded by this, like every write to sheets
+    private final Map<Integer, Set<Integer>> quizzesByQuestion = new HashMap<>();
+
+    // Quiz ids with no rows, until their deadline (System.nanoTime); bounded by clearing when full
+    private static final int MAX_ABSENT = 10000;
+    private final Map<Integer, Long> absent = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation; a compile that raced with one is used but not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private final SingleFlight<Integer, AnswerSheet> loads = new SingleFlight<>();
+
+    // Null when there is no such quiz
+    public AnswerSheet get(Integer quizId) {
+        AnswerSheet sheet = sheets.get(quizId);
+        if (sheet != null) {
+            hits.increment();
+            return sheet;
+        }
+        Long absentUntil = absent.get(quizId);
+        if (absentUntil != null && System.nanoTime() - absentUntil < 0) {
+            hits.increment();
+            return null;
+        }
+        misses.increment();
+        try {
+            return loads.execute(quizId, coalesceTimeoutMillis, () -> load(quizId));
+        } catch (TimeoutException e) {
+            logger.warn("Compiling answer sheet for quiz {} without waiting any longer: {}", quizId, e.getMessage());
+            return load(quizId);
+        }
+    }
+
+    private AnswerSheet load(Integer quizId) {
+        long loadGeneration = generation.get();
+        List<AnswerSheetRow> rows = quizRepository.findAnswerSheetRows(quizId);
+        if (rows.isEmpty()) {
+            markAbsent(quizId, loadGeneration);
+            return null;
+        }
+        AnswerSheet sheet = AnswerSheet.compile(quizId, rows);
+        store(sheet, loadGeneration);
+        return sheet;
+    }
+
+    private synchronized void store(AnswerSheet sheet, long loadGeneration) {
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        Integer quizId = sheet.getQuizId();
+        remove(quizId);
+        // Not worth an LRU on the read path; a full cache sheds arbitrary quizzes and recompiles them on demand
+        Iterator<Integer> victims = sheets.keySet().iterator();
+        while (sheets.size() >= maxEntries && victims.hasNext()) {
+            remove(victims.next());
+            evictions.increment();
+        }
+        sheets.put(quizId, sheet);
+        for (int position = 0; position < sheet.size(); position++) {
+            quizzesByQuestion.computeIfAbsent(sheet.questionIdAt(position), id -> new HashSet<>()).add(quizId);
+        }
+    }
+
+    // Under the lock invalidate takes, so a quiz created while its miss was being read is not marked absent
+    private synchronized void markAbsent(Integer quizId, long loadGeneration) {
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        if (absent.size() >= MAX_ABSENT) {
+            absent.clear();
+        }
+        absent.put(quizId, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(missTtlMillis));
+    }
+
+    public synchronized void invalidate(Integer quizId) {
+        generation.incrementAndGet();
+        absent.remove(quizId);
+        loads.forget(quizId);
+        if (remove(quizId)) {
+            invalidations.increment();
+            logger.debug("Dropped answer sheet for quiz {}", quizId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuizChange(QuizChangeEvent event) {
+        invalidate(event.getQuizId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onQuestionChange(QuestionChangeEvent event) {
+        Set<Integer> affected = new HashSet<>();
+        for (Question question : event.getUpserted()) {
+            affected.addAll(quizzesByQuestion.getOrDefault(question.getQuestionId(), Set.of()));
+        }
+        for (Integer questionId : event.getDeletedIds()) {
+            affected.addAll(quizzesByQuestion.getOrDefault(questionId, Set.of()));
+        }
+        for (Integer quizId : affected) {
+            invalidate(quizId);
+        }
+        generation.incrementAndGet();
+        // A compile in progress may be for a quiz that is not cached yet, so none of them can be joined any more
+        loads.forgetAll();
+    }
+
+    private boolean remove(Integer quizId) {
+        AnswerSheet sheet = sheets.remove(quizId);
+        if (sheet == null) {
+            return false;
+        }
+        for (int position = 0; position < sheet.size(); position++) {
+            Set<Integer> quizzes = quizzesByQuestion.get(sheet.questionIdAt(position));
+            if (quizzes != null) {
+                quizzes.remove(quizId);
+                if (quizzes.isEmpty()) {
+                    quizzesByQuestion.remove(sheet.questionIdAt(position));
+                }
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return sheets.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public SingleFlight<Integer, AnswerSheet> getLoads() {
+        return loads;
+    }
+}
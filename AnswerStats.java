@@ -0,0 +1,371 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.view.AdminQuestionView;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-question answer counters: attempts, correct answers and picks of each option. They are updated from
+// the grading loop and merged into question_answer_stats by a background flush. Each question's counters
+// sit in one small striped block: uncontended graders add to a single cache line, and the first failed CAS
+// gives the block more stripes, so graders on the same questions stop colliding. Reads come from memory.
+// The counters start from the table's totals at startup, so the numbers served already include everything
+// flushed before a restart.
+@Component
+public class AnswerStats {
+
+    private static final String SELECT_SQL = "SELECT question_id, attempts, correct, option1_picks, option2_picks, "
+            + "option3_picks, option4_picks FROM question_answer_stats";
+
+    // Adds the deltas, so several instances can flush into one table
+    private static final String UPSERT_SQL = "INSERT INTO question_answer_stats (question_id, attempts, correct, "
+            + "option1_picks, option2_picks, option3_picks, option4_picks) VALUES (?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE attempts = attempts + VALUES(attempts), correct = correct + VALUES(correct), "
+            + "option1_picks = option1_picks + VALUES(option1_picks), option2_picks = option2_picks + VALUES(option2_picks), "
+            + "option3_picks = option3_picks + VALUES(option3_picks), option4_picks = option4_picks + VALUES(option4_picks)";
+
+    private static final String DELETE_SQL = "DELETE FROM question_answer_stats WHERE question_id = ?";
+
+    // Counter slots; option n is counted in OPTION_1 + n - 1
+    private static final int ATTEMPTS = 0;
+    private static final int CORRECT = 1;
+    private static final int OPTION_1 = 2;
+    private static final int SLOTS = 6;
+
+    // Deleted ids remembered at most this many; past it the oldest are forgotten
+    private static final int MAX_DELETED = 10000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QuestionCatalog questionCatalog;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${quiz.answer-stats.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private static final Logger logger = LogManager.getLogger(AnswerStats.class);
+
+    private final ConcurrentHashMap<Integer, Counters> counters = new ConcurrentHashMap<>();
+
+    // Deleted questions whose rows the next flush removes
+    private final Set<Integer> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    // Recently deleted questions, which are no longer counted or flushed. A grader can still be answering one
+    // it looked up before the delete; remembering the id, rather than dropping its counters once, keeps such a
+    // late answer from bringing the counters and the question_answer_stats row back. Oldest first in
+    // deletedOrder, which is only touched under the AnswerStats lock.
+    private final Set<Integer> deleted = ConcurrentHashMap.newKeySet();
+    private final ArrayDeque<Integer> deletedOrder = new ArrayDeque<>();
+
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+
+    // Called by the grader with one submission's responses and the right answers it looked up, which
+    // start at offset in answers. Questions with no known answer are not counted.
+    public void record(int[] questionIds, String[] responses, String[] answers, int offset) {
+        for (int i = 0; i < questionIds.length; i++) {
+            String answer = answers[offset + i];
+            if (answer == null) {
+                continue;
+            }
+            Counters question = countersFor(questionIds[i]);
+            if (question == null) {
+                continue;
+            }
+            String response = responses[i];
+            question.increment(ATTEMPTS);
+            if (answer.equals(response)) {
+                question.increment(CORRECT);
+            }
+            int option = question.optionIndex(response);
+            if (option > 0) {
+                question.increment(OPTION_1 + option - 1);
+            }
+        }
+    }
+
+    // Null for a deleted question. The check follows the insert, and a delete marks the id before it drops
+    // the counters, so whichever runs first, no counters are left behind for a deleted question.
+    private Counters countersFor(int questionId) {
+        Counters question = counters.get(questionId);
+        if (question == null) {
+            question = counters.computeIfAbsent(questionId, id -> new Counters());
+            if (deleted.contains(questionId)) {
+                counters.remove(questionId, question);
+                return null;
+            }
+        }
+        if (question.options == null) {
+            // Only until the catalog has the question, which after startup is the first answer
+            question.options = Options.of(questionCatalog.snapshot().get(questionId));
+        }
+        return question;
+    }
+
+    // Null when the question has never been answered
+    public Stats get(Integer questionId) {
+        Counters question = counters.get(questionId);
+        if (question == null) {
+            return null;
+        }
+        long[] totals = question.sums();
+        return new Stats(questionId, totals[ATTEMPTS], totals[CORRECT],
+                new long[]{totals[OPTION_1], totals[OPTION_1 + 1], totals[OPTION_1 + 2], totals[OPTION_1 + 3]});
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void restore() {
+        long start = System.currentTimeMillis();
+        long[] rows = new long[1];
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            Counters question = counters.computeIfAbsent(rs.getInt(1), id -> new Counters());
+            for (int slot = 0; slot < SLOTS; slot++) {
+                long stored = rs.getLong(slot + 2);
+                question.add(slot, stored);
+                // Already in the table, so not part of the next flush
+                question.flushed[slot] += stored;
+            }
+            rows[0]++;
+        });
+        logger.info("Restored answer stats for {} questions in {} ms", rows[0], System.currentTimeMillis() - start);
+    }
+
+    // Writes what each question gained since the last successful flush. Deletes and upserts commit together
+    // in one transaction, so a failed flush wrote nothing and is simply retried with the larger delta next time.
+    @Scheduled(fixedDelayString = "${quiz.answer-stats.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        List<Integer> deletes = new ArrayList<>(pendingDeletes);
+        List<Delta> deltas = new ArrayList<>();
+        for (Map.Entry<Integer, Counters> entry : counters.entrySet()) {
+            Counters question = entry.getValue();
+            // Never upsert a deleted question's row back, whatever counted it
+            if (deleted.contains(entry.getKey())) {
+                counters.remove(entry.getKey(), question);
+                continue;
+            }
+            long[] totals = question.sums();
+            long[] delta = new long[SLOTS];
+            boolean changed = false;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                delta[slot] = totals[slot] - question.flushed[slot];
+                changed |= delta[slot] != 0;
+            }
+            if (changed) {
+                deltas.add(new Delta(entry.getKey(), question, totals, delta));
+            }
+        }
+        if (deletes.isEmpty() && deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(DELETE_SQL, deletes, flushBatchSize, (ps, questionId) -> ps.setInt(1, questionId));
+                jdbcTemplate.batchUpdate(UPSERT_SQL, deltas, flushBatchSize, (ps, delta) -> {
+                    ps.setInt(1, delta.questionId());
+                    for (int slot = 0; slot < SLOTS; slot++) {
+                        ps.setLong(slot + 2, delta.delta()[slot]);
+                    }
+                });
+            });
+        } catch (Exception e) {
+            flushFailures.increment();
+            logger.error("Answer stats flush of {} questions failed, retrying next interval: {}", deltas.size(),
+                    e.getMessage(), e);
+            return;
+        }
+        pendingDeletes.removeAll(deletes);
+        for (Delta delta : deltas) {
+            System.arraycopy(delta.totals(), 0, delta.counters().flushed, 0, SLOTS);
+        }
+        flushedRows.add(deltas.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    // Under the flush lock, so a flush never re-inserts a row it has just been asked to delete
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onQuestionChange(QuestionChangeEvent event) {
+        for (Question question : event.getUpserted()) {
+            if (question.getQuestionId() == null) {
+                continue;
+            }
+            // Written again under the same id, so counted again from here on
+            if (deleted.remove(question.getQuestionId())) {
+                deletedOrder.remove(question.getQuestionId());
+            }
+            Counters existing = counters.get(question.getQuestionId());
+            if (existing != null) {
+                existing.options = Options.of(AdminQuestionView.from(question));
+            }
+        }
+        for (Integer questionId : event.getDeletedIds()) {
+            if (deleted.add(questionId)) {
+                deletedOrder.add(questionId);
+                if (deletedOrder.size() > MAX_DELETED) {
+                    deleted.remove(deletedOrder.poll());
+                }
+            }
+            counters.remove(questionId);
+            pendingDeletes.add(questionId);
+        }
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.sum();
+    }
+
+    public long getFlushFailures() {
+        return flushFailures.sum();
+    }
+
+    // Option texts with their hashes, so matching a response mostly compares ints. Strings cache their hash,
+    // so each response's is computed at most once.
+    private static final class Options {
+        private final String[] texts;
+        private final int[] hashes;
+
+        private Options(String[] texts) {
+            this.texts = texts;
+            this.hashes = new int[texts.length];
+            for (int i = 0; i < texts.length; i++) {
+                hashes[i] = texts[i] != null ? texts[i].hashCode() : 0;
+            }
+        }
+
+        // Null while the question is not in the catalog, so the lookup is tried again
+        static Options of(AdminQuestionView question) {
+            if (question == null) {
+                return null;
+            }
+            return new Options(new String[]{question.option1(), question.option2(), question.option3(),
+                    question.option4()});
+        }
+    }
+
+    // A striped block of SLOTS counters. Uncontended it is one padded long[]. The first failed CAS moves it
+    // to an array of such stripes, each on its own cache line. Stripes are only ever added, never copied,
+    // so no increment is lost while the block grows.
+    private static final class Counters {
+        private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(long[].class);
+        private static final int MAX_STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) * 2;
+
+        // SLOTS longs padded to a 64-byte line
+        private static final int STRIPE_LENGTH = 8;
+
+        private final long[] first = new long[STRIPE_LENGTH];
+        // Null until two graders collide on this question
+        private volatile long[][] stripes;
+        private volatile Options options;
+
+        // Totals as of the last successful flush; only touched under the AnswerStats lock
+        private final long[] flushed = new long[SLOTS];
+
+        void increment(int slot) {
+            long[][] current = stripes;
+            long[] stripe = current == null ? first : current[stripeIndex(current.length)];
+            long value = (long) CELLS.getVolatile(stripe, slot);
+            if (!CELLS.compareAndSet(stripe, slot, value, value + 1)) {
+                // Another thread is on this stripe: spread out, then add without retrying the CAS
+                grow(current);
+                CELLS.getAndAdd(stripe, slot, 1L);
+            }
+        }
+
+        private static int stripeIndex(int stripeCount) {
+            return (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 40) & (stripeCount - 1);
+        }
+
+        private synchronized void grow(long[][] seen) {
+            if (stripes != seen) {
+                return;
+            }
+            long[][] grown;
+            if (seen == null) {
+                grown = new long[2][];
+                grown[0] = first;
+                grown[1] = new long[STRIPE_LENGTH];
+            } else if (seen.length < MAX_STRIPES) {
+                grown = Arrays.copyOf(seen, seen.length * 2);
+                for (int i = seen.length; i < grown.length; i++) {
+                    grown[i] = new long[STRIPE_LENGTH];
+                }
+            } else {
+                return;
+            }
+            stripes = grown;
+        }
+
+        int optionIndex(String response) {
+            Options current = options;
+            if (current == null || response == null) {
+                return 0;
+            }
+            int hash = response.hashCode();
+            for (int i = 0; i < current.hashes.length; i++) {
+                if (current.hashes[i] == hash && response.equals(current.texts[i])) {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+
+        void add(int slot, long amount) {
+            CELLS.getAndAdd(first, slot, amount);
+        }
+
+        long[] sums() {
+            long[] totals = new long[SLOTS];
+            long[][] current = stripes;
+            for (long[] stripe : current != null ? current : new long[][]{first}) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    totals[slot] += (long) CELLS.getVolatile(stripe, slot);
+                }
+            }
+            return totals;
+        }
+    }
+
+    private record Delta(Integer questionId, Counters counters, long[] totals, long[] delta) {
+    }
+
+    public record Stats(Integer questionId, long attempts, long correct, long[] optionPicks) {
+
+        public double correctRate() {
+            return attempts == 0 ? 0 : (double) correct / attempts;
+        }
+    }
+}
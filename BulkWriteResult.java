@@ -0,0 +1,84 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.model.Question;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of a QuestionBulkWriter run: the written questions (with their ids) plus per-batch timings
+public class BulkWriteResult {
+
+    private final List<Question> written = new ArrayList<>();
+    private final List<Batch> batches = new ArrayList<>();
+    private int inserted;
+    private int updated;
+    private long elapsedNanos;
+
+    void addBatch(String type, List<Question> questions, long nanos) {
+        written.addAll(questions);
+        batches.add(new Batch(batches.size() + 1, type, questions.size(), nanos));
+        if ("insert".equals(type)) {
+            inserted += questions.size();
+        } else {
+            updated += questions.size();
+        }
+    }
+
+    public List<Question> getWritten() {
+        return written;
+    }
+
+    public List<Batch> getBatches() {
+        return batches;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : written.size() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public static class Batch {
+        private final int number;
+        private final String type;
+        private final int rows;
+        private final long nanos;
+
+        Batch(int number, String type, int rows, long nanos) {
+            this.number = number;
+            this.type = type;
+            this.rows = rows;
+            this.nanos = nanos;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
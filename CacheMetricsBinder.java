@@ -0,0 +1,170 @@
+package com.quize.quizproject.metrics;
+
+import com.quize.quizproject.service.AnswerKeyIndex;
+import com.quize.quizproject.service.AnswerSheets;
+import com.quize.quizproject.service.AnswerStats;
+import com.quize.quizproject.service.QuestionCatalog;
+import com.quize.quizproject.service.QuestionService;
+import com.quize.quizproject.service.QuizPayloadCache;
+import com.quize.quizproject.service.QuizLeaderboards;
+import com.quize.quizproject.service.QuizPool;
+import com.quize.quizproject.service.SingleFlight;
+import com.quize.quizproject.service.SubmissionPipeline;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Publishes the counters the in-memory structures already keep. Everything is read at scrape time
+// through function meters, so the hot paths pay nothing extra for it.
+@Component
+public class CacheMetricsBinder implements MeterBinder {
+
+    @Autowired
+    private AnswerKeyIndex answerKeyIndex;
+
+    @Autowired
+    private QuizPayloadCache quizPayloadCache;
+
+    @Autowired
+    private QuizPool quizPool;
+
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
+
+    @Autowired
+    private QuestionCatalog questionCatalog;
+
+    @Autowired
+    private QuestionService questionService;
+
+    @Autowired
+    private QuizLeaderboards quizLeaderboards;
+
+    @Autowired
+    private AnswerStats answerStats;
+
+    @Autowired
+    private AnswerSheets answerSheets;
+
+    private MultiGauge poolDepth;
+    private MultiGauge poolRefillLag;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("quiz.cache.requests", answerKeyIndex, AnswerKeyIndex::getHits)
+                .tags("cache", "answerKey", "result", "hit").register(registry);
+        FunctionCounter.builder("quiz.cache.requests", answerKeyIndex, AnswerKeyIndex::getMisses)
+                .tags("cache", "answerKey", "result", "miss").register(registry);
+        FunctionCounter.builder("quiz.cache.refreshes", answerKeyIndex, AnswerKeyIndex::getRefreshes)
+                .tags("cache", "answerKey").register(registry);
+        Gauge.builder("quiz.cache.size", answerKeyIndex, AnswerKeyIndex::size)
+                .tags("cache", "answerKey").register(registry);
+
+        FunctionCounter.builder("quiz.cache.requests", quizPayloadCache, QuizPayloadCache::getHits)
+                .tags("cache", "quizPayload", "result", "hit").register(registry);
+        FunctionCounter.builder("quiz.cache.requests", quizPayloadCache, QuizPayloadCache::getMisses)
+                .tags("cache", "quizPayload", "result", "miss").register(registry);
+        FunctionCounter.builder("quiz.cache.evictions", quizPayloadCache, QuizPayloadCache::getEvictions)
+                .tags("cache", "quizPayload").register(registry);
+        FunctionCounter.builder("quiz.cache.invalidations", quizPayloadCache, QuizPayloadCache::getInvalidations)
+                .tags("cache", "quizPayload").register(registry);
+        Gauge.builder("quiz.cache.size", quizPayloadCache, QuizPayloadCache::size)
+                .tags("cache", "quizPayload").register(registry);
+        Gauge.builder("quiz.cache.bytes", quizPayloadCache, QuizPayloadCache::getTotalBytes)
+                .tags("cache", "quizPayload").baseUnit("bytes").register(registry);
+
+        Gauge.builder("quiz.catalog.version", questionCatalog, catalog -> catalog.snapshot().getVersion())
+                .register(registry);
+        Gauge.builder("quiz.catalog.size", questionCatalog, catalog -> catalog.snapshot().size())
+                .register(registry);
+
+        Gauge.builder("quiz.submission.queue.depth", submissionPipeline, SubmissionPipeline::getQueueDepth)
+                .register(registry);
+        FunctionCounter.builder("quiz.submission.submissions", submissionPipeline, SubmissionPipeline::getAccepted)
+                .tags("outcome", "accepted").register(registry);
+        FunctionCounter.builder("quiz.submission.submissions", submissionPipeline, SubmissionPipeline::getRejected)
+                .tags("outcome", "rejected").register(registry);
+        FunctionCounter.builder("quiz.submission.submissions", submissionPipeline, SubmissionPipeline::getPersisted)
+                .tags("outcome", "persisted").register(registry);
+        FunctionCounter.builder("quiz.submission.submissions", submissionPipeline, SubmissionPipeline::getFailed)
+                .tags("outcome", "failed").register(registry);
+        FunctionCounter.builder("quiz.submission.write.retries", submissionPipeline, SubmissionPipeline::getRetries)
+                .register(registry);
+
+        // "improved" updates replaced the user's previous best score
+        FunctionCounter.builder("quiz.leaderboard.updates", quizLeaderboards, QuizLeaderboards::getUpdates)
+                .tags("outcome", "offered").register(registry);
+        FunctionCounter.builder("quiz.leaderboard.updates", quizLeaderboards, QuizLeaderboards::getImprovements)
+                .tags("outcome", "improved").register(registry);
+        FunctionCounter.builder("quiz.leaderboard.snapshot.rows", quizLeaderboards, QuizLeaderboards::getSnapshotRows)
+                .register(registry);
+        FunctionCounter.builder("quiz.leaderboard.snapshot.failures", quizLeaderboards,
+                QuizLeaderboards::getSnapshotFailures).register(registry);
+        Gauge.builder("quiz.leaderboard.quizzes", quizLeaderboards, QuizLeaderboards::size).register(registry);
+
+        Gauge.builder("quiz.answer_stats.questions", answerStats, AnswerStats::size).register(registry);
+        FunctionCounter.builder("quiz.answer_stats.flushed.rows", answerStats, AnswerStats::getFlushedRows)
+                .register(registry);
+        FunctionCounter.builder("quiz.answer_stats.flush.failures", answerStats, AnswerStats::getFlushFailures)
+                .register(registry);
+
+        FunctionCounter.builder("quiz.cache.requests", answerSheets, AnswerSheets::getHits)
+                .tags("cache", "answerSheet", "result", "hit").register(registry);
+        FunctionCounter.builder("quiz.cache.requests", answerSheets, AnswerSheets::getMisses)
+                .tags("cache", "answerSheet", "result", "miss").register(registry);
+        FunctionCounter.builder("quiz.cache.evictions", answerSheets, AnswerSheets::getEvictions)
+                .tags("cache", "answerSheet").register(registry);
+        FunctionCounter.builder("quiz.cache.invalidations", answerSheets, AnswerSheets::getInvalidations)
+                .tags("cache", "answerSheet").register(registry);
+        Gauge.builder("quiz.cache.size", answerSheets, AnswerSheets::size)
+                .tags("cache", "answerSheet").register(registry);
+
+        bindSingleFlight(registry, "quizQuestions", quizPayloadCache.getLoads());
+        bindSingleFlight(registry, "answerSheets", answerSheets.getLoads());
+        bindSingleFlight(registry, "questionsByCategory", questionService.getCategoryLoads());
+
+        poolDepth = MultiGauge.builder("quiz.pool.depth").register(registry);
+        poolRefillLag = MultiGauge.builder("quiz.pool.refill.lag").baseUnit("milliseconds").register(registry);
+    }
+
+    // "executed" requests ran the load, "coalesced" ones were answered by another request's load
+    private static void bindSingleFlight(MeterRegistry registry, String name, SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("quiz.coalescing.requests", flight, SingleFlight::getExecutions)
+                .tags("name", name, "outcome", "executed").register(registry);
+        FunctionCounter.builder("quiz.coalescing.requests", flight, SingleFlight::getCoalesced)
+                .tags("name", name, "outcome", "coalesced").register(registry);
+        FunctionCounter.builder("quiz.coalescing.timeouts", flight, SingleFlight::getTimeouts)
+                .tags("name", name).register(registry);
+        FunctionCounter.builder("quiz.coalescing.failures", flight, SingleFlight::getFailures)
+                .tags("name", name).register(registry);
+        Gauge.builder("quiz.coalescing.in_flight", flight, SingleFlight::inFlight)
+                .tags("name", name).register(registry);
+    }
+
+    // Pools appear as categories are requested and go when idle, so their gauges are re-listed periodically.
+    // QuizPool caps how many exist, which bounds the tag combinations here.
+    @Scheduled(fixedDelay = 5000)
+    public void refreshPoolGauges() {
+        if (poolDepth == null) {
+            return;
+        }
+        List<MultiGauge.Row<?>> depthRows = new ArrayList<>();
+        List<MultiGauge.Row<?>> lagRows = new ArrayList<>();
+        for (QuizPool.PoolStats stats : quizPool.stats()) {
+            Tags tags = Tags.of("category", stats.getCategory(), "numQ", String.valueOf(stats.getNumQ()));
+            depthRows.add(MultiGauge.Row.of(tags, stats.getDepth()));
+            lagRows.add(MultiGauge.Row.of(tags, stats.getRefillLagMillis()));
+        }
+        poolDepth.register(depthRows, true);
+        poolRefillLag.register(lagRows, true);
+    }
+}
@@ -0,0 +1,29 @@
+package com.quize.quizproject.repository;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Question.category <-> question.category_id. Hibernate gets converters from Spring, so this is injected.
+// Writes register their names first (QuestionLookupListener, QuestionBulkWriter); a name that is only
+// queried for is never added and maps to NO_ID, which matches nothing.
+@Converter
+public class CategoryConverter implements AttributeConverter<String, Short> {
+
+    @Autowired
+    private QuestionLookups questionLookups;
+
+    @Override
+    public Short convertToDatabaseColumn(String category) {
+        if (category == null) {
+            return null;
+        }
+        Short id = questionLookups.categories().findId(category);
+        return id != null ? id : LookupDictionary.NO_ID;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short categoryId) {
+        return categoryId == null ? null : questionLookups.categories().nameOf(categoryId);
+    }
+}
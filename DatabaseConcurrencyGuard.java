@@ -0,0 +1,151 @@
+package com.quize.quizproject.config;
+
+import com.quize.quizproject.metrics.QuizMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Caps how many threads may be inside a @Transactional service call, a repository call, a JdbcTemplate call
+// or a TransactionTemplate block at once. On platform threads Tomcat's pool already bounds that; on virtual
+// threads every request gets its own thread, so without this thousands of them would queue inside Hikari for
+// the full connection timeout. Here they wait in a fair queue for a bounded time and fail fast when the
+// database cannot keep up. Nested calls on a thread that already holds a permit pass straight through, which
+// covers LookupDictionary: it only runs inside one of the calls above, on that call's connection. On by
+// default only in virtual-thread mode.
+@Aspect
+@Component
+public class DatabaseConcurrencyGuard implements Ordered {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private QuizMetrics quizMetrics;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${quiz.db.guard.enabled:${spring.threads.virtual.enabled:false}}")
+    private boolean enabled;
+
+    // 0 means one permit per pooled connection
+    @Value("${quiz.db.guard.max-concurrency:0}")
+    private int maxConcurrency;
+
+    @Value("${quiz.db.guard.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMillis;
+
+    // Set on the current request when a call on it found no capacity. The admission filter reads it as
+    // overload even if the service turned the failure into a 200 error body.
+    public static final String BUSY_ATTRIBUTE = DatabaseConcurrencyGuard.class.getName() + ".BUSY";
+
+    private static final Logger logger = LogManager.getLogger(DatabaseConcurrencyGuard.class);
+
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+    private Semaphore permits;
+    private Timer waits;
+    private Counter rejections;
+
+    @PostConstruct
+    public void init() throws SQLException {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            logger.warn("spring.threads.virtual.enabled is set but this JVM is Java {}; requests stay on platform "
+                    + "threads. Build with -P jdk21 and run on Java 21 or later.", Runtime.version().feature());
+        }
+        if (!enabled) {
+            return;
+        }
+        int limit = maxConcurrency > 0 ? maxConcurrency : poolSize();
+        permits = new Semaphore(limit, true);
+        waits = Timer.builder("quiz.db.guard.wait")
+                .description("Time spent waiting for a database permit")
+                .publishPercentileHistogram()
+                .register(quizMetrics.getRegistry());
+        rejections = Counter.builder("quiz.db.guard.rejections")
+                .description("Calls that gave up waiting for a database permit")
+                .register(quizMetrics.getRegistry());
+        Gauge.builder("quiz.db.guard.waiting", permits, Semaphore::getQueueLength)
+                .register(quizMetrics.getRegistry());
+        Gauge.builder("quiz.db.guard.active", permits, p -> limit - p.availablePermits())
+                .register(quizMetrics.getRegistry());
+        logger.info("Database concurrency guard: {} permits, {} ms acquire timeout", limit, acquireTimeoutMillis);
+    }
+
+    // The background writers (submissions, answer stats, leaderboard snapshots, bulk question writes) use
+    // JdbcTemplate and TransactionTemplate directly, so those take permits too
+    @Around("@annotation(jakarta.transaction.Transactional) "
+            + "|| @annotation(org.springframework.transaction.annotation.Transactional) "
+            + "|| execution(* org.springframework.data.repository.Repository+.*(..)) "
+            + "|| execution(* org.springframework.jdbc.core.JdbcOperations+.*(..)) "
+            + "|| execution(* org.springframework.transaction.support.TransactionOperations+.*(..))")
+    public Object guard(ProceedingJoinPoint joinPoint) throws Throwable {
+        int[] held = depth.get();
+        if (permits == null || held[0] > 0) {
+            held[0]++;
+            try {
+                return joinPoint.proceed();
+            } finally {
+                held[0]--;
+            }
+        }
+
+        long start = System.nanoTime();
+        if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            rejections.increment();
+            RequestAttributes request = RequestContextHolder.getRequestAttributes();
+            if (request != null) {
+                request.setAttribute(BUSY_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            }
+            throw new DatabaseBusyException("No database capacity within " + acquireTimeoutMillis + " ms for "
+                    + joinPoint.getSignature().toShortString());
+        }
+        waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        held[0] = 1;
+        try {
+            return joinPoint.proceed();
+        } finally {
+            held[0] = 0;
+            permits.release();
+        }
+    }
+
+    // Outside the transaction interceptor, so a call waits for its permit before it takes a connection
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private int poolSize() throws SQLException {
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        }
+        return 10;
+    }
+
+    public static class DatabaseBusyException extends TransientDataAccessResourceException {
+        private static final long serialVersionUID = 1L;
+
+        public DatabaseBusyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.quize.quizproject.repository;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Question.difficultyLevel <-> question.difficulty_id, the same way CategoryConverter maps categories
+@Converter
+public class DifficultyConverter implements AttributeConverter<String, Short> {
+
+    @Autowired
+    private QuestionLookups questionLookups;
+
+    @Override
+    public Short convertToDatabaseColumn(String difficulty) {
+        if (difficulty == null) {
+            return null;
+        }
+        Short id = questionLookups.difficulties().findId(difficulty);
+        return id != null ? id : LookupDictionary.NO_ID;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short difficultyId) {
+        return difficultyId == null ? null : questionLookups.difficulties().nameOf(difficultyId);
+    }
+}
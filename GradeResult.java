@@ -0,0 +1,24 @@
+package com.quize.quizproject.service;
+
+public class GradeResult {
+
+    private final int totalQuestions;
+    private final int correctAnswers;
+
+    public GradeResult(int totalQuestions, int correctAnswers) {
+        this.totalQuestions = totalQuestions;
+        this.correctAnswers = correctAnswers;
+    }
+
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public int getCorrectAnswers() {
+        return correctAnswers;
+    }
+
+    public int getIncorrectAnswers() {
+        return totalQuestions - correctAnswers;
+    }
+}
@@ -0,0 +1,100 @@
+package com.quize.quizproject.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+
+@Configuration
+public class HibernateConfig {
+
+    // Second-level cache regions; the names are referenced by the @Cache and query-hint annotations
+    public static final String QUESTION_REGION = "question";
+    public static final String QUESTION_BY_CATEGORY_REGION = "question-by-category";
+    private static final String DEFAULT_QUERY_REGION = "default-query-results-region";
+    private static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${quiz.hibernate.batch-size:50}")
+    private int batchSize;
+
+    // A category query caches only ids, and each id is then read from the question region, so a category
+    // bigger than this cannot be served from cache: its rows evict each other and every fetch goes back to the
+    // database. Keep it above the largest category times the number of categories read together.
+    @Value("${quiz.hibernate.cache.question-entries:20000}")
+    private long questionEntries;
+
+    @Value("${quiz.hibernate.cache.query-entries:1000}")
+    private long queryEntries;
+
+    // QuestionCacheEvictor evicts before a JDBC write and again after it commits, but a read that loaded the old
+    // row before the commit can still put it back just after the second eviction. The TTL bounds how long such
+    // an entry is served.
+    @Value("${quiz.hibernate.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // The lookup table migration has to finish before Hibernate validates or updates the question table
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor lookupTableMigrationFirst() {
+        return new EntityManagerFactoryDependsOnPostProcessor(LookupTableMigration.class);
+    }
+
+    // Lets the single-row quiz_question inserts and deletes from a quiz update go out as JDBC batches
+    @Bean
+    public HibernatePropertiesCustomizer batchingCustomizer() {
+        return properties -> {
+            properties.put("hibernate.jdbc.batch_size", batchSize);
+            properties.put("hibernate.order_inserts", true);
+            properties.put("hibernate.order_updates", true);
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.use_query_cache", true);
+            properties.put("hibernate.cache.region.factory_class", ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // Every region is created below with a bound; an unexpected one is created but logged
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create-warn");
+            // Hit/miss counters for /question/cacheStats and the hibernate.* meters
+            properties.put("hibernate.generate_statistics", true);
+        };
+    }
+
+    // In-process Ehcache, heap only and bounded by entry count, so there is nothing external to run
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withCache(QUESTION_REGION, heapCache(questionEntries).withExpiry(timeToLive()))
+                .withCache(QUESTION_BY_CATEGORY_REGION, heapCache(queryEntries).withExpiry(timeToLive()))
+                .withCache(DEFAULT_QUERY_REGION, heapCache(queryEntries).withExpiry(timeToLive()))
+                // One entry per table; must never drop an entry while a query result still depends on it
+                .withCache(TIMESTAMPS_REGION, heapCache(1000))
+                .build();
+        return provider.getCacheManager(URI.create("urn:quizproject:hibernate"), configuration);
+    }
+
+    private ExpiryPolicy<Object, Object> timeToLive() {
+        return ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ttlSeconds));
+    }
+
+    private static CacheConfigurationBuilder<Object, Object> heapCache(long entries) {
+        return CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(entries));
+    }
+}
@@ -0,0 +1,163 @@
+package com.quize.quizproject.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Progress and outcome of one QuestionImporter run. Only the importing thread writes it; fields are volatile
+// so progress polls see current values. lastCommittedRow is the resume point: every row up to it has been
+// written or rejected, so a retry with resumeAfter=lastCommittedRow picks up exactly where this one stopped.
+public class ImportReport {
+
+    private final String importId;
+    private final String format;
+    private final long resumeAfter;
+    private final int maxReportedErrors;
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final List<RowError> errors = new CopyOnWriteArrayList<>();
+
+    private volatile String status = "RUNNING";
+    private volatile long rowsRead;
+    private volatile long rowsSkipped;
+    private volatile long inserted;
+    private volatile long updated;
+    private volatile long rejected;
+    private volatile int chunksCommitted;
+    private volatile long lastCommittedRow;
+    private volatile long finishedAtMillis;
+    private volatile String failure;
+
+    ImportReport(String importId, String format, long resumeAfter, int maxReportedErrors) {
+        this.importId = importId;
+        this.format = format;
+        this.resumeAfter = resumeAfter;
+        this.maxReportedErrors = maxReportedErrors;
+        this.lastCommittedRow = resumeAfter;
+    }
+
+    void rowRead() {
+        rowsRead++;
+    }
+
+    void rowSkipped() {
+        rowsSkipped++;
+    }
+
+    // Only the first maxReportedErrors are kept; the count covers all of them
+    void reject(long row, String message) {
+        rejected++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    void chunkCommitted(long throughRow, int insertedRows, int updatedRows) {
+        inserted += insertedRows;
+        updated += updatedRows;
+        chunksCommitted++;
+        lastCommittedRow = throughRow;
+    }
+
+    void complete(long lastRow) {
+        lastCommittedRow = Math.max(lastCommittedRow, lastRow);
+        finishedAtMillis = System.currentTimeMillis();
+        status = "COMPLETED";
+    }
+
+    void fail(String message) {
+        failure = message;
+        finishedAtMillis = System.currentTimeMillis();
+        status = "FAILED";
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    @JsonIgnore
+    public boolean isRunning() {
+        return "RUNNING".equals(status);
+    }
+
+    @JsonIgnore
+    public boolean isFailed() {
+        return "FAILED".equals(status);
+    }
+
+    public long getResumeAfter() {
+        return resumeAfter;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public int getChunksCommitted() {
+        return chunksCommitted;
+    }
+
+    public long getLastCommittedRow() {
+        return lastCommittedRow;
+    }
+
+    public long getElapsedMillis() {
+        return (finishedAtMillis != 0 ? finishedAtMillis : System.currentTimeMillis()) - startedAtMillis;
+    }
+
+    // Null unless the import stopped early
+    public String getFailure() {
+        return failure;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public boolean isErrorsTruncated() {
+        return rejected > errors.size();
+    }
+
+    public static class RowError {
+        private final long row;
+        private final String message;
+
+        RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
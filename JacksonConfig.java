@@ -0,0 +1,30 @@
+package com.quize.quizproject.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Tunes the one ObjectMapper Spring Boot builds. Services and controllers inject that bean
+// instead of each creating their own, so serializers are resolved and cached once per type.
+@Configuration
+public class JacksonConfig {
+
+    // Generates accessor lambdas for the response views instead of calling getters reflectively
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer quizObjectMapperCustomizer() {
+        return builder -> builder
+                .featuresToDisable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+                        SerializationFeature.FAIL_ON_EMPTY_BEANS,
+                        // Streamed responses flush per page themselves
+                        SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+}
@@ -0,0 +1,21 @@
+package com.quize.quizproject.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JdbcBatchingConfig implements BeanPostProcessor {
+
+    // Connector/J sends a JDBC batch as one statement per row unless it is allowed to rewrite it
+    // into a multi-row INSERT, which is what makes the bulk question writer worth batching
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof HikariDataSource dataSource
+                && dataSource.getJdbcUrl() != null && dataSource.getJdbcUrl().startsWith("jdbc:mysql:")) {
+            dataSource.addDataSourceProperty("rewriteBatchedStatements", "true");
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,96 @@
+package com.quize.quizproject.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// A user's best graded score on one quiz, as last snapshotted from the in-memory leaderboard
+@Entity
+@Table(name = "quiz_leaderboard")
+@IdClass(LeaderboardScore.Key.class)
+public class LeaderboardScore {
+    @Id
+    @Column(name = "quiz_id")
+    private Integer quizId;
+
+    @Id
+    @Column(name = "user_id", length = 64)
+    private String userId;
+
+    @Column(name = "correct_answers")
+    private Integer correctAnswers;
+
+    @Column(name = "total_questions")
+    private Integer totalQuestions;
+
+    @Column(name = "achieved_at")
+    private LocalDateTime achievedAt;
+
+    // Getters and setters
+    public Integer getQuizId() {
+        return quizId;
+    }
+
+    public void setQuizId(Integer quizId) {
+        this.quizId = quizId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Integer getCorrectAnswers() {
+        return correctAnswers;
+    }
+
+    public void setCorrectAnswers(Integer correctAnswers) {
+        this.correctAnswers = correctAnswers;
+    }
+
+    public Integer getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public void setTotalQuestions(Integer totalQuestions) {
+        this.totalQuestions = totalQuestions;
+    }
+
+    public LocalDateTime getAchievedAt() {
+        return achievedAt;
+    }
+
+    public void setAchievedAt(LocalDateTime achievedAt) {
+        this.achievedAt = achievedAt;
+    }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Integer quizId;
+        private String userId;
+
+        public Key() {
+        }
+
+        public Key(Integer quizId, String userId) {
+            this.quizId = quizId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(quizId, key.quizId) && Objects.equals(userId, key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(quizId, userId);
+        }
+    }
+}
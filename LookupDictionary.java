@@ -0,0 +1,240 @@
+package com.quize.quizproject.repository;
+
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Two-way name <-> id map over one lookup table. QuestionLookups loads every row at startup, so reads are
+// lock-free map hits; only a name or id not seen yet goes to the table. Each stored name is held once, so
+// every question loaded with that value shares the same String instance.
+//
+// A miss runs on the caller's connection: the one bound to its transaction when there is one, so a converter
+// or entity listener never needs a second pooled connection while its transaction holds the first. A name
+// added inside a transaction is only visible to that transaction until it commits, and forgotten if it
+// rolls back, so no other request can store an id whose row may never exist.
+public class LookupDictionary {
+
+    // No lookup row has this id, so a name that was never written matches no question
+    public static final short NO_ID = 0;
+
+    // Names found missing are kept at most this many; past it the set is cleared rather than grown
+    private static final int MAX_MISSES = 10000;
+
+    private final DataSource dataSource;
+    private final String table;
+    private final long missTtlNanos;
+    private final String selectAllSql;
+    private final String selectByNameSql;
+    private final String lockByNameSql;
+    private final String insertSql;
+
+    // Keyed by every spelling looked up, which under a case-insensitive collation may be several per row
+    private final Map<String, Short> idsByName = new ConcurrentHashMap<>();
+    private final Map<Short, String> namesById = new ConcurrentHashMap<>();
+
+    // Names a query asked for that have no row, until their deadline (System.nanoTime), so a missing category
+    // costs one round-trip per TTL rather than one per request. Another instance may add the name meanwhile.
+    private final Map<String, Long> misses = new ConcurrentHashMap<>();
+
+    public LookupDictionary(DataSource dataSource, String table, String idColumn) {
+        this(dataSource, table, idColumn, 30000);
+    }
+
+    public LookupDictionary(DataSource dataSource, String table, String idColumn, long missTtlMillis) {
+        this.dataSource = dataSource;
+        this.table = table;
+        this.missTtlNanos = TimeUnit.MILLISECONDS.toNanos(missTtlMillis);
+        this.selectAllSql = "SELECT " + idColumn + ", name FROM " + table;
+        this.selectByNameSql = "SELECT " + idColumn + ", name FROM " + table + " WHERE name = ?";
+        this.lockByNameSql = selectByNameSql + " FOR UPDATE";
+        this.insertSql = "INSERT INTO " + table + " (name) VALUES (?)";
+    }
+
+    // Id for the name, or null when it has no row. Never writes, so query parameters cannot grow the table.
+    public Short findId(String name) {
+        Short id = idsByName.get(name);
+        if (id != null) {
+            return id;
+        }
+        Pending pending = pending();
+        if (pending != null && (id = pending.ids.get(name)) != null) {
+            return id;
+        }
+        Long missedUntil = misses.get(name);
+        if (missedUntil != null && System.nanoTime() - missedUntil < 0) {
+            return null;
+        }
+        return lookup(name, false);
+    }
+
+    // Id for the name, adding its row the first time the name is written
+    public short idOf(String name) {
+        Short id = idsByName.get(name);
+        if (id != null) {
+            return id;
+        }
+        Pending pending = pending();
+        if (pending != null && (id = pending.ids.get(name)) != null) {
+            return id;
+        }
+        return lookup(name, true);
+    }
+
+    public String nameOf(Short id) {
+        String name = namesById.get(id);
+        if (name == null) {
+            Pending pending = pending();
+            name = pending != null ? pending.names.get(id) : null;
+        }
+        if (name == null) {
+            // Added by another instance since the last load
+            reload();
+            name = namesById.get(id);
+            if (name == null) {
+                throw new IllegalStateException("No row " + id + " in " + table);
+            }
+        }
+        return name;
+    }
+
+    // The stored spelling of a name that has a row, as the shared instance; the name itself otherwise
+    public String canonical(String name) {
+        Short id = findId(name);
+        return id != null ? nameOf(id) : name;
+    }
+
+    public int size() {
+        return namesById.size();
+    }
+
+    public void reload() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement(selectAllSql);
+             ResultSet rows = statement.executeQuery()) {
+            // A row this transaction added is among them, and stays private to it until it commits
+            Pending pending = pending();
+            while (rows.next()) {
+                short id = rows.getShort(1);
+                if (pending == null || !pending.names.containsKey(id)) {
+                    publish(id, rows.getString(2), null);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load " + table, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // No lock: two requests missing the same name both query it, and both inserting it is settled by the
+    // unique key. The database decides whether two spellings are the same name, so matching follows the column
+    // collation just as the old string column did.
+    private Short lookup(String name, boolean create) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            Row row = select(connection, selectByNameSql, name);
+            if (row == null && create) {
+                boolean inserted;
+                try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+                    insert.setString(1, name);
+                    inserted = insert.executeUpdate() > 0;
+                } catch (SQLException e) {
+                    // Inserted concurrently; a locking read sees that row even where the snapshot would not
+                    inserted = false;
+                }
+                row = select(connection, lockByNameSql, name);
+                if (row == null) {
+                    throw new IllegalStateException("Could not add '" + name + "' to " + table);
+                }
+                if (inserted && TransactionSynchronizationManager.isSynchronizationActive()) {
+                    holdUntilCommit(row.id, row.name, name);
+                } else {
+                    publish(row.id, row.name, name);
+                }
+                return row.id;
+            }
+            if (row == null) {
+                if (misses.size() >= MAX_MISSES) {
+                    misses.clear();
+                }
+                misses.put(name, System.nanoTime() + missTtlNanos);
+                return null;
+            }
+            publish(row.id, row.name, name);
+            return row.id;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not look up '" + name + "' in " + table, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private Row select(Connection connection, String sql, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, name);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() ? new Row(rows.getShort(1), rows.getString(2)) : null;
+            }
+        }
+    }
+
+    // A row this transaction inserted is not committed yet, so only this transaction may use its id
+    private void holdUntilCommit(short id, String name, String spelling) {
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.names.put(id, name);
+        pending.ids.put(name, id);
+        pending.ids.put(spelling, id);
+    }
+
+    // Keeps the instance already held for an id, so reloads never swap out a shared name
+    private void publish(short id, String name, String spelling) {
+        String stored = namesById.putIfAbsent(id, name);
+        idsByName.putIfAbsent(stored != null ? stored : name, id);
+        misses.remove(name);
+        if (spelling != null) {
+            idsByName.putIfAbsent(spelling, id);
+            misses.remove(spelling);
+        }
+    }
+
+    private Pending pending() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                ? (Pending) TransactionSynchronizationManager.getResource(this) : null;
+    }
+
+    // Names this transaction added, published once it commits
+    private final class Pending implements TransactionSynchronization {
+        private final Map<String, Short> ids = new HashMap<>();
+        private final Map<Short, String> names = new HashMap<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LookupDictionary.this);
+            if (status != STATUS_COMMITTED) {
+                return;
+            }
+            for (Map.Entry<String, Short> entry : ids.entrySet()) {
+                String name = names.get(entry.getValue());
+                publish(entry.getValue(), name, entry.getKey());
+            }
+        }
+    }
+
+    private record Row(short id, String name) {
+    }
+}
@@ -0,0 +1,174 @@
+package com.quize.quizproject.config;
+
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Moves a question table that still has the category and difficulty_level strings onto the lookup tables:
+// fills question_category and question_difficulty with the distinct names, adds and backfills the id columns,
+// then adds foreign keys from the id columns and their index. An explicit step: off unless
+// quiz.migration.lookup-tables.enabled is set for one start, and it runs before Hibernate sees the schema.
+//
+// The string columns and their index are left in place, and Question and QuestionBulkWriter keep writing them
+// next to the keys, so instances of the previous release still read and write every row during a rolling
+// deploy; a later release drops them. Every step checks the schema first and the backfill only touches rows
+// without ids, so running it again after the rollout keys the rows the old instances wrote meanwhile. MySQL
+// commits each DDL statement on its own, so an interrupted run simply continues on the next one.
+//
+// With the migration off, startup still fails while the table has legacy values without keys: every category
+// query, quiz sample and search matches on the keys and would silently leave those rows out.
+@Component
+public class LookupTableMigration {
+
+    private static final String TABLE = "question";
+    private static final String INDEX = "idx_question_category_difficulty_id";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${quiz.migration.lookup-tables.enabled:false}")
+    private boolean enabled;
+
+    private static final Logger logger = LogManager.getLogger(LookupTableMigration.class);
+
+    @PostConstruct
+    public void migrate() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            Schema schema = new Schema(connection.getMetaData(), connection.getCatalog());
+            boolean legacyCategory = schema.hasColumn(TABLE, "category");
+            boolean legacyDifficulty = schema.hasColumn(TABLE, "difficulty_level");
+            if (!enabled) {
+                checkKeyed(statement, schema, legacyCategory, legacyDifficulty);
+                return;
+            }
+            if (!legacyCategory && !legacyDifficulty) {
+                logger.info("No legacy category or difficulty columns; lookup table migration has nothing to do");
+                return;
+            }
+            long start = System.currentTimeMillis();
+            logger.info("Moving question categories and difficulty levels into lookup tables");
+
+            if (legacyCategory) {
+                moveToLookup(statement, schema, "category", "question_category", "category_id",
+                        "uk_question_category_name", "fk_question_category");
+            }
+            if (legacyDifficulty) {
+                moveToLookup(statement, schema, "difficulty_level", "question_difficulty", "difficulty_id",
+                        "uk_question_difficulty_name", "fk_question_difficulty");
+            }
+            if (schema.indexesOn(TABLE, Set.of("category_id")).isEmpty()) {
+                statement.execute("CREATE INDEX " + INDEX + " ON " + TABLE + " (category_id, difficulty_id)");
+            }
+            logger.info("Lookup table migration finished in {} ms; the category and difficulty_level columns are "
+                    + "kept until every instance reads the keys", System.currentTimeMillis() - start);
+        }
+    }
+
+    private void checkKeyed(Statement statement, Schema schema, boolean legacyCategory, boolean legacyDifficulty)
+            throws SQLException {
+        long unkeyed = 0;
+        if (legacyCategory) {
+            unkeyed += unkeyedRows(statement, schema, "category", "category_id");
+        }
+        if (legacyDifficulty) {
+            unkeyed += unkeyedRows(statement, schema, "difficulty_level", "difficulty_id");
+        }
+        if (unkeyed > 0) {
+            throw new IllegalStateException(unkeyed + " question category or difficulty values have no lookup key; "
+                    + "start once with quiz.migration.lookup-tables.enabled=true to move them to the lookup tables");
+        }
+    }
+
+    // Rows with a legacy value but no key; all of them when the key column does not exist yet
+    private static long unkeyedRows(Statement statement, Schema schema, String column, String idColumn)
+            throws SQLException {
+        String condition = schema.hasColumn(TABLE, idColumn) ? " AND " + idColumn + " IS NULL" : "";
+        try (ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM " + TABLE + " WHERE " + column
+                + " IS NOT NULL" + condition)) {
+            count.next();
+            return count.getLong(1);
+        }
+    }
+
+    private void moveToLookup(Statement statement, Schema schema, String column, String lookupTable,
+                              String idColumn, String uniqueName, String foreignKey) throws SQLException {
+        statement.execute("CREATE TABLE IF NOT EXISTS " + lookupTable + " ("
+                + idColumn + " SMALLINT NOT NULL AUTO_INCREMENT, "
+                + "name VARCHAR(45) NOT NULL, "
+                + "PRIMARY KEY (" + idColumn + "), "
+                + "CONSTRAINT " + uniqueName + " UNIQUE (name))");
+        // Names compare under the column's collation, so values the old column treated as equal share a row
+        int names = statement.executeUpdate("INSERT INTO " + lookupTable + " (name) "
+                + "SELECT DISTINCT q." + column + " FROM " + TABLE + " q WHERE q." + column + " IS NOT NULL "
+                + "AND NOT EXISTS (SELECT 1 FROM " + lookupTable + " l WHERE l.name = q." + column + ")");
+        if (!schema.hasColumn(TABLE, idColumn)) {
+            statement.execute("ALTER TABLE " + TABLE + " ADD COLUMN " + idColumn + " SMALLINT");
+        }
+        int rows = statement.executeUpdate("UPDATE " + TABLE + " q SET " + idColumn + " = "
+                + "(SELECT l." + idColumn + " FROM " + lookupTable + " l WHERE l.name = q." + column + ") "
+                + "WHERE q." + column + " IS NOT NULL AND q." + idColumn + " IS NULL");
+        if (!schema.hasForeignKey(TABLE, foreignKey)) {
+            statement.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + foreignKey + " FOREIGN KEY ("
+                    + idColumn + ") REFERENCES " + lookupTable + " (" + idColumn + ")");
+        }
+        logger.info("{}: {} names, {} questions keyed", lookupTable, names, rows);
+    }
+
+    // Metadata lookups limited to the connection's own database; identifier case differs between databases
+    // (MySQL keeps it, H2 upper-cases it), so both spellings are tried
+    private record Schema(DatabaseMetaData metaData, String catalog) {
+
+        boolean hasColumn(String table, String column) throws SQLException {
+            for (String[] names : new String[][]{{table, column}, {table.toUpperCase(), column.toUpperCase()}}) {
+                try (ResultSet columns = metaData.getColumns(catalog, null, names[0], names[1])) {
+                    if (columns.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        boolean hasForeignKey(String table, String name) throws SQLException {
+            for (String tableName : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet keys = metaData.getImportedKeys(catalog, null, tableName)) {
+                    while (keys.next()) {
+                        if (name.equalsIgnoreCase(keys.getString("FK_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        Set<String> indexesOn(String table, Set<String> columns) throws SQLException {
+            Set<String> indexes = new LinkedHashSet<>();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet info = metaData.getIndexInfo(catalog, null, name, false, false)) {
+                    while (info.next()) {
+                        String column = info.getString("COLUMN_NAME");
+                        String index = info.getString("INDEX_NAME");
+                        if (column != null && index != null && columns.contains(column.toLowerCase())) {
+                            indexes.add(index);
+                        }
+                    }
+                }
+            }
+            return indexes;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.config.BinaryFormatsConfig;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+// Representations a quiz payload is encoded in, picked from the request's Accept header
+public enum PayloadFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    SMILE(MediaType.parseMediaType(BinaryFormatsConfig.APPLICATION_SMILE_VALUE)),
+    CBOR(MediaType.APPLICATION_CBOR);
+
+    private final MediaType mediaType;
+
+    PayloadFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    // Binary formats only when asked for by name; wildcards, JSON and anything unparseable get JSON
+    public static PayloadFormat negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        PayloadFormat best = JSON;
+        double bestQuality = -1;
+        for (MediaType type : accepted) {
+            double quality = type.getQualityValue();
+            if (quality <= bestQuality || quality == 0) {
+                continue;
+            }
+            for (PayloadFormat format : values()) {
+                if (format.mediaType.equalsTypeAndSubtype(type) || (format == JSON && type.includes(JSON.mediaType))) {
+                    best = format;
+                    bestQuality = quality;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
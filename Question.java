@@ -1,16 +1,34 @@
 package com.quize.quizproject.model;
 
+import com.quize.quizproject.config.HibernateConfig;
+import com.quize.quizproject.repository.CategoryConverter;
+import com.quize.quizproject.repository.DifficultyConverter;
+import com.quize.quizproject.repository.QuestionLookupListener;
 import jakarta.persistence.*;
-
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+// Read far more often than written, so loaded questions are kept in the second-level cache. Category and
+// difficulty are stored as SMALLINT keys into question_category and question_difficulty and converted back to
+// their shared name instances on load, so the entity and the JSON API still deal in plain strings. The
+// (category_id, difficulty_id) index serves quiz sampling; category leads, so category-only lookups use it too.
+// The legacy category and difficulty_level strings are written alongside the keys until a later release
+// drops them, so instances of the previous release still read every row during a rolling deploy.
 @Entity
-@Table(name="question")
+@Table(name="question", indexes = {
+        @Index(name = "idx_question_category_difficulty_id", columnList = "category_id, difficulty_id")
+})
+@EntityListeners(QuestionLookupListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateConfig.QUESTION_REGION)
 public class Question {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name="question_id")
     private Integer questionId;
 
-    @Column(name="category",length = 45)
+    @Convert(converter = CategoryConverter.class)
+    @Column(name="category_id")
     private String category;
 
     @Column(name="question_Title",length = 150)
@@ -31,9 +49,28 @@ public class Question {
     @Column(name="right_ans",length = 100)
     private String rightAns;
 
-    @Column(name="difficulty_level",length = 45)
+    @Convert(converter = DifficultyConverter.class)
+    @Column(name="difficulty_id")
     private String difficultyLevel;
 
+    // Written only, through setCategory and setDifficultyLevel; reads go through the keys above
+    @Column(name="category",length = 45)
+    private String legacyCategory;
+
+    @Column(name="difficulty_level",length = 45)
+    private String legacyDifficultyLevel;
+
+    // Never read or written; they only declare the foreign keys from the id columns to the lookup tables
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_question_category"))
+    private QuestionCategory categoryRow;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "difficulty_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_question_difficulty"))
+    private QuestionDifficulty difficultyRow;
+
     //Getter and setter
 
 
@@ -51,6 +88,7 @@ public class Question {
 
     public void setCategory(String category) {
         this.category = category;
+        this.legacyCategory = category;
     }
 
     public String getQuestionTitle() {
@@ -107,5 +145,22 @@ public class Question {
 
     public void setDifficultyLevel(String difficultyLevel) {
         this.difficultyLevel = difficultyLevel;
+        this.legacyDifficultyLevel = difficultyLevel;
+    }
+
+    // Same row, same question, so Quiz.questionList matches a loaded question against one from another
+    // session or the cache. The hash ignores the id, which an insert assigns after the object may be in a set.
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        // instanceof rather than getClass(), so a lazy proxy equals the question it stands for
+        return o instanceof Question other && questionId != null && questionId.equals(other.getQuestionId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Question.class.hashCode();
     }
 }
@@ -0,0 +1,87 @@
+package com.quize.quizproject.model;
+
+import jakarta.persistence.*;
+
+// Running answer totals for one question, merged in from the in-memory counters by AnswerStats
+@Entity
+@Table(name = "question_answer_stats")
+public class QuestionAnswerStats {
+    @Id
+    @Column(name = "question_id")
+    private Integer questionId;
+
+    @Column(name = "attempts")
+    private Long attempts;
+
+    @Column(name = "correct")
+    private Long correct;
+
+    @Column(name = "option1_picks")
+    private Long option1Picks;
+
+    @Column(name = "option2_picks")
+    private Long option2Picks;
+
+    @Column(name = "option3_picks")
+    private Long option3Picks;
+
+    @Column(name = "option4_picks")
+    private Long option4Picks;
+
+    // Getters and setters
+    public Integer getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Integer questionId) {
+        this.questionId = questionId;
+    }
+
+    public Long getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Long attempts) {
+        this.attempts = attempts;
+    }
+
+    public Long getCorrect() {
+        return correct;
+    }
+
+    public void setCorrect(Long correct) {
+        this.correct = correct;
+    }
+
+    public Long getOption1Picks() {
+        return option1Picks;
+    }
+
+    public void setOption1Picks(Long option1Picks) {
+        this.option1Picks = option1Picks;
+    }
+
+    public Long getOption2Picks() {
+        return option2Picks;
+    }
+
+    public void setOption2Picks(Long option2Picks) {
+        this.option2Picks = option2Picks;
+    }
+
+    public Long getOption3Picks() {
+        return option3Picks;
+    }
+
+    public void setOption3Picks(Long option3Picks) {
+        this.option3Picks = option3Picks;
+    }
+
+    public Long getOption4Picks() {
+        return option4Picks;
+    }
+
+    public void setOption4Picks(Long option4Picks) {
+        this.option4Picks = option4Picks;
+    }
+}
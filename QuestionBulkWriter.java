@@ -0,0 +1,191 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.LookupDictionary;
+import com.quize.quizproject.repository.QuestionLookups;
+import com.quize.quizproject.repository.QuestionRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Writes questions in sized JDBC batches. Question ids are IDENTITY generated, which stops Hibernate
+// from batching inserts at all, so inserts and updates go straight through JdbcTemplate instead and the
+// generated keys are read back per batch. Like the entity, rows get both the lookup keys and the legacy
+// category and difficulty_level strings.
+@Component
+public class QuestionBulkWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO question (category_id, question_title, option1, option2, option3, "
+            + "option4, right_ans, difficulty_id, category, difficulty_level) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE question SET category_id = ?, question_title = ?, option1 = ?, option2 = ?, "
+            + "option3 = ?, option4 = ?, right_ans = ?, difficulty_id = ?, category = ?, difficulty_level = ? "
+            + "WHERE question_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private QuestionLookups questionLookups;
+
+    @Autowired
+    private QuestionCacheEvictor questionCacheEvictor;
+
+    @Value("${quiz.question.batch-size:500}")
+    private int batchSize;
+
+    private static final Logger logger = LogManager.getLogger(QuestionBulkWriter.class);
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    // Questions carrying the id of an existing row are updated, everything else is inserted with a new id.
+    // Progress is recorded on the result as each batch lands, so callers can see partial writes on failure.
+    public void write(List<Question> questions, BulkWriteResult result) {
+        long start = System.nanoTime();
+
+        // One query to find which of the supplied ids already exist
+        List<Integer> requestedIds = new ArrayList<>();
+        for (Question question : questions) {
+            if (question.getQuestionId() != null) {
+                requestedIds.add(question.getQuestionId());
+            }
+        }
+        Set<Integer> existingIds = requestedIds.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(questionRepository.findExistingIds(requestedIds));
+
+        List<Question> inserts = new ArrayList<>();
+        List<Question> updates = new ArrayList<>();
+        for (Question question : questions) {
+            // Lookup rows are added before the batches, and the written questions carry the shared names on to
+            // the change listeners
+            question.setCategory(register(questionLookups.categories(), question.getCategory()));
+            question.setDifficultyLevel(register(questionLookups.difficulties(), question.getDifficultyLevel()));
+            if (question.getQuestionId() != null && existingIds.contains(question.getQuestionId())) {
+                updates.add(question);
+            } else {
+                // Unknown ids are treated as new questions, same as the per-row findById path did
+                question.setQuestionId(null);
+                inserts.add(question);
+            }
+        }
+
+        // The rows are about to change behind Hibernate's back; evicted again after commit by the change event
+        List<Integer> updatedIds = new ArrayList<>(updates.size());
+        for (Question question : updates) {
+            updatedIds.add(question.getQuestionId());
+        }
+        questionCacheEvictor.evictBeforeWrite(updatedIds);
+
+        for (int from = 0; from < updates.size(); from += batchSize) {
+            List<Question> batch = updates.subList(from, Math.min(from + batchSize, updates.size()));
+            long batchStart = System.nanoTime();
+            updateBatch(batch);
+            result.addBatch("update", batch, System.nanoTime() - batchStart);
+        }
+
+        for (int from = 0; from < inserts.size(); from += batchSize) {
+            List<Question> batch = inserts.subList(from, Math.min(from + batchSize, inserts.size()));
+            long batchStart = System.nanoTime();
+            insertBatch(batch);
+            result.addBatch("insert", batch, System.nanoTime() - batchStart);
+        }
+
+        result.setElapsedNanos(System.nanoTime() - start);
+        logger.debug("Bulk write finished: {} inserted, {} updated in {} batches",
+                result.getInserted(), result.getUpdated(), result.getBatches().size());
+    }
+
+    private void insertBatch(List<Question> batch) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[]{"question_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bindColumns(ps, batch.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }, keyHolder);
+
+        // Keys come back in statement order; any other count means they cannot be matched to the questions, and a
+        // question left without its id would be published to the caches as if it had none
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != batch.size()) {
+            throw new IllegalStateException("Inserted " + batch.size() + " questions but the driver returned "
+                    + keys.size() + " generated keys");
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Number key = (Number) keys.get(i).values().iterator().next();
+            batch.get(i).setQuestionId(key.intValue());
+        }
+    }
+
+    private void updateBatch(List<Question> batch) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Question question = batch.get(i);
+                bindColumns(ps, question);
+                ps.setInt(11, question.getQuestionId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
+    private static String register(LookupDictionary dictionary, String name) {
+        if (name == null) {
+            return null;
+        }
+        dictionary.idOf(name);
+        return dictionary.canonical(name);
+    }
+
+    private void bindColumns(PreparedStatement ps, Question question) throws SQLException {
+        bindLookup(ps, 1, questionLookups.categories(), question.getCategory());
+        ps.setString(2, question.getQuestionTitle());
+        ps.setString(3, question.getOption1());
+        ps.setString(4, question.getOption2());
+        ps.setString(5, question.getOption3());
+        ps.setString(6, question.getOption4());
+        ps.setString(7, question.getRightAns());
+        bindLookup(ps, 8, questionLookups.difficulties(), question.getDifficultyLevel());
+        ps.setString(9, question.getCategory());
+        ps.setString(10, question.getDifficultyLevel());
+    }
+
+    private static void bindLookup(PreparedStatement ps, int index, LookupDictionary dictionary, String name)
+            throws SQLException {
+        if (name == null) {
+            ps.setNull(index, Types.SMALLINT);
+        } else {
+            ps.setShort(index, dictionary.idOf(name));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.config.HibernateConfig;
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+
+// Question writes from QuestionBulkWriter go through plain JDBC, which Hibernate never sees, so the
+// second-level cache is told about them here: QuestionBulkWriter evicts the rows it is about to change before
+// its batches run, and the listener evicts them again once the write has committed. The first eviction drops
+// anything cached before the write, the second anything a read cached while it was in progress. Only a read
+// that loaded the old row before the commit and put it after the second eviction can still re-cache it; the
+// region TTL in HibernateConfig bounds how long that is served.
+@Component
+public class QuestionCacheEvictor {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final Logger logger = LogManager.getLogger(QuestionCacheEvictor.class);
+
+    // Ahead of a JDBC write to these questions; new rows have no entry yet, but the category lists may change
+    public void evictBeforeWrite(Collection<Integer> questionIds) {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        for (Integer questionId : questionIds) {
+            cache.evictEntityData(Question.class, questionId);
+        }
+        evictQueries(cache);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChange(QuestionChangeEvent event) {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        for (Question question : event.getUpserted()) {
+            cache.evictEntityData(Question.class, question.getQuestionId());
+        }
+        for (Integer questionId : event.getDeletedIds()) {
+            cache.evictEntityData(Question.class, questionId);
+        }
+        evictQueries(cache);
+        logger.debug("Evicted {} upserted and {} deleted questions from the second-level cache",
+                event.getUpserted().size(), event.getDeletedIds().size());
+    }
+
+    // Any cached category list may have gained, lost or moved a question
+    private static void evictQueries(Cache cache) {
+        cache.evictQueryRegion(HibernateConfig.QUESTION_BY_CATEGORY_REGION);
+        cache.evictDefaultQueryRegion();
+    }
+}
@@ -0,0 +1,360 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.QuestionRepository;
+import com.quize.quizproject.view.AdminQuestionView;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Versioned, copy-on-write copy of the whole question bank. Every question write produces a new immutable
+// snapshot with the next version and appends the touched ids to a bounded change log, so readers never
+// lock and clients can ask for just what changed since the version they already hold. A snapshot shares
+// everything a write did not touch with the one before it: questions are kept in fixed pages of ids and a
+// write copies only the page index and its own pages, and the change log is one array appended in place.
+@Component
+public class QuestionCatalog {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Value("${quiz.catalog.change-log-size:10000}")
+    private int changeLogSize;
+
+    @Value("${quiz.question.page-size:1000}")
+    private int pageSize;
+
+    private static final Logger logger = LogManager.getLogger(QuestionCatalog.class);
+
+    // Versions restart on every boot, so clients also get the epoch and resync when it changes
+    private final long epoch = System.currentTimeMillis();
+
+    private volatile Snapshot snapshot = new Snapshot(0, Pages.EMPTY, new Change[0], 0, 0, 0, false);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        Map<Integer, AdminQuestionView> questions = new LinkedHashMap<>();
+        Integer after = 0;
+        while (true) {
+            List<Question> page = questionRepository.findByQuestionIdGreaterThanOrderByQuestionIdAsc(after, Limit.of(pageSize));
+            for (Question question : page) {
+                questions.put(question.getQuestionId(), AdminQuestionView.from(question));
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            after = page.get(page.size() - 1).getQuestionId();
+        }
+
+        // A reload cannot say what changed, so every client older than this version gets a full snapshot
+        long version = snapshot.version + 1;
+        snapshot = new Snapshot(version, Pages.EMPTY.with(questions), new Change[0], 0, 0, version, true);
+        logger.info("Question catalog loaded with {} questions at version {} in {} ms", questions.size(), version,
+                System.currentTimeMillis() - start);
+    }
+
+    // Writers are serialized here; readers only ever see a fully built snapshot
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onQuestionChange(QuestionChangeEvent event) {
+        Snapshot current = snapshot;
+        long version = current.version + 1;
+
+        // Null deletes; a question both upserted and deleted in one event ends up deleted
+        Map<Integer, AdminQuestionView> writes = new LinkedHashMap<>();
+        List<Integer> touched = new ArrayList<>(event.getUpserted().size() + event.getDeletedIds().size());
+        for (Question question : event.getUpserted()) {
+            if (question.getQuestionId() != null) {
+                writes.put(question.getQuestionId(), AdminQuestionView.from(question));
+                touched.add(question.getQuestionId());
+            }
+        }
+        for (Integer questionId : event.getDeletedIds()) {
+            writes.put(questionId, null);
+            touched.add(questionId);
+        }
+
+        // Older snapshots only read their log up to their own end, so new entries go straight after it. When
+        // the array is full, the entries still kept move to a new one with room for changeLogSize more.
+        Change[] log = current.log;
+        int start = current.logStart;
+        int end = current.logEnd;
+        long deltaFloor = current.deltaFloor;
+        if (end + touched.size() > log.length) {
+            int kept = Math.min(end - start, changeLogSize);
+            if (end - kept > start) {
+                deltaFloor = Math.max(deltaFloor, log[end - kept - 1].version);
+            }
+            Change[] grown = new Change[2 * changeLogSize + touched.size()];
+            System.arraycopy(log, end - kept, grown, 0, kept);
+            log = grown;
+            start = 0;
+            end = kept;
+        }
+        for (Integer questionId : touched) {
+            log[end++] = new Change(version, questionId);
+        }
+
+        // Drop the oldest entries; a client behind the oldest version left in the log needs a full snapshot
+        int oldest = Math.max(start, end - changeLogSize);
+        if (oldest > start) {
+            deltaFloor = Math.max(deltaFloor, log[oldest - 1].version);
+        }
+
+        snapshot = new Snapshot(version, current.questions.with(writes), log, oldest, end, deltaFloor, current.loaded);
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    // Delta since a version, or null when the log cannot answer it and the caller must send everything
+    public Delta changesSince(Snapshot snapshot, long epoch, long sinceVersion) {
+        if (epoch != this.epoch || sinceVersion < snapshot.deltaFloor || sinceVersion > snapshot.version) {
+            return null;
+        }
+        Set<Integer> touched = new LinkedHashSet<>();
+        // The log is in version order, so scan back only as far as the client's version
+        for (int i = snapshot.logEnd - 1; i >= snapshot.logStart && snapshot.log[i].version > sinceVersion; i--) {
+            touched.add(snapshot.log[i].questionId);
+        }
+
+        List<AdminQuestionView> upserted = new ArrayList<>();
+        List<Integer> deleted = new ArrayList<>();
+        for (Integer questionId : touched) {
+            AdminQuestionView question = snapshot.questions.get(questionId);
+            if (question != null) {
+                upserted.add(question);
+            } else {
+                deleted.add(questionId);
+            }
+        }
+        return new Delta(upserted, deleted);
+    }
+
+    public static final class Snapshot {
+        private final long version;
+        private final Pages questions;
+        // This snapshot's change log is log[logStart, logEnd); later snapshots may append past logEnd
+        private final Change[] log;
+        private final int logStart;
+        private final int logEnd;
+        private final long deltaFloor;
+        private final boolean loaded;
+
+        Snapshot(long version, Pages questions, Change[] log, int logStart, int logEnd, long deltaFloor,
+                 boolean loaded) {
+            this.version = version;
+            this.questions = questions;
+            this.log = log;
+            this.logStart = logStart;
+            this.logEnd = logEnd;
+            this.deltaFloor = deltaFloor;
+            this.loaded = loaded;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        // In question id order
+        public Collection<AdminQuestionView> getQuestions() {
+            return questions.values();
+        }
+
+        // Null when the question is not (or no longer) in the catalog
+        public AdminQuestionView get(Integer questionId) {
+            return questions.get(questionId);
+        }
+
+        public int size() {
+            return questions.size();
+        }
+
+        public boolean isLoaded() {
+            return loaded;
+        }
+    }
+
+    public record Delta(List<AdminQuestionView> upserted, List<Integer> deleted) {
+    }
+
+    private record Change(long version, Integer questionId) {
+    }
+
+    // Immutable id -> question table in pages of PAGE_SIZE consecutive ids. with() copies the page index and
+    // the pages it writes to; every other page is shared with the table it was made from.
+    static final class Pages {
+        private static final int PAGE_BITS = 8;
+        private static final int PAGE_SIZE = 1 << PAGE_BITS;
+        private static final int SLOT_MASK = PAGE_SIZE - 1;
+
+        static final Pages EMPTY = new Pages(new int[0], new Page[0], 0);
+
+        // Ascending id >> PAGE_BITS of each page, and the page at the same index
+        private final int[] pageNumbers;
+        private final Page[] pages;
+        private final int size;
+
+        private Pages(int[] pageNumbers, Page[] pages, int size) {
+            this.pageNumbers = pageNumbers;
+            this.pages = pages;
+            this.size = size;
+        }
+
+        AdminQuestionView get(Integer questionId) {
+            if (questionId == null) {
+                return null;
+            }
+            int index = Arrays.binarySearch(pageNumbers, questionId >> PAGE_BITS);
+            return index >= 0 ? pages[index].questions[questionId & SLOT_MASK] : null;
+        }
+
+        int size() {
+            return size;
+        }
+
+        // A new table with the writes applied, a null question deleting its id. Each page written to is copied
+        // once however many of the writes land on it.
+        Pages with(Map<Integer, AdminQuestionView> writes) {
+            if (writes.isEmpty()) {
+                return this;
+            }
+            TreeMap<Integer, Page> written = new TreeMap<>();
+            int newSize = size;
+            for (Map.Entry<Integer, AdminQuestionView> write : writes.entrySet()) {
+                int questionId = write.getKey();
+                Page page = written.computeIfAbsent(questionId >> PAGE_BITS, number -> {
+                    int index = Arrays.binarySearch(pageNumbers, number);
+                    return index >= 0 ? pages[index].copy() : new Page();
+                });
+                newSize += page.set(questionId & SLOT_MASK, write.getValue());
+            }
+
+            // Merge the written pages into the index, leaving out any that are now empty
+            int[] numbers = new int[pageNumbers.length + written.size()];
+            Page[] merged = new Page[numbers.length];
+            int count = 0;
+            int index = 0;
+            for (Map.Entry<Integer, Page> entry : written.entrySet()) {
+                int number = entry.getKey();
+                while (index < pageNumbers.length && pageNumbers[index] < number) {
+                    numbers[count] = pageNumbers[index];
+                    merged[count++] = pages[index++];
+                }
+                if (index < pageNumbers.length && pageNumbers[index] == number) {
+                    index++;
+                }
+                if (entry.getValue().count > 0) {
+                    numbers[count] = number;
+                    merged[count++] = entry.getValue();
+                }
+            }
+            while (index < pageNumbers.length) {
+                numbers[count] = pageNumbers[index];
+                merged[count++] = pages[index++];
+            }
+            return new Pages(Arrays.copyOf(numbers, count), Arrays.copyOf(merged, count), newSize);
+        }
+
+        // In question id order
+        Collection<AdminQuestionView> values() {
+            return new AbstractCollection<>() {
+                @Override
+                public Iterator<AdminQuestionView> iterator() {
+                    return new Iterator<>() {
+                        private int page;
+                        private int slot = -1;
+
+                        {
+                            advance();
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return page < pages.length;
+                        }
+
+                        @Override
+                        public AdminQuestionView next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            AdminQuestionView question = pages[page].questions[slot];
+                            advance();
+                            return question;
+                        }
+
+                        private void advance() {
+                            while (page < pages.length) {
+                                while (++slot < PAGE_SIZE) {
+                                    if (pages[page].questions[slot] != null) {
+                                        return;
+                                    }
+                                }
+                                page++;
+                                slot = -1;
+                            }
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+
+    private static final class Page {
+        private final AdminQuestionView[] questions;
+        private int count;
+
+        Page() {
+            this(new AdminQuestionView[Pages.PAGE_SIZE], 0);
+        }
+
+        private Page(AdminQuestionView[] questions, int count) {
+            this.questions = questions;
+            this.count = count;
+        }
+
+        Page copy() {
+            return new Page(questions.clone(), count);
+        }
+
+        // The change in the number of questions on the page: 1 added, -1 removed, 0 replaced or absent
+        int set(int slot, AdminQuestionView question) {
+            AdminQuestionView previous = questions[slot];
+            questions[slot] = question;
+            int change = (question != null ? 1 : 0) - (previous != null ? 1 : 0);
+            count += change;
+            return change;
+        }
+    }
+}
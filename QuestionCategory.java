@@ -0,0 +1,35 @@
+package com.quize.quizproject.model;
+
+import jakarta.persistence.*;
+
+// One row per distinct category name. Questions reference it by category_id, so the name is stored once
+// instead of on every question row and in every index entry.
+@Entity
+@Table(name = "question_category", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_question_category_name", columnNames = "name")
+})
+public class QuestionCategory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "category_id")
+    private Short categoryId;
+
+    @Column(name = "name", length = 45, nullable = false)
+    private String name;
+
+    public Short getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Short categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
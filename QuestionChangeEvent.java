@@ -0,0 +1,35 @@
+package com.quize.quizproject.event;
+
+import com.quize.quizproject.model.Question;
+
+import java.util.Collections;
+import java.util.List;
+
+// Published by QuestionService whenever questions are written, so in-memory views of the
+// question bank can follow the database once the surrounding transaction commits.
+public class QuestionChangeEvent {
+
+    private final List<Question> upserted;
+    private final List<Integer> deletedIds;
+
+    public QuestionChangeEvent(List<Question> upserted, List<Integer> deletedIds) {
+        this.upserted = upserted != null ? upserted : Collections.emptyList();
+        this.deletedIds = deletedIds != null ? deletedIds : Collections.emptyList();
+    }
+
+    public static QuestionChangeEvent upserted(List<Question> questions) {
+        return new QuestionChangeEvent(questions, null);
+    }
+
+    public static QuestionChangeEvent deleted(Integer questionId) {
+        return new QuestionChangeEvent(null, Collections.singletonList(questionId));
+    }
+
+    public List<Question> getUpserted() {
+        return upserted;
+    }
+
+    public List<Integer> getDeletedIds() {
+        return deletedIds;
+    }
+}
@@ -3,13 +3,23 @@ package com.quize.quizproject.controller;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quize.quizproject.config.BinaryFormatsConfig;
+import com.quize.quizproject.metrics.QuizMetrics;
 import com.quize.quizproject.service.QuestionService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/question")
@@ -18,13 +28,18 @@ public class QuestionController {
     @Autowired
     private QuestionService questionService;
 
+    @Autowired
+    private QuizMetrics quizMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private static final Logger logger = LogManager.getLogger(QuestionController.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
 
     @CrossOrigin
     @PostMapping("/ques")
     public ResponseEntity<JsonNode> createOrUpdateQuestion(@RequestBody JsonNode jsonNode) {
-        logger.debug("Received request to process question data: {}", jsonNode.toString());
+        logger.debug("Received request to process question data: {}", jsonNode);
 
         try {
             // Call the service method and get the result
@@ -32,18 +47,72 @@ public class QuestionController {
             logger.debug("Question processed successfully: {}", result);
             return ResponseEntity.ok(result);
         } catch (DataAccessException dae) {
+            quizMetrics.recordError("/question/ques", dae);
             logger.error("DataAccessException in process question data: {}", dae.getMessage(), dae);
             return ResponseEntity.status(500).body(createErrorResponse("Error occurred while processing question data"));
         } catch (Exception e) {
+            quizMetrics.recordError("/question/ques", e);
             logger.error("Exception in process question data: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(createErrorResponse("Error occurred while processing question data"));
         }
     }
 
     @CrossOrigin
-    @PostMapping("/category")
+    @PostMapping("/bulk")
+    public ResponseEntity<JsonNode> bulkUpsertQuestions(@RequestBody JsonNode jsonNode) {
+        logger.debug("Received bulk question upsert with {} elements", jsonNode.size());
+
+        try {
+            JsonNode result = questionService.bulkUpsertQuestions(jsonNode);
+            logger.debug("Bulk question upsert finished: {}", result);
+            return ResponseEntity.ok(result);
+        } catch (DataAccessException dae) {
+            quizMetrics.recordError("/question/bulk", dae);
+            logger.error("DataAccessException in bulk question upsert: {}", dae.getMessage(), dae);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while processing question data"));
+        } catch (Exception e) {
+            quizMetrics.recordError("/question/bulk", e);
+            logger.error("Exception in bulk question upsert: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while processing question data"));
+        }
+    }
+
+    // Streams an NDJSON or CSV bank from the request body; see QuestionImporter. Pass importId to poll progress
+    // from GET /question/import/{importId}, and resumeAfter=lastCommittedRow to continue a failed import.
+    @CrossOrigin
+    @PostMapping("/import")
+    public ResponseEntity<JsonNode> importQuestions(InputStream body,
+                                                    @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                                    @RequestParam(value = "format", required = false) String format,
+                                                    @RequestParam(value = "resumeAfter", required = false) Long resumeAfter,
+                                                    @RequestParam(value = "importId", required = false) String importId) {
+        logger.debug("Received question import {} ({}) resuming after row {}", importId, contentType, resumeAfter);
+
+        try {
+            JsonNode result = questionService.importQuestions(body, format, contentType, resumeAfter, importId);
+            return ResponseEntity.ok(result);
+        } catch (DataAccessException dae) {
+            quizMetrics.recordError("/question/import", dae);
+            logger.error("DataAccessException in question import: {}", dae.getMessage(), dae);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while importing questions"));
+        } catch (Exception e) {
+            quizMetrics.recordError("/question/import", e);
+            logger.error("Exception in question import: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while importing questions"));
+        }
+    }
+
+    @CrossOrigin
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<JsonNode> getImport(@PathVariable("importId") String importId) {
+        return ResponseEntity.ok(questionService.getImport(importId));
+    }
+
+    @CrossOrigin
+    @PostMapping(value = "/category", produces = {MediaType.APPLICATION_JSON_VALUE,
+            BinaryFormatsConfig.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
     public ResponseEntity<JsonNode> getQuestionsByCategory(@RequestBody JsonNode jsonObject) {
-        logger.debug("Received request to fetch questions by category: {}", jsonObject.toString());
+        logger.debug("Received request to fetch questions by category: {}", jsonObject);
 
         try {
             // Call the service method and get the result
@@ -51,12 +120,20 @@ public class QuestionController {
             logger.debug("Questions fetched successfully for the given category: {}", result);
             return ResponseEntity.ok(result);
         } catch (DataAccessException dae) {
+            quizMetrics.recordError("/question/category", dae);
             logger.error("DataAccessException in fetching questions by category: {}", dae.getMessage(), dae);
             return ResponseEntity.status(500).body(createErrorResponse("Error occurred while fetching questions by category"));
         } catch (IllegalArgumentException iae) {
+            quizMetrics.recordError("/question/category", iae);
             logger.error("Invalid request: {}", iae.getMessage(), iae);
             return ResponseEntity.badRequest().body(createErrorResponse(iae.getMessage()));
+        } catch (TimeoutException te) {
+            quizMetrics.recordError("/question/category", te);
+            logger.warn("Timed out waiting for questions by category: {}", te.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(createErrorResponse("Timed out fetching questions by category"));
         } catch (Exception e) {
+            quizMetrics.recordError("/question/category", e);
             logger.error("Exception in fetching questions by category: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(createErrorResponse("Error occurred while fetching questions by category"));
         }
@@ -64,28 +141,110 @@ public class QuestionController {
 
     @CrossOrigin
     @GetMapping("/allQuestions")
-    public ResponseEntity<JsonNode> getAllQuestion() {
+    public ResponseEntity<StreamingResponseBody> getAllQuestion() {
         logger.debug("Received request to fetch all questions.");
 
+        // Rows are written to the response as they are read, so nothing is buffered server side
+        StreamingResponseBody body = outputStream -> {
+            try {
+                questionService.writeAllQuestions(outputStream);
+            } catch (Exception e) {
+                quizMetrics.recordError("/question/allQuestions", e);
+                // Headers are already on the wire at this point, all we can do is log and cut the stream
+                logger.error("Exception in streaming all questions: {}", e.getMessage(), e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @CrossOrigin
+    @GetMapping(value = "/allQuestions", params = "limit")
+    public ResponseEntity<JsonNode> getQuestionPage(@RequestParam(value = "after", defaultValue = "0") Integer after,
+                                                    @RequestParam("limit") Integer limit) {
+        logger.debug("Received request to fetch questions after {} with limit {}", after, limit);
+
         try {
-            // Call the service method and get the result
-            JsonNode result = questionService.getAllQuestion();
-            logger.debug("Fetched all questions successfully.");
+            JsonNode result = questionService.getQuestionPage(after, limit);
             return ResponseEntity.ok(result);
         } catch (DataAccessException dae) {
-            logger.error("DataAccessException in fetching all questions: {}", dae.getMessage(), dae);
+            quizMetrics.recordError("/question/allQuestions", dae);
+            logger.error("DataAccessException in fetching question page: {}", dae.getMessage(), dae);
             return ResponseEntity.status(500).body(createErrorResponse("Error occurred while fetching all questions."));
         } catch (Exception e) {
-            logger.error("Exception in fetching all questions: {}", e.getMessage(), e);
+            quizMetrics.recordError("/question/allQuestions", e);
+            logger.error("Exception in fetching question page: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(createErrorResponse("Error occurred while fetching all questions."));
         }
     }
 
 
+    // Delta sync: pass back the epoch and version from the previous response to get only what changed
+    @CrossOrigin
+    @GetMapping("/changes")
+    public ResponseEntity<JsonNode> getQuestionChanges(@RequestParam(value = "epoch", required = false) Long epoch,
+                                                       @RequestParam(value = "since", required = false) Long since) {
+        logger.debug("Received request for question changes since version {} of epoch {}", since, epoch);
+        try {
+            return ResponseEntity.ok(questionService.getQuestionChanges(epoch, since));
+        } catch (Exception e) {
+            quizMetrics.recordError("/question/changes", e);
+            logger.error("Exception in fetching question changes: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while fetching question changes"));
+        }
+    }
+
+    @CrossOrigin
+    @GetMapping("/search")
+    public ResponseEntity<JsonNode> searchQuestions(@RequestParam(value = "q", required = false) String query,
+                                                    @RequestParam(value = "category", required = false) String category,
+                                                    @RequestParam(value = "difficulty", required = false) String difficulty,
+                                                    @RequestParam(value = "limit", required = false) Integer limit) {
+        logger.debug("Received search request '{}' in category {} at difficulty {}", query, category, difficulty);
+        try {
+            JsonNode result = questionService.searchQuestions(query, category, difficulty, limit);
+            if ("error".equals(result.path("status").asText())) {
+                return ResponseEntity.badRequest().body(result);
+            }
+            if ("unavailable".equals(result.path("status").asText())) {
+                // The index is still being built at startup; it will be there shortly
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(result);
+            }
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            quizMetrics.recordError("/question/search", e);
+            logger.error("Exception in searching questions: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while searching questions"));
+        }
+    }
+
+    // Correctness rate and option-pick counts, e.g. /question/answerStats?questionIds=3,7,12
+    @CrossOrigin
+    @GetMapping("/answerStats")
+    public ResponseEntity<JsonNode> getAnswerStats(@RequestParam("questionIds") List<Integer> questionIds) {
+        try {
+            JsonNode result = questionService.getAnswerStats(questionIds);
+            if ("error".equals(result.path("status").asText())) {
+                return ResponseEntity.badRequest().body(result);
+            }
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            quizMetrics.recordError("/question/answerStats", e);
+            logger.error("Exception in fetching answer stats: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while fetching answer stats"));
+        }
+    }
+
+    @CrossOrigin
+    @GetMapping("/cacheStats")
+    public ResponseEntity<JsonNode> getCacheStats() {
+        return ResponseEntity.ok(questionService.getCacheStats());
+    }
+
     @CrossOrigin
     @PostMapping("/delete")
     public ResponseEntity<JsonNode> deleteQuestion(@RequestBody JsonNode request) {
-        logger.debug("Received request to delete question: {}", request.toString());
+        logger.debug("Received request to delete question: {}", request);
 
         try {
             // Extract questionId from the request body
@@ -101,9 +260,11 @@ public class QuestionController {
             logger.debug("Delete operation completed: {}", result);
             return ResponseEntity.ok(result);
         } catch (DataAccessException dae) {
+            quizMetrics.recordError("/question/delete", dae);
             logger.error("DataAccessException in deleting question: {}", dae.getMessage(), dae);
             return ResponseEntity.status(500).body(createErrorResponse("Error occurred while deleting the question."));
         } catch (Exception e) {
+            quizMetrics.recordError("/question/delete", e);
             logger.error("Exception in deleting question: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(createErrorResponse("Error occurred while deleting the question."));
         }
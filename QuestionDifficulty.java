@@ -0,0 +1,34 @@
+package com.quize.quizproject.model;
+
+import jakarta.persistence.*;
+
+// One row per distinct difficulty level, referenced from question.difficulty_id
+@Entity
+@Table(name = "question_difficulty", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_question_difficulty_name", columnNames = "name")
+})
+public class QuestionDifficulty {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "difficulty_id")
+    private Short difficultyId;
+
+    @Column(name = "name", length = 45, nullable = false)
+    private String name;
+
+    public Short getDifficultyId() {
+        return difficultyId;
+    }
+
+    public void setDifficultyId(Short difficultyId) {
+        this.difficultyId = difficultyId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,72 @@
+package com.quize.quizproject.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+// Command-line import of a question bank file, e.g.
+//   java -jar quizproject.jar --spring.main.web-application-type=none --quiz.import.file=bank.csv.gz
+// Add --quiz.import.resume-after=<lastCommittedRow> to continue a run that stopped. The process exits with
+// 0 once the whole file was read and 1 when the import stopped early.
+@Component
+public class QuestionImportRunner implements ApplicationRunner {
+
+    @Autowired
+    private QuestionImporter questionImporter;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${quiz.import.file:}")
+    private String file;
+
+    // ndjson or csv; taken from the file name when not set
+    @Value("${quiz.import.format:}")
+    private String format;
+
+    @Value("${quiz.import.resume-after:0}")
+    private long resumeAfter;
+
+    @Value("${quiz.import.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    private static final Logger logger = LogManager.getLogger(QuestionImportRunner.class);
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        Path path = Path.of(file);
+        String name = path.getFileName().toString();
+        InputStream in = Files.newInputStream(path);
+        if (name.endsWith(".gz")) {
+            in = new GZIPInputStream(in, 64 * 1024);
+            name = name.substring(0, name.length() - 3);
+        }
+
+        logger.info("Importing questions from {}", path);
+        ImportReport report = questionImporter.importQuestions(in, QuestionImporter.Format.detect(format, name),
+                resumeAfter, null);
+        logger.info("Import report:\n{}", objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context, () -> report.isFailed() ? 1 : 0));
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.quize.quizproject.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+// Streams question banks from NDJSON or CSV into the question table. Rows are parsed and validated one at a
+// time and written through QuestionBulkWriter in chunks, each chunk in its own transaction, so memory and
+// lock hold times stay bounded by the chunk size however large the file is. Row numbers are line numbers
+// for NDJSON and record numbers (header excluded) for CSV.
+@Component
+public class QuestionImporter {
+
+    // Mirrors the column lengths on Question, so a bad row is rejected instead of failing its whole chunk
+    private static final int CATEGORY_LENGTH = 45;
+    private static final int TITLE_LENGTH = 150;
+    private static final int OPTION_LENGTH = 100;
+    private static final int DIFFICULTY_LENGTH = 45;
+
+    @Autowired
+    private QuestionBulkWriter questionBulkWriter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${quiz.import.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${quiz.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    // Finished imports kept for GET /question/import/{importId}
+    @Value("${quiz.import.history-size:50}")
+    private int historySize;
+
+    private static final Logger logger = LogManager.getLogger(QuestionImporter.class);
+
+    private final ObjectReader csvReader = new CsvMapper()
+            .enable(CsvParser.Feature.IGNORE_TRAILING_UNMAPPABLE)
+            .readerFor(JsonNode.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    private final Map<String, ImportReport> history = new LinkedHashMap<>();
+
+    public enum Format {
+        NDJSON, CSV;
+
+        // An explicit format wins; otherwise a content type or file name mentioning csv means CSV
+        public static Format detect(String format, String hint) {
+            if (format != null && !format.isBlank()) {
+                try {
+                    return valueOf(format.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("format must be ndjson or csv.");
+                }
+            }
+            return hint != null && hint.toLowerCase(Locale.ROOT).contains("csv") ? CSV : NDJSON;
+        }
+    }
+
+    // Runs the import on the calling thread and returns its final report. Rows up to resumeAfter are read
+    // but not written. The stream is closed when the import ends.
+    public ImportReport importQuestions(InputStream in, Format format, long resumeAfter, String importId) {
+        ImportReport report = register(importId, format, resumeAfter);
+        long lastRow = resumeAfter;
+        try (RowSource rows = format == Format.CSV ? new CsvRows(in) : new NdjsonRows(in)) {
+            List<Question> chunk = new ArrayList<>(chunkSize);
+            Row row;
+            while ((row = rows.next()) != null) {
+                if (row.number <= resumeAfter) {
+                    report.rowSkipped();
+                    continue;
+                }
+                report.rowRead();
+                if (row.error != null) {
+                    report.reject(row.number, row.error);
+                } else {
+                    try {
+                        chunk.add(toQuestion(row.fields));
+                    } catch (IllegalArgumentException e) {
+                        report.reject(row.number, e.getMessage());
+                    }
+                }
+                lastRow = row.number;
+                if (chunk.size() >= chunkSize) {
+                    commit(chunk, lastRow, report);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                commit(chunk, lastRow, report);
+            }
+            report.complete(lastRow);
+            logger.info("Import {} finished: {} inserted, {} updated, {} rejected in {} ms", report.getImportId(),
+                    report.getInserted(), report.getUpdated(), report.getRejected(), report.getElapsedMillis());
+        } catch (Exception e) {
+            logger.error("Import {} stopped after row {}: {}", report.getImportId(), report.getLastCommittedRow(),
+                    e.getMessage(), e);
+            report.fail(e.getMessage());
+        }
+        return report;
+    }
+
+    public synchronized ImportReport getReport(String importId) {
+        return history.get(importId);
+    }
+
+    private synchronized ImportReport register(String importId, Format format, long resumeAfter) {
+        String id = importId != null && !importId.isBlank() ? importId : UUID.randomUUID().toString();
+        ImportReport previous = history.get(id);
+        if (previous != null && previous.isRunning()) {
+            throw new IllegalArgumentException("Import " + id + " is already running.");
+        }
+        ImportReport report = new ImportReport(id, format.name().toLowerCase(Locale.ROOT), resumeAfter, maxReportedErrors);
+        history.remove(id);
+        history.put(id, report);
+        Iterator<ImportReport> oldest = history.values().iterator();
+        while (history.size() > historySize && oldest.hasNext()) {
+            if (!oldest.next().isRunning()) {
+                oldest.remove();
+            }
+        }
+        return report;
+    }
+
+    // One transaction per chunk; listeners see each chunk once it has committed
+    private void commit(List<Question> chunk, long throughRow, ImportReport report) {
+        BulkWriteResult result = new BulkWriteResult();
+        transactionTemplate.executeWithoutResult(status -> {
+            questionBulkWriter.write(chunk, result);
+            eventPublisher.publishEvent(QuestionChangeEvent.upserted(result.getWritten()));
+        });
+        report.chunkCommitted(throughRow, result.getInserted(), result.getUpdated());
+        chunk.clear();
+        logger.debug("Import {}: chunk {} committed through row {}", report.getImportId(), report.getChunksCommitted(),
+                throughRow);
+    }
+
+    private Question toQuestion(JsonNode fields) {
+        if (!fields.isObject()) {
+            throw new IllegalArgumentException("Row must be an object of question fields.");
+        }
+        Question question = new Question();
+        String questionId = text(fields, "questionId");
+        if (questionId != null) {
+            try {
+                question.setQuestionId(Integer.valueOf(questionId.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("questionId must be a number.");
+            }
+        }
+        question.setCategory(required(fields, "category", CATEGORY_LENGTH));
+        question.setQuestionTitle(required(fields, "questionTitle", TITLE_LENGTH));
+        question.setOption1(required(fields, "option1", OPTION_LENGTH));
+        question.setOption2(required(fields, "option2", OPTION_LENGTH));
+        question.setOption3(required(fields, "option3", OPTION_LENGTH));
+        question.setOption4(required(fields, "option4", OPTION_LENGTH));
+        question.setRightAns(required(fields, "rightAns", OPTION_LENGTH));
+        question.setDifficultyLevel(checkLength("difficultyLevel", text(fields, "difficultyLevel"), DIFFICULTY_LENGTH));
+
+        // Grading compares the submitted option text with rightAns, so anything else could never be answered
+        String rightAns = question.getRightAns();
+        if (!rightAns.equals(question.getOption1()) && !rightAns.equals(question.getOption2())
+                && !rightAns.equals(question.getOption3()) && !rightAns.equals(question.getOption4())) {
+            throw new IllegalArgumentException("rightAns must be one of the four options.");
+        }
+        return question;
+    }
+
+    private static String required(JsonNode fields, String name, int maxLength) {
+        String value = text(fields, name);
+        if (value == null) {
+            throw new IllegalArgumentException(name + " is required.");
+        }
+        return checkLength(name, value, maxLength);
+    }
+
+    private static String checkLength(String name, String value, int maxLength) {
+        if (value != null && value.length() > maxLength) {
+            throw new IllegalArgumentException(name + " is longer than " + maxLength + " characters.");
+        }
+        return value;
+    }
+
+    // Missing, null and blank all count as absent; CSV has no other way to say so
+    private static String text(JsonNode fields, String name) {
+        JsonNode value = fields.get(name);
+        if (value == null || value.isNull() || value.asText().isBlank()) {
+            return null;
+        }
+        return value.asText();
+    }
+
+    private record Row(long number, JsonNode fields, String error) {
+    }
+
+    private interface RowSource extends Closeable {
+        // Null at the end of the input
+        Row next() throws IOException;
+    }
+
+    // One JSON object per line. A malformed line is a row error; the next line parses independently.
+    private final class NdjsonRows implements RowSource {
+        private final BufferedReader reader;
+        private long lineNumber;
+
+        NdjsonRows(InputStream in) {
+            reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new Row(lineNumber, objectMapper.readTree(line), null);
+                } catch (JsonProcessingException e) {
+                    return new Row(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    // A header row naming the question fields, then one question per record. Quoted fields may span
+    // lines, so a broken quote cannot be skipped past and stops the import at that record.
+    private final class CsvRows implements RowSource {
+        private final Reader reader;
+        private final MappingIterator<JsonNode> records;
+        private long recordNumber;
+
+        CsvRows(InputStream in) throws IOException {
+            reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+            records = csvReader.readValues(reader);
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (!records.hasNextValue()) {
+                return null;
+            }
+            recordNumber++;
+            try {
+                return new Row(recordNumber, records.nextValue(), null);
+            } catch (JsonProcessingException e) {
+                throw new IOException("Unreadable CSV at record " + recordNumber + ": " + e.getOriginalMessage(), e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            records.close();
+            reader.close();
+        }
+    }
+}
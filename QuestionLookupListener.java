@@ -0,0 +1,27 @@
+package com.quize.quizproject.repository;
+
+import com.quize.quizproject.model.Question;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Gives a Question saved through JPA lookup rows for its category and difficulty before the converters
+// translate them, and swaps in the shared name instances
+public class QuestionLookupListener {
+
+    @Autowired
+    private QuestionLookups questionLookups;
+
+    @PrePersist
+    @PreUpdate
+    public void registerLookups(Question question) {
+        if (question.getCategory() != null) {
+            questionLookups.categories().idOf(question.getCategory());
+            question.setCategory(questionLookups.categories().canonical(question.getCategory()));
+        }
+        if (question.getDifficultyLevel() != null) {
+            questionLookups.difficulties().idOf(question.getDifficultyLevel());
+            question.setDifficultyLevel(questionLookups.difficulties().canonical(question.getDifficultyLevel()));
+        }
+    }
+}
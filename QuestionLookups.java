@@ -0,0 +1,46 @@
+package com.quize.quizproject.repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// The category and difficulty dictionaries behind Question's converters and QuestionBulkWriter
+@Component
+public class QuestionLookups {
+
+    private static final Logger logger = LogManager.getLogger(QuestionLookups.class);
+
+    private final LookupDictionary categories;
+    private final LookupDictionary difficulties;
+
+    // How long a queried name without a row is answered from memory before the table is asked again
+    public QuestionLookups(DataSource dataSource, @Value("${quiz.lookup.miss-ttl-ms:30000}") long missTtlMillis) {
+        this.categories = new LookupDictionary(dataSource, "question_category", "category_id", missTtlMillis);
+        this.difficulties = new LookupDictionary(dataSource, "question_difficulty", "difficulty_id", missTtlMillis);
+    }
+
+    // Ahead of the other startup loads, which convert every question's keys back to names. Each load runs
+    // outside any transaction, so from here on converters only reach the table for names added since.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void preload() {
+        categories.reload();
+        difficulties.reload();
+        logger.info("Loaded {} categories and {} difficulty levels", categories.size(), difficulties.size());
+    }
+
+    public LookupDictionary categories() {
+        return categories;
+    }
+
+    public LookupDictionary difficulties() {
+        return difficulties;
+    }
+}
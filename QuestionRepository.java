@@ -1,8 +1,13 @@
 package com.quize.quizproject.repository;
 
+import com.quize.quizproject.config.HibernateConfig;
 import com.quize.quizproject.model.Question;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -10,14 +15,44 @@ import java.util.List;
 
 @Repository
 public interface QuestionRepository extends JpaRepository<Question,Integer> {
+    // Cached: the region holds the matching ids, the rows come from the Question entity region
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateConfig.QUESTION_BY_CATEGORY_REGION)
+    })
     List<Question> findByCategory(String category);
 
+    // Keyset page: the next `limit` questions after the given id, in id order. Reads the entity cache but
+    // does not fill it, so a full export does not push the hot questions out.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "GET"))
+    List<Question> findByQuestionIdGreaterThanOrderByQuestionIdAsc(Integer questionId, Limit limit);
+
 //    @Query(value = "SELECT * FROM question q where q.category=:category ORDER BY RANDOM() LIMIT:numQ",nativeQuery = true)
 //    List<Question> findRandomQuestionByCategory(String category, Integer numQ);
 
-    @Query(value = "SELECT * FROM question q WHERE q.category = :category ORDER BY RAND() LIMIT :numQ", nativeQuery = true)
+    // Category and difficulty are keys into their lookup tables, so native queries filter on the names there
+    @Query(value = "SELECT q.* FROM question q JOIN question_category c ON c.category_id = q.category_id "
+            + "WHERE c.name = :category ORDER BY RAND() LIMIT :numQ", nativeQuery = true)
     List<Question> findRandomQuestionByCategory(@Param("category") String category, @Param("numQ") Integer numQ);
 
+    // Served by idx_question_category_difficulty_id; the baseline the in-memory mixed sampler replaces
+    @Query(value = "SELECT q.* FROM question q JOIN question_category c ON c.category_id = q.category_id "
+            + "JOIN question_difficulty d ON d.difficulty_id = q.difficulty_id "
+            + "WHERE c.name = :category AND d.name = :difficulty ORDER BY RAND() LIMIT :numQ", nativeQuery = true)
+    List<Question> findRandomQuestionByCategoryAndDifficulty(@Param("category") String category,
+                                                             @Param("difficulty") String difficulty,
+                                                             @Param("numQ") Integer numQ);
+
     @Query("SELECT q.questionId, q.rightAns FROM Question q WHERE q.id IN :questionIds")
     List<Object[]> findCorrectAnswersByQuestionIds(@Param("questionIds") List<Integer> questionIds);
+
+    @Query("SELECT q.questionId FROM Question q WHERE q.questionId IN :questionIds")
+    List<Integer> findExistingIds(@Param("questionIds") List<Integer> questionIds);
+
+    @Query("SELECT q.questionId, q.rightAns FROM Question q")
+    List<Object[]> findAllAnswerKeys();
+
+    // (questionId, category, difficultyLevel) for every question, for QuestionSampler's buckets
+    @Query("SELECT q.questionId, q.category, q.difficultyLevel FROM Question q")
+    List<Object[]> findAllCategoryKeys();
 }
@@ -0,0 +1,404 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.QuestionRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Draws random questions for a category without ORDER BY RAND(). Keeps every (category, difficulty) pair's
+// question ids in a flat int array, picks numQ distinct positions in O(numQ) and then fetches only those rows.
+// A category is the concatenation of its difficulty buckets, so plain category sampling needs no second copy.
+// Categories and difficulties are keyed lower-cased, so "Java" samples the same questions it matched under the
+// case-insensitive column collation.
+@Component
+public class QuestionSampler {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    private static final Logger logger = LogManager.getLogger(QuestionSampler.class);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // category (lower-cased) -> difficulty (lower-cased, null when unset) -> ids
+    private final Map<String, Map<String, IdBucket>> buckets = new HashMap<>();
+    private final Map<Integer, BucketKey> keyById = new HashMap<>();
+    private volatile boolean loaded;
+
+    // Change events that arrive while refresh() reads and builds the buckets, replayed onto them before the
+    // swap. Guarded by the write lock; null when no refresh is running.
+    private List<QuestionChangeEvent> changesDuringRefresh;
+
+    private volatile Random random = new Random();
+
+    // Fixes the random sequence, so tests and benchmarks get reproducible quizzes
+    public void reseed(long seed) {
+        random = new Random(seed);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRefresh = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Object[]> rows;
+        try {
+            rows = questionRepository.findAllCategoryKeys();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRefresh = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        load(rows);
+    }
+
+    // rows are (questionId, category, difficultyLevel); rows without the third column load with no difficulty
+    public void load(List<Object[]> rows) {
+        Map<String, Map<String, IdBucket>> freshBuckets = new HashMap<>();
+        Map<Integer, BucketKey> freshKeys = new HashMap<>(rows.size() * 2);
+        Map<BucketKey, BucketKey> canonical = new HashMap<>();
+        for (Object[] row : rows) {
+            Integer questionId = (Integer) row[0];
+            BucketKey key = canonical.computeIfAbsent(BucketKey.of((String) row[1], row.length > 2 ? (String) row[2] : null),
+                    k -> k);
+            bucket(freshBuckets, key).add(questionId);
+            freshKeys.put(questionId, key);
+        }
+
+        lock.writeLock().lock();
+        try {
+            // A write committed after refresh()'s query started may be missing from its rows
+            if (changesDuringRefresh != null) {
+                for (QuestionChangeEvent event : changesDuringRefresh) {
+                    apply(freshBuckets, freshKeys, event);
+                }
+                changesDuringRefresh = null;
+            }
+            buckets.clear();
+            buckets.putAll(freshBuckets);
+            keyById.clear();
+            keyById.putAll(freshKeys);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded = true;
+        logger.info("Question sampler loaded {} questions across {} categories", freshKeys.size(), freshBuckets.size());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Picks up to numQ distinct question ids from the category, in random order
+    public List<Integer> sampleIds(String category, int numQ) {
+        Random rnd = random;
+        lock.readLock().lock();
+        try {
+            Map<String, IdBucket> levels = buckets.get(categoryKey(category));
+            if (levels == null || numQ <= 0) {
+                return Collections.emptyList();
+            }
+            IdBucket[] parts = levels.values().toArray(new IdBucket[0]);
+            int size = 0;
+            for (IdBucket part : parts) {
+                size += part.size;
+            }
+            List<Integer> ids = new ArrayList<>(Math.min(numQ, size));
+            sample(parts, size, numQ, rnd, ids);
+            // Floyd's picks are uniform as a set but not in order, so shuffle the k picks
+            Collections.shuffle(ids, rnd);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // One pass over the (category, difficulty) buckets for a whole mix: up to counts[difficulty] ids from
+    // each, shuffled together. Difficulties match case-insensitively; a level with too few questions gives
+    // all it has.
+    public List<Integer> sampleMixedIds(String category, Map<String, Integer> counts) {
+        Random rnd = random;
+        lock.readLock().lock();
+        try {
+            Map<String, IdBucket> levels = buckets.get(categoryKey(category));
+            if (levels == null) {
+                return Collections.emptyList();
+            }
+            List<Integer> ids = new ArrayList<>();
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                IdBucket bucket = levels.get(BucketKey.level(count.getKey()));
+                if (bucket != null && count.getValue() > 0) {
+                    sample(new IdBucket[]{bucket}, bucket.size, count.getValue(), rnd, ids);
+                }
+            }
+            Collections.shuffle(ids, rnd);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Floyd's algorithm: k distinct positions out of size, with exactly k random draws. Positions run across
+    // the parts back to back.
+    private static void sample(IdBucket[] parts, int size, int numQ, Random rnd, List<Integer> ids) {
+        int k = Math.min(numQ, size);
+        Set<Integer> chosen = new HashSet<>(k * 2);
+        for (int j = size - k; j < size; j++) {
+            int t = rnd.nextInt(j + 1);
+            int position = chosen.contains(t) ? j : t;
+            chosen.add(position);
+            ids.add(idAt(parts, position));
+        }
+    }
+
+    private static int idAt(IdBucket[] parts, int position) {
+        for (IdBucket part : parts) {
+            if (position < part.size) {
+                return part.ids[position];
+            }
+            position -= part.size;
+        }
+        throw new IndexOutOfBoundsException(position);
+    }
+
+    // Random questions for a quiz. Falls back to the ORDER BY RAND() query until the id arrays are loaded.
+    public List<Question> sampleQuestions(String category, int numQ) {
+        return sampleQuestions(category, numQ, Collections.emptySet());
+    }
+
+    // As above, skipping the excluded ids. Drawing numQ + excluded extra ids guarantees numQ survivors
+    // whenever the category has that many to give, without a retry loop.
+    public List<Question> sampleQuestions(String category, int numQ, Set<Integer> excludedIds) {
+        int draw = numQ + excludedIds.size();
+        if (!loaded) {
+            List<Question> questions = new ArrayList<>(questionRepository.findRandomQuestionByCategory(category, draw));
+            questions.removeIf(question -> excludedIds.contains(question.getQuestionId()));
+            return questions.size() > numQ ? new ArrayList<>(questions.subList(0, numQ)) : questions;
+        }
+
+        List<Integer> ids = new ArrayList<>(sampleIds(category, draw));
+        ids.removeIf(excludedIds::contains);
+        return fetchInOrder(ids.size() > numQ ? ids.subList(0, numQ) : ids);
+    }
+
+    // Random questions in the given per-difficulty counts: one sampling pass and one row fetch. Until the id
+    // arrays are loaded it falls back to one ORDER BY RAND() query per difficulty.
+    public List<Question> sampleMixedQuestions(String category, Map<String, Integer> counts) {
+        if (!loaded) {
+            List<Question> questions = new ArrayList<>();
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                if (count.getValue() > 0) {
+                    questions.addAll(questionRepository.findRandomQuestionByCategoryAndDifficulty(category,
+                            count.getKey(), count.getValue()));
+                }
+            }
+            Collections.shuffle(questions, random);
+            return questions;
+        }
+        return fetchInOrder(sampleMixedIds(category, counts));
+    }
+
+    // Splits numQ over the weighted difficulties by largest remainder, so the counts always add up to numQ
+    // and no level is off by more than one from its exact share. Ties go to the earlier difficulty.
+    public static Map<String, Integer> allocate(int numQ, Map<String, Double> weights) {
+        double total = 0;
+        for (double weight : weights.values()) {
+            total += weight;
+        }
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        List<Map.Entry<String, Double>> remainders = new ArrayList<>();
+        int assigned = 0;
+        for (Map.Entry<String, Double> weight : weights.entrySet()) {
+            double exact = numQ * weight.getValue() / total;
+            int count = (int) Math.floor(exact);
+            counts.put(weight.getKey(), count);
+            remainders.add(Map.entry(weight.getKey(), exact - count));
+            assigned += count;
+        }
+        remainders.sort(Map.Entry.<String, Double>comparingByValue().reversed()); // stable, so ties keep input order
+        for (int i = 0; i < numQ - assigned; i++) {
+            counts.merge(remainders.get(i).getKey(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    // findAllById does not keep the order of its argument, so put the rows back in sampled order
+    public List<Question> fetchInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Question> byId = new HashMap<>(ids.size() * 2);
+        for (Question question : questionRepository.findAllById(ids)) {
+            byId.put(question.getQuestionId(), question);
+        }
+        List<Question> ordered = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Question question = byId.get(id);
+            if (question != null) {
+                ordered.add(question);
+            }
+        }
+        return ordered;
+    }
+
+    // The category key the question is sampled under, or null when it is not loaded
+    public String categoryOf(int questionId) {
+        lock.readLock().lock();
+        try {
+            BucketKey key = keyById.get(questionId);
+            return key != null ? key.category() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int categorySize(String category) {
+        lock.readLock().lock();
+        try {
+            Map<String, IdBucket> levels = buckets.get(categoryKey(category));
+            if (levels == null) {
+                return 0;
+            }
+            int size = 0;
+            for (IdBucket bucket : levels.values()) {
+                size += bucket.size;
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Between QuizPool's two listeners, which drain the pools a write touched before and after it lands here
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onQuestionChange(QuestionChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(buckets, keyById, event);
+            if (changesDuringRefresh != null) {
+                changesDuringRefresh.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Map<String, Map<String, IdBucket>> buckets, Map<Integer, BucketKey> keyById,
+                              QuestionChangeEvent event) {
+        for (Question question : event.getUpserted()) {
+            Integer questionId = question.getQuestionId();
+            if (questionId == null) {
+                continue;
+            }
+            BucketKey key = BucketKey.of(question.getCategory(), question.getDifficultyLevel());
+            BucketKey previous = keyById.get(questionId);
+            if (key.equals(previous)) {
+                continue;
+            }
+            if (previous != null) {
+                removeFromBucket(buckets, previous, questionId);
+            }
+            bucket(buckets, key).add(questionId);
+            keyById.put(questionId, key);
+        }
+        for (Integer questionId : event.getDeletedIds()) {
+            BucketKey previous = keyById.remove(questionId);
+            if (previous != null) {
+                removeFromBucket(buckets, previous, questionId);
+            }
+        }
+    }
+
+    private static IdBucket bucket(Map<String, Map<String, IdBucket>> buckets, BucketKey key) {
+        return buckets.computeIfAbsent(key.category(), c -> new HashMap<>())
+                .computeIfAbsent(key.level(), l -> new IdBucket());
+    }
+
+    private static void removeFromBucket(Map<String, Map<String, IdBucket>> buckets, BucketKey key, int questionId) {
+        Map<String, IdBucket> levels = buckets.get(key.category());
+        IdBucket bucket = levels == null ? null : levels.get(key.level());
+        if (bucket != null) {
+            bucket.remove(questionId);
+            if (bucket.size == 0) {
+                levels.remove(key.level());
+                if (levels.isEmpty()) {
+                    buckets.remove(key.category());
+                }
+            }
+        }
+    }
+
+    // The key the category's questions are kept under; two names that differ only in case share it. Folded in
+    // Locale.ROOT, so the key does not depend on the server's locale (a Turkish one lower-cases "I" to a dotless i).
+    public static String categoryKey(String category) {
+        return category == null ? null : category.toLowerCase(Locale.ROOT);
+    }
+
+    private record BucketKey(String category, String level) {
+        static BucketKey of(String category, String difficultyLevel) {
+            return new BucketKey(categoryKey(category), level(difficultyLevel));
+        }
+
+        static String level(String difficultyLevel) {
+            return difficultyLevel == null ? null : difficultyLevel.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // Growable int array; order does not matter, so removal swaps the last id into the hole. Each id's
+    // position is kept alongside, so a removal under the write lock costs O(1) whatever the bucket's size.
+    private static final class IdBucket {
+        private int[] ids = new int[16];
+        private int size;
+        private final Map<Integer, Integer> positions = new HashMap<>();
+
+        void add(int id) {
+            if (positions.putIfAbsent(id, size) != null) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size << 1);
+            }
+            ids[size++] = id;
+        }
+
+        void remove(int id) {
+            Integer position = positions.remove(id);
+            if (position == null) {
+                return;
+            }
+            int last = ids[--size];
+            if (last != id) {
+                ids[position] = last;
+                positions.put(last, position);
+            }
+        }
+    }
+}
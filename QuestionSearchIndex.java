@@ -0,0 +1,641 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.QuestionRepository;
+import com.quize.quizproject.view.AdminQuestionView;
+import com.quize.quizproject.view.SearchHit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted index over question titles and options for /question/search, so search never falls back to
+// LIKE '%...%' scans. Every query token must match (exactly, or as a prefix of an indexed term); matches
+// are ranked by idf, with title hits weighted above option hits and exact terms above prefix expansions.
+// Question content for filtering and results comes from the QuestionCatalog snapshot.
+@Component
+public class QuestionSearchIndex {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private QuestionCatalog questionCatalog;
+
+    @Value("${quiz.question.page-size:1000}")
+    private int pageSize;
+
+    // Bounds the work a short prefix such as "th" can cause
+    @Value("${quiz.search.max-prefix-terms:64}")
+    private int maxPrefixTerms;
+
+    private static final Logger logger = LogManager.getLogger(QuestionSearchIndex.class);
+
+    private static final int IN_TITLE = 1;
+    private static final int IN_OPTION = 2;
+    private static final float TITLE_WEIGHT = 2f;
+    private static final float OPTION_WEIGHT = 1f;
+    private static final float PREFIX_WEIGHT = 0.5f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    // Category and difficulty are indexed as terms behind a prefix no query token can start with, so
+    // filtering is one more posting list to intersect rather than a lookup per candidate
+    private static final String CATEGORY_TERM = "\u0001c";
+    private static final String DIFFICULTY_TERM = "\u0001d";
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private volatile boolean loaded;
+
+    // Writers are serialized with the rebuild, so a change that lands mid-rebuild is not lost
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        Index fresh = new Index();
+        Integer after = 0;
+        while (true) {
+            List<Question> page = questionRepository.findByQuestionIdGreaterThanOrderByQuestionIdAsc(after, Limit.of(pageSize));
+            for (Question question : page) {
+                fresh.add(question);
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            after = page.get(page.size() - 1).getQuestionId();
+        }
+
+        lock.writeLock().lock();
+        try {
+            index = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded = true;
+        logger.info("Search index built over {} questions, {} terms in {} ms", fresh.docTerms.size(),
+                fresh.termIds.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onQuestionChange(QuestionChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Question question : event.getUpserted()) {
+                if (question.getQuestionId() != null) {
+                    index.update(question);
+                }
+            }
+            for (Integer questionId : event.getDeletedIds()) {
+                index.remove(questionId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Term slots allocated so far, free ones included
+    int termSlots() {
+        lock.readLock().lock();
+        try {
+            return index.postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Top `limit` matches for the query, optionally restricted to a category and/or difficulty level
+    public SearchResult search(String query, String category, String difficulty, int limit) {
+        List<String> tokens = new ArrayList<>(tokenize(query).keySet());
+        if (tokens.isEmpty()) {
+            return new SearchResult(0, List.of());
+        }
+
+        Candidates candidates;
+        lock.readLock().lock();
+        try {
+            candidates = index.match(tokens, category, difficulty);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Pick the best `limit` positions first, so only the hits actually returned are looked up and built
+        Comparator<Integer> worstFirst = (a, b) -> candidates.scores[a] != candidates.scores[b]
+                ? Float.compare(candidates.scores[a], candidates.scores[b])
+                : Integer.compare(candidates.ids[b], candidates.ids[a]);
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, worstFirst);
+        for (int i = 0; i < candidates.size; i++) {
+            if (top.size() == limit && worstFirst.compare(i, top.peek()) <= 0) {
+                continue;
+            }
+            top.offer(i);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Integer> best = new ArrayList<>(top);
+        best.sort(worstFirst.reversed());
+        QuestionCatalog.Snapshot snapshot = questionCatalog.snapshot();
+        List<SearchHit> hits = new ArrayList<>(best.size());
+        for (Integer position : best) {
+            AdminQuestionView question = snapshot.get(candidates.ids[position]);
+            if (question != null) {
+                hits.add(new SearchHit(candidates.scores[position], question));
+            }
+        }
+        return new SearchResult(candidates.size, hits);
+    }
+
+    // Lower-cased runs of letters and digits, each mapped to where in the question it appeared
+    private static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> tokens = new LinkedHashMap<>();
+        addTokens(tokens, text, 0);
+        return tokens;
+    }
+
+    private static void addTokens(Map<String, Integer> tokens, String text, int field) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.merge(text.substring(start, i).toLowerCase(Locale.ROOT), field, (a, b) -> a | b);
+                start = -1;
+            }
+        }
+    }
+
+    private final class Index {
+        private final TreeMap<String, Integer> termIds = new TreeMap<>();
+        private final List<Postings> postings = new ArrayList<>();
+        private final List<String> terms = new ArrayList<>();
+        // Slots of terms no question has any more, handed out again before the lists grow
+        private final ArrayDeque<Integer> freeTermIds = new ArrayDeque<>();
+        // Per question: termId << 2 | field bits, to undo or diff its postings on update and delete
+        private final Map<Integer, int[]> docTerms = new HashMap<>();
+
+        void add(Question question) {
+            int[] entries = encodeTerms(question);
+            docTerms.put(question.getQuestionId(), entries);
+            for (int entry : entries) {
+                postings.get(entry >>> 2).add(question.getQuestionId(), entry & 3);
+            }
+        }
+
+        // Only touches the postings whose membership or field bits actually changed
+        void update(Question question) {
+            int[] previous = docTerms.get(question.getQuestionId());
+            if (previous == null) {
+                add(question);
+                return;
+            }
+            int[] current = encodeTerms(question);
+            Map<Integer, Integer> before = new HashMap<>();
+            for (int entry : previous) {
+                before.put(entry >>> 2, entry & 3);
+            }
+            for (int entry : current) {
+                Integer fields = before.remove(entry >>> 2);
+                if (fields == null) {
+                    postings.get(entry >>> 2).add(question.getQuestionId(), entry & 3);
+                } else if (fields != (entry & 3)) {
+                    postings.get(entry >>> 2).setFields(question.getQuestionId(), entry & 3);
+                }
+            }
+            for (Integer termId : before.keySet()) {
+                removePosting(termId, question.getQuestionId());
+            }
+            docTerms.put(question.getQuestionId(), current);
+        }
+
+        void remove(Integer questionId) {
+            int[] previous = docTerms.remove(questionId);
+            if (previous != null) {
+                for (int entry : previous) {
+                    removePosting(entry >>> 2, questionId);
+                }
+            }
+        }
+
+        private void removePosting(int termId, int questionId) {
+            Postings list = postings.get(termId);
+            list.remove(questionId);
+            if (list.count == 0) {
+                // No question refers to the id any more, so the slot can go to the next new term; other term
+                // ids do not move
+                termIds.remove(terms.get(termId));
+                terms.set(termId, null);
+                postings.set(termId, new Postings());
+                freeTermIds.push(termId);
+            }
+        }
+
+        private int[] encodeTerms(Question question) {
+            Map<String, Integer> tokens = new LinkedHashMap<>();
+            addTokens(tokens, question.getQuestionTitle(), IN_TITLE);
+            addTokens(tokens, question.getOption1(), IN_OPTION);
+            addTokens(tokens, question.getOption2(), IN_OPTION);
+            addTokens(tokens, question.getOption3(), IN_OPTION);
+            addTokens(tokens, question.getOption4(), IN_OPTION);
+            if (question.getCategory() != null) {
+                tokens.put(CATEGORY_TERM + question.getCategory().toLowerCase(Locale.ROOT), 0);
+            }
+            if (question.getDifficultyLevel() != null) {
+                tokens.put(DIFFICULTY_TERM + question.getDifficultyLevel().toLowerCase(Locale.ROOT), 0);
+            }
+
+            int[] entries = new int[tokens.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> token : tokens.entrySet()) {
+                entries[i++] = termId(token.getKey()) << 2 | token.getValue();
+            }
+            return entries;
+        }
+
+        private int termId(String term) {
+            Integer termId = termIds.get(term);
+            if (termId == null) {
+                termId = freeTermIds.poll();
+                if (termId != null) {
+                    terms.set(termId, term);
+                } else {
+                    termId = postings.size();
+                    terms.add(term);
+                    postings.add(new Postings());
+                }
+                termIds.put(term, termId);
+            }
+            return termId;
+        }
+
+        // Intersects the tokens (and filters) rarest first; each token contributes its best-scoring matching term
+        Candidates match(List<String> tokens, String category, String difficulty) {
+            List<Map<Integer, Float>> matched = new ArrayList<>(tokens.size() + 2);
+            for (String token : tokens) {
+                matched.add(matchingTerms(token));
+            }
+            if (category != null) {
+                matched.add(filterTerm(CATEGORY_TERM + category.toLowerCase(Locale.ROOT)));
+            }
+            if (difficulty != null) {
+                matched.add(filterTerm(DIFFICULTY_TERM + difficulty.toLowerCase(Locale.ROOT)));
+            }
+            for (Map<Integer, Float> termWeights : matched) {
+                if (termWeights.isEmpty()) {
+                    return Candidates.EMPTY;
+                }
+            }
+            matched.sort(Comparator.comparingLong(this::documentFrequency));
+
+            double documents = Math.max(1, docTerms.size());
+            Candidates candidates = null;
+            for (Map<Integer, Float> termWeights : matched) {
+                candidates = candidates == null
+                        ? Candidates.union(termWeights, postings, documents)
+                        : candidates.intersect(termWeights, postings, documents);
+                if (candidates.size == 0) {
+                    break;
+                }
+            }
+            return candidates;
+        }
+
+        private Map<Integer, Float> matchingTerms(String token) {
+            Map<Integer, Float> termWeights = new LinkedHashMap<>();
+            Integer exact = termIds.get(token);
+            if (exact != null) {
+                termWeights.put(exact, 1f);
+            }
+            if (token.length() >= MIN_PREFIX_LENGTH) {
+                for (Integer termId : termIds.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                    if (termWeights.size() >= maxPrefixTerms) {
+                        break;
+                    }
+                    termWeights.put(termId, PREFIX_WEIGHT);
+                }
+            }
+            return termWeights;
+        }
+
+        // Filters only narrow the candidates; they add nothing to the score
+        private Map<Integer, Float> filterTerm(String term) {
+            Integer termId = termIds.get(term);
+            return termId == null ? Map.of() : Map.of(termId, 0f);
+        }
+
+        private long documentFrequency(Map<Integer, Float> termWeights) {
+            long total = 0;
+            for (Integer termId : termWeights.keySet()) {
+                total += postings.get(termId).count;
+            }
+            return total;
+        }
+    }
+
+    // Matching question ids in ascending order with their accumulated scores
+    private static final class Candidates {
+        static final Candidates EMPTY = new Candidates(new int[0], new float[0], 0);
+
+        final int[] ids;
+        final float[] scores;
+        final int size;
+
+        Candidates(int[] ids, float[] scores, int size) {
+            this.ids = ids;
+            this.scores = scores;
+            this.size = size;
+        }
+
+        static float score(int fields, float termWeight, double idf) {
+            float fieldWeight = ((fields & IN_TITLE) != 0 ? TITLE_WEIGHT : 0) + ((fields & IN_OPTION) != 0 ? OPTION_WEIGHT : 0);
+            return (float) (idf * termWeight * fieldWeight);
+        }
+
+        static double idf(Postings list, double documents) {
+            return Math.log(1 + documents / list.count);
+        }
+
+        // First (rarest) token: every question in any of its terms, keeping the best term score per question
+        static Candidates union(Map<Integer, Float> termWeights, List<Postings> postings, double documents) {
+            if (termWeights.size() == 1) {
+                Map.Entry<Integer, Float> only = termWeights.entrySet().iterator().next();
+                Postings list = postings.get(only.getKey());
+                double idf = idf(list, documents);
+                int[] ids = new int[list.count];
+                float[] scores = new float[list.count];
+                int[] n = {0};
+                list.forEach((id, fields) -> {
+                    ids[n[0]] = id;
+                    scores[n[0]++] = score(fields, only.getValue(), idf);
+                });
+                return new Candidates(ids, scores, n[0]);
+            }
+
+            // Several terms: pack (id, score) into longs, sort, and keep the highest score per id. Scores are
+            // non-negative, so their float bits order the same way as the values.
+            int total = 0;
+            for (Integer termId : termWeights.keySet()) {
+                total += postings.get(termId).count;
+            }
+            long[] packed = new long[total];
+            int[] n = {0};
+            for (Map.Entry<Integer, Float> term : termWeights.entrySet()) {
+                Postings list = postings.get(term.getKey());
+                double idf = idf(list, documents);
+                list.forEach((id, fields) ->
+                        packed[n[0]++] = (long) id << 32 | Float.floatToIntBits(score(fields, term.getValue(), idf)));
+            }
+            Arrays.sort(packed, 0, n[0]);
+
+            int[] ids = new int[n[0]];
+            float[] scores = new float[n[0]];
+            int size = 0;
+            for (int i = 0; i < n[0]; i++) {
+                int id = (int) (packed[i] >>> 32);
+                if (size > 0 && ids[size - 1] == id) {
+                    size--; // later entry for the same id has the higher score
+                }
+                ids[size] = id;
+                scores[size++] = Float.intBitsToFloat((int) packed[i]);
+            }
+            return new Candidates(ids, scores, size);
+        }
+
+        // Keeps only the candidates that also match this token, adding its best term score. A long list is
+        // probed through its skip table per candidate instead of being decoded end to end.
+        Candidates intersect(Map<Integer, Float> termWeights, List<Postings> postings, double documents) {
+            float[] tokenScores = new float[size];
+            boolean[] found = new boolean[size];
+            for (Map.Entry<Integer, Float> term : termWeights.entrySet()) {
+                Postings list = postings.get(term.getKey());
+                double idf = idf(list, documents);
+                if (size < list.count / Postings.SKIP_INTERVAL) {
+                    for (int i = 0; i < size; i++) {
+                        int fields = list.find(ids[i]);
+                        if (fields >= 0) {
+                            found[i] = true;
+                            tokenScores[i] = Math.max(tokenScores[i], score(fields, term.getValue(), idf));
+                        }
+                    }
+                    continue;
+                }
+                int[] cursor = {0};
+                list.forEach((id, fields) -> {
+                    while (cursor[0] < size && ids[cursor[0]] < id) {
+                        cursor[0]++;
+                    }
+                    if (cursor[0] < size && ids[cursor[0]] == id) {
+                        found[cursor[0]] = true;
+                        tokenScores[cursor[0]] = Math.max(tokenScores[cursor[0]], score(fields, term.getValue(), idf));
+                    }
+                });
+            }
+
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (found[i]) {
+                    ids[kept] = ids[i];
+                    scores[kept++] = scores[i] + tokenScores[i];
+                }
+            }
+            return new Candidates(ids, scores, kept);
+        }
+    }
+
+    // Question ids of one term in ascending order, stored as varint gaps each followed by a byte of field
+    // bits. Typically two bytes per posting instead of a boxed Integer in a set. Every SKIP_INTERVAL postings
+    // the preceding id and byte offset are recorded, so a single id can be found without decoding the whole
+    // list. New questions get higher ids, so adds are appends; other changes re-encode the list.
+    static final class Postings {
+
+        static final int SKIP_INTERVAL = 128;
+
+        interface Consumer {
+            void accept(int questionId, int fields);
+        }
+
+        private byte[] data = new byte[8];
+        private int length;
+        private int count;
+        private int lastId;
+        private int[] skipIds = new int[0];
+        private int[] skipOffsets = new int[0];
+        private int skips;
+
+        void add(int questionId, int fields) {
+            if (count > 0 && questionId <= lastId) {
+                rewrite(questionId, fields, false);
+                return;
+            }
+            append(questionId, fields);
+        }
+
+        void remove(int questionId) {
+            rewrite(questionId, 0, true);
+        }
+
+        // Field bits of questionId, or -1 when it is not in the list
+        int find(int questionId) {
+            if (skips == 0) {
+                return -1;
+            }
+            // Last block whose preceding id is below questionId; the id itself can only be in that block
+            int low = 0;
+            int high = skips - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (skipIds[mid] < questionId) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            int position = skipOffsets[low];
+            int id = skipIds[low];
+            while (position < length) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += gap;
+                if (id >= questionId) {
+                    return id == questionId ? data[position] : -1;
+                }
+                position++;
+            }
+            return -1;
+        }
+
+        // Field bits are one fixed-size byte, so they are patched in place
+        void setFields(int questionId, int fields) {
+            int position = 0;
+            int id = 0;
+            while (position < length) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += gap;
+                if (id == questionId) {
+                    data[position] = (byte) fields;
+                    return;
+                }
+                position++;
+            }
+        }
+
+        void forEach(Consumer consumer) {
+            int position = 0;
+            int id = 0;
+            while (position < length) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += gap;
+                consumer.accept(id, data[position++]);
+            }
+        }
+
+        // Decodes, inserts or drops questionId, and encodes again
+        private void rewrite(int questionId, int fields, boolean drop) {
+            int[] ids = new int[count + 1];
+            int[] allFields = new int[count + 1];
+            int[] n = {0};
+            boolean[] placed = {drop};
+            forEach((id, f) -> {
+                if (!placed[0] && id >= questionId) {
+                    ids[n[0]] = questionId;
+                    allFields[n[0]++] = fields;
+                    placed[0] = true;
+                    if (id == questionId) {
+                        return; // replaces the old entry
+                    }
+                }
+                if (drop && id == questionId) {
+                    return;
+                }
+                ids[n[0]] = id;
+                allFields[n[0]++] = f;
+            });
+            if (!placed[0]) {
+                ids[n[0]] = questionId;
+                allFields[n[0]++] = fields;
+            }
+
+            length = 0;
+            count = 0;
+            lastId = 0;
+            skips = 0;
+            for (int i = 0; i < n[0]; i++) {
+                append(ids[i], allFields[i]);
+            }
+            if (data.length > 64 && length < data.length / 4) {
+                data = Arrays.copyOf(data, Math.max(8, length * 2));
+            }
+        }
+
+        private void append(int questionId, int fields) {
+            if (count % SKIP_INTERVAL == 0) {
+                if (skips == skipIds.length) {
+                    skipIds = Arrays.copyOf(skipIds, Math.max(4, skips * 2));
+                    skipOffsets = Arrays.copyOf(skipOffsets, skipIds.length);
+                }
+                skipIds[skips] = lastId;
+                skipOffsets[skips++] = length;
+            }
+            if (length + 6 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 6));
+            }
+            int gap = questionId - lastId;
+            while ((gap & ~0x7F) != 0) {
+                data[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            data[length++] = (byte) gap;
+            data[length++] = (byte) fields;
+            lastId = questionId;
+            count++;
+        }
+    }
+
+    public record SearchResult(int total, List<SearchHit> hits) {
+    }
+}
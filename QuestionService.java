@@ -1,19 +1,38 @@
 package com.quize.quizproject.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quize.quizproject.config.HibernateConfig;
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.metrics.QuizMetrics;
 import com.quize.quizproject.model.Question;
 import com.quize.quizproject.repository.QuestionRepository;
+import com.quize.quizproject.view.AdminQuestionView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class QuestionService {
@@ -21,8 +40,49 @@ public class QuestionService {
     @Autowired
     private QuestionRepository questionRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private QuestionBulkWriter questionBulkWriter;
+
+    @Autowired
+    private QuizMetrics quizMetrics;
+
+    @Autowired
+    private QuestionCatalog questionCatalog;
+
+    @Autowired
+    private QuestionSearchIndex questionSearchIndex;
+
+    @Autowired
+    private QuestionImporter questionImporter;
+
+    @Autowired
+    private AnswerStats answerStats;
+
+    @Value("${quiz.search.max-limit:100}")
+    private int searchMaxLimit;
+
+    @Value("${quiz.answer-stats.max-ids:1000}")
+    private int answerStatsMaxIds;
+
+    // How long a request waits on an identical in-flight /question/category request before giving up
+    @Value("${quiz.question.category-coalesce-timeout-ms:5000}")
+    private long categoryCoalesceTimeoutMillis;
+
+    private final SingleFlight<String, JsonNode> categoryLoads = new SingleFlight<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${quiz.question.page-size:1000}")
+    private int pageSize;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private static final Logger logger = LogManager.getLogger(QuestionService.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
 
 //    @Transactional
 //    public JsonNode createOrUpdateQuestion(JsonNode jsonObject) {
@@ -81,7 +141,7 @@ public class QuestionService {
 
     @Transactional
     public JsonNode createOrUpdateQuestion(JsonNode jsonNode) {
-        ArrayNode responseArray = objectMapper.createArrayNode(); // Array to hold response for each processed question
+        BulkWriteResult writeResult = new BulkWriteResult(); // Saved so far, even if a later batch fails
 
         try {
             // If the input is not an array, throw an error
@@ -91,59 +151,13 @@ public class QuestionService {
                         .put("result","json node array type not provided");
             }
 
-            // Process each question in the array
-            for (JsonNode questionObject : jsonNode) {
-                Question question;
-
-                // Check if question_id exists and is valid for updating an existing record
-                if (questionObject.has("questionId") && !questionObject.get("questionId").isNull()) {
-                    Integer questionId = questionObject.get("questionId").asInt();
-
-                    // Fetch existing question by ID
-                    question = questionRepository.findById(questionId).orElse(null);
-
-                    if (question != null) {
-                        logger.debug("Updating existing question with ID: {}", questionId);
-                    } else {
-                        logger.debug("No existing question found with ID: {}. Creating a new question.", questionId);
-                        question = new Question(); // Create a new question if not found
-                    }
-                } else {
-                    // If no question_id is provided, create a new question
-                    logger.debug("No question_id provided. Creating a new question.");
-                    question = new Question();
-                }
+            // Map every element first, then save them all in JDBC batches
+            List<Question> questions = mapQuestions(jsonNode);
+            questionBulkWriter.write(questions, writeResult);
+            logger.debug("Questions saved successfully: {} inserted, {} updated", writeResult.getInserted(), writeResult.getUpdated());
 
-                // Map fields for the question (whether new or updating)
-                question.setCategory(questionObject.has("category") ? questionObject.get("category").asText() : null);
-                question.setQuestionTitle(questionObject.has("questionTitle") ? questionObject.get("questionTitle").asText() : null);
-                question.setOption1(questionObject.has("option1") ? questionObject.get("option1").asText() : null);
-                question.setOption2(questionObject.has("option2") ? questionObject.get("option2").asText() : null);
-                question.setOption3(questionObject.has("option3") ? questionObject.get("option3").asText() : null);
-                question.setOption4(questionObject.has("option4") ? questionObject.get("option4").asText() : null);
-                question.setRightAns(questionObject.has("rightAns") ? questionObject.get("rightAns").asText() : null);
-                question.setDifficultyLevel(questionObject.has("difficultyLevel") ? questionObject.get("difficultyLevel").asText() : null);
-
-                // Save or update the question to the database
-                question = questionRepository.save(question);
-                logger.debug("Question saved successfully");
-
-                // Add the saved question to the response array
-                ObjectNode savedQuestion = objectMapper.createObjectNode();
-                savedQuestion.put("questionId", question.getQuestionId());
-                savedQuestion.put("category", question.getCategory());
-                savedQuestion.put("questionTitle", question.getQuestionTitle());
-                savedQuestion.put("option1", question.getOption1());
-                savedQuestion.put("option2", question.getOption2());
-                savedQuestion.put("option3", question.getOption3());
-                savedQuestion.put("option4", question.getOption4());
-                savedQuestion.put("rightAns", question.getRightAns());
-                savedQuestion.put("difficultyLevel", question.getDifficultyLevel());
-                responseArray.add(savedQuestion);
-            }
-
-            // Return the processed questions as the response
-            return responseArray;
+            // The saved questions in request order, serialized straight from the views
+            return objectMapper.getNodeFactory().pojoNode(AdminQuestionView.fromAll(questions));
         } catch (IllegalArgumentException e) {
             logger.error("Invalid input format: {}", e.getMessage(), e);
             ObjectNode errorResponse = objectMapper.createObjectNode();
@@ -154,21 +168,139 @@ public class QuestionService {
             ObjectNode errorResponse = objectMapper.createObjectNode();
             errorResponse.put("error", "Error processing questions.");
             return errorResponse;
+        } finally {
+            // Keep the in-memory answer key in step with whatever actually got saved
+            publishWritten(writeResult);
         }
     }
 
-
+    // Same ingest as createOrUpdateQuestion, but answers with throughput and per-batch timings
+    // instead of echoing every question back
     @Transactional
-    public JsonNode getQuestionByCategory(JsonNode jsonObject) {
+    public JsonNode bulkUpsertQuestions(JsonNode jsonNode) {
+        BulkWriteResult writeResult = new BulkWriteResult();
+        try {
+            if (!jsonNode.isArray()) {
+                return objectMapper.createObjectNode()
+                        .put("status","error")
+                        .put("result","json node array type not provided");
+            }
+
+            questionBulkWriter.write(mapQuestions(jsonNode), writeResult);
+
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("status", "success");
+            response.put("inserted", writeResult.getInserted());
+            response.put("updated", writeResult.getUpdated());
+            response.put("batchSize", questionBulkWriter.getBatchSize());
+            response.put("elapsedMillis", writeResult.getElapsedNanos() / 1_000_000.0);
+            response.put("rowsPerSecond", Math.round(writeResult.getRowsPerSecond()));
+
+            ArrayNode batches = objectMapper.createArrayNode();
+            for (BulkWriteResult.Batch batch : writeResult.getBatches()) {
+                ObjectNode batchNode = objectMapper.createObjectNode();
+                batchNode.put("batch", batch.getNumber());
+                batchNode.put("type", batch.getType());
+                batchNode.put("rows", batch.getRows());
+                batchNode.put("millis", batch.getNanos() / 1_000_000.0);
+                batches.add(batchNode);
+            }
+            response.set("batches", batches);
+            return response;
+        } catch (Exception e) {
+            logger.error("Error in bulk question upsert: {}", e.getMessage(), e);
+            return objectMapper.createObjectNode()
+                    .put("status", "error")
+                    .put("message", "Error processing questions.")
+                    .put("rowsWritten", writeResult.getWritten().size());
+        } finally {
+            publishWritten(writeResult);
+        }
+    }
+
+    // Streaming import of NDJSON or CSV. Deliberately not @Transactional: QuestionImporter commits each chunk
+    // on its own, so a huge file never holds locks for the whole run.
+    public JsonNode importQuestions(InputStream body, String format, String contentType, Long resumeAfter, String importId) {
+        ObjectNode response = objectMapper.createObjectNode();
+        try {
+            if (resumeAfter != null && resumeAfter < 0) {
+                throw new IllegalArgumentException("resumeAfter must not be negative.");
+            }
+            ImportReport report = questionImporter.importQuestions(body, QuestionImporter.Format.detect(format, contentType),
+                    resumeAfter != null ? resumeAfter : 0, importId);
+            response.put("status", report.isFailed() ? "error" : "success");
+            response.putPOJO("import", report);
+            quizMetrics.recordQuestionCount("/question/import", (int) (report.getInserted() + report.getUpdated()));
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+        }
+        return response;
+    }
+
+    // Progress of a running import, or the outcome of a recent one
+    public JsonNode getImport(String importId) {
+        ObjectNode response = objectMapper.createObjectNode();
+        ImportReport report = questionImporter.getReport(importId);
+        if (report == null) {
+            response.put("status", "error");
+            response.put("message", "Import not found.");
+        } else {
+            response.put("status", "success");
+            response.putPOJO("import", report);
+        }
+        return response;
+    }
+
+    private List<Question> mapQuestions(JsonNode jsonNode) {
+        List<Question> questions = new ArrayList<>(jsonNode.size());
+        for (JsonNode questionObject : jsonNode) {
+            Question question = new Question();
+
+            // An id marks an update; the bulk writer falls back to an insert when no such row exists
+            if (questionObject.has("questionId") && !questionObject.get("questionId").isNull()) {
+                question.setQuestionId(questionObject.get("questionId").asInt());
+            }
+
+            question.setCategory(questionObject.has("category") ? questionObject.get("category").asText() : null);
+            question.setQuestionTitle(questionObject.has("questionTitle") ? questionObject.get("questionTitle").asText() : null);
+            question.setOption1(questionObject.has("option1") ? questionObject.get("option1").asText() : null);
+            question.setOption2(questionObject.has("option2") ? questionObject.get("option2").asText() : null);
+            question.setOption3(questionObject.has("option3") ? questionObject.get("option3").asText() : null);
+            question.setOption4(questionObject.has("option4") ? questionObject.get("option4").asText() : null);
+            question.setRightAns(questionObject.has("rightAns") ? questionObject.get("rightAns").asText() : null);
+            question.setDifficultyLevel(questionObject.has("difficultyLevel") ? questionObject.get("difficultyLevel").asText() : null);
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    private void publishWritten(BulkWriteResult writeResult) {
+        if (!writeResult.getWritten().isEmpty()) {
+            eventPublisher.publishEvent(QuestionChangeEvent.upserted(writeResult.getWritten()));
+        }
+    }
+
+
+    // Identical concurrent requests share one query and one response node. Not transactional: waiters must not
+    // hold a connection while the first request runs, and findByCategory opens its own read transaction.
+    public JsonNode getQuestionByCategory(JsonNode jsonObject) throws TimeoutException {
+        JsonNode category = jsonObject.get("category");
+        if (category == null || category.isNull()) {
+            return loadQuestionsByCategory(null);
+        }
+        return categoryLoads.execute(category.asText(), categoryCoalesceTimeoutMillis,
+                () -> loadQuestionsByCategory(category.asText()));
+    }
+
+    private JsonNode loadQuestionsByCategory(String category) {
         ObjectNode responseNode = objectMapper.createObjectNode();
         try {
             // Validate input
-            if (!jsonObject.has("category") || jsonObject.get("category").isNull()) {
+            if (category == null) {
                 throw new IllegalArgumentException("Category must be provided.");
             }
 
-            String category = jsonObject.get("category").asText();
-
             // Fetch questions by category from the repository
             List<Question> questions = questionRepository.findByCategory(category);
 
@@ -176,24 +308,9 @@ public class QuestionService {
                 responseNode.put("status", "error");
                 responseNode.put("message", "No questions found for the specified category.");
             } else {
-                // Convert List<Question> to JsonNode
-                ArrayNode questionArray = objectMapper.createArrayNode();
-                for (Question question : questions) {
-                    ObjectNode questionNode = objectMapper.createObjectNode();
-                    questionNode.put("questionId", question.getQuestionId());
-                    questionNode.put("category", question.getCategory());
-                    questionNode.put("questionTitle", question.getQuestionTitle());
-                    questionNode.put("option1", question.getOption1());
-                    questionNode.put("option2", question.getOption2());
-                    questionNode.put("option3", question.getOption3());
-                    questionNode.put("option4", question.getOption4());
-                    questionNode.put("rightAns", question.getRightAns());
-                    questionNode.put("difficultyLevel", question.getDifficultyLevel());
-                    questionArray.add(questionNode);
-                }
-
                 responseNode.put("status", "success");
-                responseNode.set("questions", questionArray);
+                responseNode.putPOJO("questions", AdminQuestionView.fromAll(questions));
+                quizMetrics.recordQuestionCount("/question/category", questions.size());
             }
         } catch (IllegalArgumentException e) {
             responseNode.put("status", "error");
@@ -206,43 +323,139 @@ public class QuestionService {
         return responseNode;
     }
 
+    // A request arriving after a question write must see it, so it may not join a load that started before
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChange(QuestionChangeEvent event) {
+        categoryLoads.forgetAll();
+    }
 
-    @Transactional
-    public JsonNode getAllQuestion() {
-        logger.debug("processing to get all question");
+    public SingleFlight<String, JsonNode> getCategoryLoads() {
+        return categoryLoads;
+    }
+
+
+    // Streams every question straight to the response in keyset pages of pageSize, so memory stays
+    // flat no matter how big the bank is: {"status": "success", "AllQuestions": [...]}.
+    public void writeAllQuestions(OutputStream out) throws IOException {
+        logger.debug("streaming all questions in pages of {}", pageSize);
+        int total = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeStringField("status", "success");
+            generator.writeArrayFieldStart("AllQuestions");
+
+            Integer after = 0;
+            while (true) {
+                List<Question> page = questionRepository.findByQuestionIdGreaterThanOrderByQuestionIdAsc(after, Limit.of(pageSize));
+                for (Question question : page) {
+                    generator.writeObject(AdminQuestionView.from(question));
+                }
+                total += page.size();
+                if (page.size() < pageSize) {
+                    break;
+                }
+                after = page.get(page.size() - 1).getQuestionId();
+                generator.flush();
+                // Open-session-in-view would otherwise keep every page managed until the request ends
+                entityManager.clear();
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        logger.debug("Streamed all questions successfully. Total questions: {}", total);
+        quizMetrics.recordQuestionCount("/question/allQuestions", total);
+    }
+
+    // One keyset page for clients that page themselves; nextAfter is the cursor for the following call
+    public JsonNode getQuestionPage(Integer after, Integer limit) {
         ObjectNode response = objectMapper.createObjectNode();
         try {
-            // Fetch all questions from the repository
-            List<Question> questionList = questionRepository.findAll();
-
-            // Manually build the JSON array response
-            ArrayNode result = objectMapper.createArrayNode();
-            for (Question question : questionList) {
-                ObjectNode questionNode = objectMapper.createObjectNode();
-                questionNode.put("questionId", question.getQuestionId());
-                questionNode.put("category", question.getCategory());
-                questionNode.put("questionTitle", question.getQuestionTitle());
-                questionNode.put("option1", question.getOption1());
-                questionNode.put("option2", question.getOption2());
-                questionNode.put("option3", question.getOption3());
-                questionNode.put("option4", question.getOption4());
-                questionNode.put("rightAns", question.getRightAns());
-                questionNode.put("difficultyLevel", question.getDifficultyLevel());
-                result.add(questionNode);
+            if (limit == null || limit <= 0) {
+                throw new IllegalArgumentException("limit must be a positive number.");
             }
+            int size = Math.min(limit, pageSize);
+            List<Question> page = questionRepository.findByQuestionIdGreaterThanOrderByQuestionIdAsc(
+                    after != null ? after : 0, Limit.of(size));
+
+            response.put("status", "success");
+            response.putPOJO("questions", AdminQuestionView.fromAll(page));
+            quizMetrics.recordQuestionCount("/question/allQuestions", page.size());
+            if (page.size() == size) {
+                response.put("nextAfter", page.get(page.size() - 1).getQuestionId());
+            } else {
+                response.putNull("nextAfter");
+            }
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+        }
+        return response;
+    }
 
-            logger.debug("Fetched all questions successfully. Total questions: {}", questionList.size());
-            response.put("status","success");
-            response.set("AllQuestions",result);
+    // Everything added, changed or deleted since the client's catalog version. Clients without a version, from
+    // another epoch (a restart) or older than the retained change log get the full catalog instead.
+    public JsonNode getQuestionChanges(Long epoch, Long sinceVersion) {
+        ObjectNode response = objectMapper.createObjectNode();
+        QuestionCatalog.Snapshot snapshot = questionCatalog.snapshot();
+        if (!snapshot.isLoaded()) {
+            response.put("status", "error");
+            response.put("message", "Question catalog is still loading.");
             return response;
-        } catch (Exception e) {
-            logger.error("Error occurred while fetching all questions: {}", e.getMessage(), e);
-            return objectMapper.createObjectNode()
-                            .put("status", "error")
-                            .put("message", "Error occurred while fetching all questions.");
         }
+
+        response.put("status", "success");
+        response.put("epoch", questionCatalog.getEpoch());
+        response.put("version", snapshot.getVersion());
+        QuestionCatalog.Delta delta = epoch != null && sinceVersion != null
+                ? questionCatalog.changesSince(snapshot, epoch, sinceVersion)
+                : null;
+        if (delta == null) {
+            response.put("full", true);
+            response.putPOJO("questions", snapshot.getQuestions());
+            quizMetrics.recordQuestionCount("/question/changes", snapshot.size());
+        } else {
+            response.put("full", false);
+            response.putPOJO("upserted", delta.upserted());
+            response.putPOJO("deleted", delta.deleted());
+            quizMetrics.recordQuestionCount("/question/changes", delta.upserted().size());
+        }
+        return response;
+    }
+
+    // Full-text search over titles and options; every word must match, either exactly or as the start of a longer word
+    public JsonNode searchQuestions(String query, String category, String difficulty, Integer limit) {
+        ObjectNode response = objectMapper.createObjectNode();
+        try {
+            if (query == null || query.isBlank()) {
+                throw new IllegalArgumentException("q is required.");
+            }
+            if (limit != null && limit <= 0) {
+                throw new IllegalArgumentException("limit must be a positive number.");
+            }
+            if (!questionSearchIndex.isLoaded()) {
+                response.put("status", "unavailable");
+                response.put("message", "Search index is still loading.");
+                return response;
+            }
+
+            QuestionSearchIndex.SearchResult result = questionSearchIndex.search(query, blankToNull(category),
+                    blankToNull(difficulty), Math.min(limit != null ? limit : 20, searchMaxLimit));
+            response.put("status", "success");
+            response.put("total", result.total());
+            response.putPOJO("hits", result.hits());
+            quizMetrics.recordQuestionCount("/question/search", result.hits().size());
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+        }
+        return response;
     }
 
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
 
     @Transactional
     public JsonNode deleteQuestion(Integer questionId) {
@@ -252,6 +465,7 @@ public class QuestionService {
             if (questionOptional.isPresent()) {
                 // Delete the question
                 questionRepository.deleteById(questionId);
+                eventPublisher.publishEvent(QuestionChangeEvent.deleted(questionId));
                 logger.debug("Question with ID {} deleted successfully.", questionId);
 
                 // Return success response
@@ -279,6 +493,57 @@ public class QuestionService {
         }
     }
 
+    // Served from the in-memory counters; questions nobody has answered yet report zeros
+    public JsonNode getAnswerStats(List<Integer> questionIds) {
+        ObjectNode response = objectMapper.createObjectNode();
+        if (questionIds.isEmpty() || questionIds.size() > answerStatsMaxIds) {
+            response.put("status", "error");
+            response.put("message", "Between 1 and " + answerStatsMaxIds + " questionIds are required.");
+            return response;
+        }
+        ArrayNode questions = objectMapper.createArrayNode();
+        for (Integer questionId : questionIds) {
+            AnswerStats.Stats stats = answerStats.get(questionId);
+            ObjectNode node = questions.addObject();
+            node.put("questionId", questionId);
+            node.put("attempts", stats != null ? stats.attempts() : 0);
+            node.put("correct", stats != null ? stats.correct() : 0);
+            node.put("correctRate", stats != null ? stats.correctRate() : 0);
+            ArrayNode picks = node.putArray("optionPicks");
+            for (int option = 0; option < 4; option++) {
+                picks.add(stats != null ? stats.optionPicks()[option] : 0);
+            }
+        }
+        response.put("status", "success");
+        response.set("questions", questions);
+        return response;
+    }
 
+    // Second-level and query cache counters since startup, overall and for the question regions
+    public JsonNode getCacheStats() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        CacheRegionStatistics questionRegion = statistics.getDomainDataRegionStatistics(HibernateConfig.QUESTION_REGION);
+        CacheRegionStatistics categoryRegion = statistics.getQueryRegionStatistics(HibernateConfig.QUESTION_BY_CATEGORY_REGION);
 
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("status", "success");
+        response.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        response.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        response.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        response.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        response.put("statementsPrepared", statistics.getPrepareStatementCount());
+        response.set("questionRegion", regionStats(questionRegion));
+        response.set("categoryQueryRegion", regionStats(categoryRegion));
+        return response;
+    }
+
+    private ObjectNode regionStats(CacheRegionStatistics region) {
+        ObjectNode node = objectMapper.createObjectNode();
+        if (region != null) {
+            node.put("hits", region.getHitCount());
+            node.put("misses", region.getMissCount());
+            node.put("puts", region.getPutCount());
+        }
+        return node;
+    }
 }
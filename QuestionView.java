@@ -0,0 +1,19 @@
+package com.quize.quizproject.view;
+
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.QuizQuestionRow;
+
+// What quiz takers see of a question. Deliberately has no rightAns, so it cannot leak into a public payload.
+public record QuestionView(Integer questionId, String category, String questionTitle,
+                           String option1, String option2, String option3, String option4) {
+
+    public static QuestionView from(Question question) {
+        return new QuestionView(question.getQuestionId(), question.getCategory(), question.getQuestionTitle(),
+                question.getOption1(), question.getOption2(), question.getOption3(), question.getOption4());
+    }
+
+    public static QuestionView from(QuizQuestionRow row) {
+        return new QuestionView(row.getQuestionId(), row.getCategory(), row.getQuestionTitle(),
+                row.getOption1(), row.getOption2(), row.getOption3(), row.getOption4());
+    }
+}
@@ -2,7 +2,8 @@ package com.quize.quizproject.model;
 
 import jakarta.persistence.*;
 
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 @Entity
 @Table(name = "quiz")  // The quiz table name
@@ -15,14 +16,18 @@ public class Quiz {
     @Column(name = "title")
     private String title;
 
-    // Many-to-many relationship with the Question entity
+    // Many-to-many relationship with the Question entity. Mapped as a Set rather than a bag so that
+    // Hibernate can insert or delete single quiz_question rows instead of rewriting the whole list.
+    // quiz_question has no position column, so a quiz's questions come back in questionId order, not in the
+    // (random) order they were sampled in; /quiz/getQuizQues lists them the same way.
     @ManyToMany
+    @OrderBy("questionId")
     @JoinTable(
             name = "quiz_question",  // Name of the join table
             joinColumns = @JoinColumn(name = "quiz_id"),  // Foreign key column for Quiz
             inverseJoinColumns = @JoinColumn(name = "question_id")  // Foreign key column for Question
     )
-    private List<Question> questionList;
+    private Set<Question> questionList = new LinkedHashSet<>();
 
     // Getters and setters
     public Integer getQuizId() {
@@ -41,11 +46,11 @@ public class Quiz {
         this.title = title;
     }
 
-    public List<Question> getQuestionList() {
+    public Set<Question> getQuestionList() {
         return questionList;
     }
 
-    public void setQuestionList(List<Question> questionList) {
+    public void setQuestionList(Set<Question> questionList) {
         this.questionList = questionList;
     }
 }
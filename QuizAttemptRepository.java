@@ -0,0 +1,9 @@
+package com.quize.quizproject.repository;
+
+import com.quize.quizproject.model.QuizAttempt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface QuizAttemptRepository extends JpaRepository<QuizAttempt,String> {
+}
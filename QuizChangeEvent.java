@@ -0,0 +1,15 @@
+package com.quize.quizproject.event;
+
+// Published by QuizService when a quiz's title or question list is written
+public class QuizChangeEvent {
+
+    private final Integer quizId;
+
+    public QuizChangeEvent(Integer quizId) {
+        this.quizId = quizId;
+    }
+
+    public Integer getQuizId() {
+        return quizId;
+    }
+}
@@ -3,15 +3,26 @@ package com.quize.quizproject.controller;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quize.quizproject.config.DatabaseConcurrencyGuard.DatabaseBusyException;
+import com.quize.quizproject.metrics.QuizMetrics;
+import com.quize.quizproject.service.PayloadFormat;
+import com.quize.quizproject.service.QuizPayload;
+import com.quize.quizproject.service.QuizPayloadCache;
 import com.quize.quizproject.service.QuizService;
+import com.quize.quizproject.service.Submission;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeoutException;
+
 @RestController
 @RequestMapping("/quiz")
 public class QuizController {
@@ -19,45 +30,115 @@ public class QuizController {
     @Autowired
     private QuizService quizService;
 
+    @Autowired
+    private QuizMetrics quizMetrics;
+
+    @Autowired
+    private QuizPayloadCache quizPayloadCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private static final Logger logger = LogManager.getLogger(QuestionController.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
 
 
     // Create or Update Quiz
     @CrossOrigin
     @PostMapping("/create")
     public ResponseEntity<JsonNode> createOrUpdateQuiz(@RequestBody JsonNode jsonNode) {
-        logger.debug("Received request to process quiz data: {}", jsonNode.toString());
+        logger.debug("Received request to process quiz data: {}", jsonNode);
 
         try {
             // Call the service method to create or update the quiz
             JsonNode result = quizService.createQuiz(jsonNode);
             logger.debug("Quiz processed successfully: {}", result);
             return ResponseEntity.ok(result);
+        } catch (DatabaseBusyException e) {
+            // Overload rather than failure; the admission limiter backs off on the 503
+            quizMetrics.recordError("/quiz/create", e);
+            logger.warn("Database busy while processing quiz data: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(createErrorResponse("Server is busy, please retry shortly"));
         } catch (DataAccessException dae) {
+            quizMetrics.recordError("/quiz/create", dae);
             logger.error("DataAccessException in processing quiz data: {}", dae.getMessage(), dae);
             return ResponseEntity.status(500).body(createErrorResponse("Error occurred while processing quiz data"));
         } catch (Exception e) {
+            quizMetrics.recordError("/quiz/create", e);
             logger.error("Exception in processing quiz data: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(createErrorResponse("Error occurred while processing quiz data"));
         }
     }
 
+    @CrossOrigin
+    @PostMapping("/replaceQuestions")
+    public ResponseEntity<JsonNode> replaceQuizQuestions(@RequestBody JsonNode jsonNode) {
+        logger.debug("Received request to replace quiz questions: {}", jsonNode);
+
+        try {
+            JsonNode result = quizService.replaceQuestions(jsonNode);
+            logger.debug("Quiz questions replaced: {}", result);
+            return ResponseEntity.ok(result);
+        } catch (DataAccessException dae) {
+            quizMetrics.recordError("/quiz/replaceQuestions", dae);
+            logger.error("DataAccessException in replacing quiz questions: {}", dae.getMessage(), dae);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while processing quiz data"));
+        } catch (Exception e) {
+            quizMetrics.recordError("/quiz/replaceQuestions", e);
+            logger.error("Exception in replacing quiz questions: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while processing quiz data"));
+        }
+    }
+
     @CrossOrigin
     @PostMapping("/getQuizQues")
-    public ResponseEntity<JsonNode> getQuizQuestion(@RequestBody JsonNode jsonNode) {
+    public ResponseEntity<byte[]> getQuizQuestion(@RequestBody JsonNode jsonNode,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         // Expecting the request body to contain the quizId
         Integer quizId = jsonNode.get("quizId").asInt(); // Extract quizId from the JSON body
         logger.debug("Received request to get questions for quiz with ID: {}", quizId);
 
         try {
-            // Call the service method to get quiz details and associated questions
-            JsonNode result = quizService.getQuizQuestion(quizId);
-            logger.debug("Quiz questions fetched successfully: {}", result);
-            return ResponseEntity.ok(result);
+            // Served from the encoded payload cache; only a miss reaches the service
+            QuizPayload payload = quizPayloadCache.getOrLoad(quizId, () -> quizService.getQuizQuestion(quizId));
+            quizMetrics.recordQuestionCount("/quiz/getQuizQues", payload.getQuestionCount());
+            if (!payload.isCacheable()) {
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(payload.getJson());
+            }
+
+            PayloadFormat format = PayloadFormat.negotiate(accept);
+            boolean gzip = format == PayloadFormat.JSON && payload.getGzip() != null
+                    && acceptEncoding != null && acceptEncoding.contains("gzip");
+            String etag = gzip ? payload.getGzipEtag() : payload.getEtag(format);
+            if (matchesAny(ifNoneMatch, etag)) {
+                logger.debug("Quiz {} not modified", quizId);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                        .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING).build();
+            }
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(format.getMediaType())
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.getGzip());
+            }
+            logger.debug("Quiz questions fetched successfully for quiz {} as {}", quizId, format);
+            return response.body(payload.getBody(format));
+        } catch (TimeoutException e) {
+            // Another request's load of this quiz is still running; retrying shortly will most likely hit the cache
+            quizMetrics.recordError("/quiz/getQuizQues", e);
+            logger.warn("Timed out waiting for quiz {} to load: {}", quizId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("Timed out loading quiz questions").toString().getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
+            quizMetrics.recordError("/quiz/getQuizQues", e);
             logger.error("Error occurred while fetching quiz questions for quizId {}: {}", quizId, e.getMessage(), e);
-            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while fetching quiz questions"));
+            return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("Error occurred while fetching quiz questions").toString().getBytes(StandardCharsets.UTF_8));
         }
     }
 
@@ -66,26 +147,169 @@ public class QuizController {
     public ResponseEntity<JsonNode> processQuizSubmission(@RequestBody JsonNode submissionData) {
         try {
             // Validate request payload
-            if (!submissionData.isArray() || submissionData.size() == 0) {
-                ObjectNode errorResponse = new ObjectMapper().createObjectNode()
-                        .put("error", "Invalid submission data. Expected a non-empty array.");
+            JsonNode answers = Submission.answersOf(submissionData);
+            if (answers == null || !answers.isArray() || answers.size() == 0) {
+                ObjectNode errorResponse = objectMapper.createObjectNode()
+                        .put("error", "Invalid submission data. Expected a non-empty array of answers.");
                 return ResponseEntity.badRequest().body(errorResponse);
             }
 
             // Process the submission using service
             JsonNode response = quizService.processUserQuizSubmission(submissionData);
+            if ("error".equals(response.path("status").asText())) {
+                return ResponseEntity.badRequest().body(response);
+            }
 
             // Return the result
             return ResponseEntity.ok(response);
 
+        } catch (DatabaseBusyException e) {
+            quizMetrics.recordError("/quiz/quizSubmit", e);
+            logger.warn("Database busy while processing quiz submission: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(createErrorResponse("Server is busy, please retry shortly"));
         } catch (Exception e) {
+            quizMetrics.recordError("/quiz/quizSubmit", e);
             // Log error and return a 500 response
-            ObjectNode errorResponse = new ObjectMapper().createObjectNode()
+            ObjectNode errorResponse = objectMapper.createObjectNode()
                     .put("error", "An unexpected error occurred while processing the quiz submission");
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
 
+    @CrossOrigin
+    @PostMapping("/submitAsync")
+    public ResponseEntity<JsonNode> submitQuizAsync(@RequestBody JsonNode submissionData) {
+        try {
+            // Validate request payload
+            JsonNode answers = Submission.answersOf(submissionData);
+            if (answers == null || !answers.isArray() || answers.size() == 0) {
+                ObjectNode errorResponse = objectMapper.createObjectNode()
+                        .put("error", "Invalid submission data. Expected a non-empty array of answers.");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+
+            JsonNode response = quizService.submitQuizAsync(submissionData);
+            if ("error".equals(response.path("status").asText())) {
+                return ResponseEntity.badRequest().body(response);
+            }
+            if ("rejected".equals(response.path("status").asText())) {
+                // Backpressure: the grading queue is full, tell the client to come back shortly
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(response);
+            }
+            if (response.has("error")) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (DatabaseBusyException e) {
+            quizMetrics.recordError("/quiz/submitAsync", e);
+            logger.warn("Database busy while queueing quiz submission: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(createErrorResponse("Server is busy, please retry shortly"));
+        } catch (Exception e) {
+            quizMetrics.recordError("/quiz/submitAsync", e);
+            logger.error("Exception in queueing quiz submission: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("An unexpected error occurred while processing the quiz submission"));
+        }
+    }
+
+    @CrossOrigin
+    @PostMapping("/attempt")
+    public ResponseEntity<JsonNode> getAttempt(@RequestBody JsonNode jsonNode) {
+        if (!jsonNode.hasNonNull("attemptId")) {
+            return ResponseEntity.badRequest().body(createErrorResponse("attemptId is required."));
+        }
+        String attemptId = jsonNode.get("attemptId").asText();
+
+        try {
+            return ResponseEntity.ok(quizService.getAttempt(attemptId));
+        } catch (Exception e) {
+            quizMetrics.recordError("/quiz/attempt", e);
+            logger.error("Error occurred while fetching attempt {}: {}", attemptId, e.getMessage(), e);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while fetching the attempt"));
+        }
+    }
+
+    @CrossOrigin
+    @GetMapping("/submissionStats")
+    public ResponseEntity<JsonNode> getSubmissionStats() {
+        return ResponseEntity.ok(quizService.getSubmissionStats());
+    }
+
+    @CrossOrigin
+    @GetMapping("/payloadCacheStats")
+    public ResponseEntity<JsonNode> getPayloadCacheStats() {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("status", "success");
+        response.put("entries", quizPayloadCache.size());
+        response.put("bytes", quizPayloadCache.getTotalBytes());
+        response.put("hits", quizPayloadCache.getHits());
+        response.put("misses", quizPayloadCache.getMisses());
+        response.put("evictions", quizPayloadCache.getEvictions());
+        response.put("invalidations", quizPayloadCache.getInvalidations());
+        return ResponseEntity.ok(response);
+    }
+
+    @CrossOrigin
+    @GetMapping("/leaderboard")
+    public ResponseEntity<JsonNode> getLeaderboard(@RequestParam Integer quizId,
+                                                   @RequestParam(defaultValue = "10") int limit,
+                                                   @RequestParam(required = false) String userId) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().body(createErrorResponse("limit must be at least 1."));
+        }
+        try {
+            return ResponseEntity.ok(quizService.getLeaderboard(quizId, limit, userId));
+        } catch (Exception e) {
+            quizMetrics.recordError("/quiz/leaderboard", e);
+            logger.error("Error occurred while fetching the leaderboard for quiz {}: {}", quizId, e.getMessage(), e);
+            return ResponseEntity.status(500).body(createErrorResponse("Error occurred while fetching the leaderboard"));
+        }
+    }
+
+    @CrossOrigin
+    @GetMapping("/poolStats")
+    public ResponseEntity<JsonNode> getPoolStats() {
+        return ResponseEntity.ok(quizService.getPoolStats());
+    }
+
+    @CrossOrigin
+    @GetMapping("/answerKeyStats")
+    public ResponseEntity<JsonNode> getAnswerKeyStats() {
+        return ResponseEntity.ok(quizService.getAnswerKeyStats());
+    }
+
+    // If-None-Match is "*" or a comma-separated list of entity-tags, compared weakly as RFC 9110 asks: a W/
+    // prefix is ignored, but the opaque tag must equal ours exactly. Commas inside a quoted tag do not split.
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        int start = 0;
+        boolean quoted = false;
+        for (int i = 0; i <= ifNoneMatch.length(); i++) {
+            if (i < ifNoneMatch.length() && (ifNoneMatch.charAt(i) != ',' || quoted)) {
+                if (ifNoneMatch.charAt(i) == '"') {
+                    quoted = !quoted;
+                }
+                continue;
+            }
+            String tag = ifNoneMatch.substring(start, i).trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+            start = i + 1;
+        }
+        return false;
+    }
+
     private ObjectNode createErrorResponse(String message) {
         ObjectNode errorResponse = objectMapper.createObjectNode();
         errorResponse.put("status", "error");
@@ -0,0 +1,151 @@
+package com.quize.quizproject.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+// One quiz's leaderboard: each user's best score, readable while it is being updated. Updates for a user
+// are serialized by ConcurrentHashMap.compute on that user's bin, so different users never share a lock.
+// The ranking is a skip list, so top-K reads the first K entries. A rank query adds up a per-score user
+// count over the scores above the user's. There is at most one count per possible score, so this never
+// walks the ranking.
+public class QuizLeaderboard {
+
+    // Higher score first, then whoever got there first
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::correctAnswers).reversed()
+            .thenComparingLong(Entry::achievedAtMillis)
+            .thenComparing(Entry::userId);
+
+    private final Integer quizId;
+    private final ConcurrentHashMap<String, Entry> best = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final ConcurrentSkipListMap<Integer, LongAdder> usersByScore =
+            new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+
+    // Users whose best score changed since the last snapshot
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    public QuizLeaderboard(Integer quizId) {
+        this.quizId = quizId;
+    }
+
+    // True when this is now the user's best score on the quiz
+    public boolean offer(String userId, int correctAnswers, int totalQuestions, long achievedAtMillis) {
+        Entry candidate = new Entry(userId, correctAnswers, totalQuestions, achievedAtMillis);
+        if (!merge(candidate)) {
+            return false;
+        }
+        dirty.add(userId);
+        return true;
+    }
+
+    // Loads a snapshotted score without marking it for the next snapshot
+    void restore(String userId, int correctAnswers, int totalQuestions, long achievedAtMillis) {
+        merge(new Entry(userId, correctAnswers, totalQuestions, achievedAtMillis));
+    }
+
+    private boolean merge(Entry candidate) {
+        boolean[] improved = new boolean[1];
+        best.compute(candidate.userId(), (userId, current) -> {
+            if (current != null && !candidate.beats(current)) {
+                return current;
+            }
+            // Added before the old entry goes, and top-K keeps only the first entry it meets per user, so a read
+            // that sees both counts the new one. The skip-list iterator is weakly consistent, though: a read
+            // that passed the new entry's place before it was added and reaches the old one's after it was
+            // removed misses the user for that one read.
+            ranking.add(candidate);
+            usersByScore.computeIfAbsent(candidate.correctAnswers(), score -> new LongAdder()).increment();
+            if (current != null) {
+                ranking.remove(current);
+                usersByScore.get(current.correctAnswers()).decrement();
+            }
+            improved[0] = true;
+            return candidate;
+        });
+        return improved[0];
+    }
+
+    // The first limit users in rank order. Users on the same score share a rank.
+    public List<Standing> top(int limit) {
+        List<Standing> standings = new ArrayList<>(Math.min(limit, 64));
+        // A user is briefly in the ranking twice while a better score replaces the old one; the better
+        // one always comes first
+        Set<String> seen = new HashSet<>();
+        long rank = 0;
+        int previousScore = -1;
+        for (Entry entry : ranking) {
+            if (standings.size() >= limit) {
+                break;
+            }
+            if (!seen.add(entry.userId())) {
+                continue;
+            }
+            if (entry.correctAnswers() != previousScore) {
+                rank = standings.size() + 1;
+                previousScore = entry.correctAnswers();
+            }
+            standings.add(new Standing(rank, entry));
+        }
+        return standings;
+    }
+
+    // Null when the user has no graded submission for this quiz
+    public Standing standingOf(String userId) {
+        Entry entry = best.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        long ahead = 0;
+        for (LongAdder users : usersByScore.headMap(entry.correctAnswers(), false).values()) {
+            ahead += users.sum();
+        }
+        return new Standing(ahead + 1, entry);
+    }
+
+    // Removes and returns the entries changed since the last call. A change racing with this is either
+    // returned now or left marked for the next call.
+    List<Entry> drainChanged() {
+        List<Entry> changed = new ArrayList<>();
+        for (String userId : dirty) {
+            dirty.remove(userId);
+            Entry entry = best.get(userId);
+            if (entry != null) {
+                changed.add(entry);
+            }
+        }
+        return changed;
+    }
+
+    // Puts back entries whose snapshot failed, so the next one retries them
+    void markChanged(List<Entry> entries) {
+        for (Entry entry : entries) {
+            dirty.add(entry.userId());
+        }
+    }
+
+    public Integer getQuizId() {
+        return quizId;
+    }
+
+    public int size() {
+        return best.size();
+    }
+
+    public record Entry(String userId, int correctAnswers, int totalQuestions, long achievedAtMillis) {
+
+        boolean beats(Entry other) {
+            return correctAnswers > other.correctAnswers
+                    || correctAnswers == other.correctAnswers && achievedAtMillis < other.achievedAtMillis;
+        }
+    }
+
+    public record Standing(long rank, Entry entry) {
+    }
+}
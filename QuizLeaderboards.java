@@ -0,0 +1,141 @@
+package com.quize.quizproject.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-quiz leaderboards fed by every graded submission that names a quiz and a user. They live in memory.
+// Changed entries are written to quiz_leaderboard every snapshot interval and on shutdown, and the table
+// is read back at startup, so a restart loses at most one interval of improvements. Those cannot be rebuilt
+// in general: quiz_attempt records the quiz and user of attempts from the asynchronous pipeline, but
+// /quiz/quizSubmit grades without writing an attempt.
+@Component
+public class QuizLeaderboards {
+
+    private static final String SELECT_SQL = "SELECT quiz_id, user_id, correct_answers, total_questions, achieved_at "
+            + "FROM quiz_leaderboard";
+
+    // A stored row is only replaced by a better score, by QuizLeaderboard.Entry.beats, so a stale in-memory best
+    // from another instance or from before a restart never overwrites it. MySQL assigns left to right and
+    // later expressions see earlier assignments, so the columns the condition reads are assigned last.
+    private static final String BEATS_STORED = "VALUES(correct_answers) > correct_answers OR "
+            + "(VALUES(correct_answers) = correct_answers AND VALUES(achieved_at) < achieved_at)";
+    private static final String UPSERT_SQL = "INSERT INTO quiz_leaderboard (quiz_id, user_id, correct_answers, "
+            + "total_questions, achieved_at) VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "total_questions = CASE WHEN " + BEATS_STORED + " THEN VALUES(total_questions) ELSE total_questions END, "
+            + "achieved_at = CASE WHEN " + BEATS_STORED + " THEN VALUES(achieved_at) ELSE achieved_at END, "
+            + "correct_answers = GREATEST(correct_answers, VALUES(correct_answers))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${quiz.leaderboard.snapshot-batch-size:500}")
+    private int snapshotBatchSize;
+
+    private static final Logger logger = LogManager.getLogger(QuizLeaderboards.class);
+
+    private final ConcurrentHashMap<Integer, QuizLeaderboard> boards = new ConcurrentHashMap<>();
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder improvements = new LongAdder();
+    private final LongAdder snapshotRows = new LongAdder();
+    private final LongAdder snapshotFailures = new LongAdder();
+
+    // Submissions without a quizId or userId are graded but not ranked
+    public void record(Submission submission, GradeResult result) {
+        if (submission.getQuizId() == null || submission.getUserId() == null) {
+            return;
+        }
+        updates.increment();
+        QuizLeaderboard board = boards.computeIfAbsent(submission.getQuizId(), QuizLeaderboard::new);
+        if (board.offer(submission.getUserId(), result.getCorrectAnswers(), result.getTotalQuestions(),
+                System.currentTimeMillis())) {
+            improvements.increment();
+        }
+    }
+
+    // Null when nobody has a ranked submission for the quiz
+    public QuizLeaderboard get(Integer quizId) {
+        return boards.get(quizId);
+    }
+
+    // Merged with anything recorded before it finished, so submissions need not wait for it
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        long start = System.currentTimeMillis();
+        long[] rows = new long[1];
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            boards.computeIfAbsent(rs.getInt(1), QuizLeaderboard::new).restore(rs.getString(2), rs.getInt(3),
+                    rs.getInt(4), rs.getTimestamp(5).getTime());
+            rows[0]++;
+        });
+        logger.info("Restored {} leaderboard entries for {} quizzes in {} ms", rows[0], boards.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    @Scheduled(fixedDelayString = "${quiz.leaderboard.snapshot-interval-ms:5000}")
+    public synchronized void snapshot() {
+        for (QuizLeaderboard board : boards.values()) {
+            List<QuizLeaderboard.Entry> changed = board.drainChanged();
+            if (changed.isEmpty()) {
+                continue;
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, changed, snapshotBatchSize, (ps, entry) -> {
+                    ps.setInt(1, board.getQuizId());
+                    ps.setString(2, entry.userId());
+                    ps.setInt(3, entry.correctAnswers());
+                    ps.setInt(4, entry.totalQuestions());
+                    ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.ofInstant(
+                            Instant.ofEpochMilli(entry.achievedAtMillis()), ZoneId.systemDefault())));
+                });
+                snapshotRows.add(changed.size());
+            } catch (Exception e) {
+                board.markChanged(changed);
+                snapshotFailures.increment();
+                logger.error("Leaderboard snapshot for quiz {} failed, {} entries kept for retry: {}",
+                        board.getQuizId(), changed.size(), e.getMessage(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        snapshot();
+    }
+
+    public int size() {
+        return boards.size();
+    }
+
+    public long getUpdates() {
+        return updates.sum();
+    }
+
+    public long getImprovements() {
+        return improvements.sum();
+    }
+
+    public long getSnapshotRows() {
+        return snapshotRows.sum();
+    }
+
+    public long getSnapshotFailures() {
+        return snapshotFailures.sum();
+    }
+}
@@ -0,0 +1,47 @@
+package com.quize.quizproject.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Application-level meters that Spring Boot's HTTP and data source metrics do not cover.
+// Meters are looked up once per tag combination and reused, so recording stays a map read plus an add.
+@Component
+public class QuizMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, DistributionSummary> questionCounts = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+    public QuizMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    // Controllers turn exceptions into JSON error bodies, so they never reach the http.server.requests
+    // exception tag; this counter keeps them visible by type
+    public void recordError(String endpoint, Throwable error) {
+        String exception = error.getClass().getSimpleName();
+        errors.computeIfAbsent(endpoint + '|' + exception, key -> Counter.builder("quiz.errors")
+                .description("Exceptions handled by the controllers")
+                .tag("endpoint", endpoint)
+                .tag("exception", exception)
+                .register(registry)).increment();
+    }
+
+    public void recordQuestionCount(String endpoint, int count) {
+        questionCounts.computeIfAbsent(endpoint, key -> DistributionSummary.builder("quiz.response.questions")
+                .description("Questions returned per response")
+                .baseUnit("questions")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry)).record(count);
+    }
+}
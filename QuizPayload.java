@@ -0,0 +1,83 @@
+package com.quize.quizproject.service;
+
+// A fully encoded /quiz/getQuizQues response, kept as bytes so cache hits skip both the DB and Jackson
+public class QuizPayload {
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final byte[] smile;
+    private final byte[] cbor;
+    private final String etag;
+    private final boolean cacheable;
+    private final int questionCount;
+
+    public QuizPayload(byte[] json, byte[] gzip, byte[] smile, byte[] cbor, String etag, boolean cacheable, int questionCount) {
+        this.json = json;
+        this.gzip = gzip;
+        this.smile = smile;
+        this.cbor = cbor;
+        this.etag = etag;
+        this.cacheable = cacheable;
+        this.questionCount = questionCount;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    // Null when the payload was too small to be worth compressing
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    // Binary encodings exist only for cacheable payloads; errors are always sent as JSON
+    public byte[] getBody(PayloadFormat format) {
+        switch (format) {
+            case SMILE:
+                return smile;
+            case CBOR:
+                return cbor;
+            default:
+                return json;
+        }
+    }
+
+    public boolean has(PayloadFormat format) {
+        return getBody(format) != null;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    // Each representation needs its own strong validator
+    public String getEtag(PayloadFormat format) {
+        return format == PayloadFormat.JSON ? etag : suffixed(format.name().toLowerCase());
+    }
+
+    // The gzip-encoded JSON body is a different byte sequence from the identity one, so it gets its own too
+    public String getGzipEtag() {
+        return suffixed("gzip");
+    }
+
+    private String suffixed(String suffix) {
+        return etag.substring(0, etag.length() - 1) + "-" + suffix + "\"";
+    }
+
+    // Error responses are encoded the same way but never stored
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    public long sizeInBytes() {
+        return json.length + length(gzip) + length(smile) + length(cbor);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+}
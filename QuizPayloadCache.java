@@ -0,0 +1,244 @@
+package com.quize.quizproject.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.event.QuizChangeEvent;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.view.QuestionView;
+import com.quize.quizproject.view.QuizQuestionsView;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// LRU cache of encoded /quiz/getQuizQues responses per quizId (JSON, gzip, Smile and CBOR), bounded by entry
+// count and total bytes. Entries are dropped when their quiz is rewritten or when any question in it changes.
+// Concurrent misses for one quiz share a single load, so an exam start costs one query and one encode.
+@Component
+public class QuizPayloadCache {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    private static final Logger logger = LogManager.getLogger(QuizPayloadCache.class);
+
+    @Value("${quiz.payload-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${quiz.payload-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${quiz.payload-cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    // How long a miss waits on another request's load of the same quiz before giving up
+    @Value("${quiz.payload-cache.coalesce-timeout-ms:5000}")
+    private long coalesceTimeoutMillis;
+
+    // Access-ordered, so iteration starts at the least recently used quiz
+    private final LinkedHashMap<Integer, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, Set<Integer>> quizzesByQuestion = new HashMap<>();
+    private long totalBytes;
+
+    // Bumped on every invalidation; a load that raced with one is served but not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private final SingleFlight<Integer, QuizPayload> loads = new SingleFlight<>();
+
+    public QuizPayload getOrLoad(Integer quizId, Supplier<JsonNode> loader) throws IOException, TimeoutException {
+        synchronized (this) {
+            CacheEntry entry = entries.get(quizId);
+            if (entry != null) {
+                hits.increment();
+                return entry.payload;
+            }
+        }
+        misses.increment();
+        return loads.execute(quizId, coalesceTimeoutMillis, () -> load(quizId, loader));
+    }
+
+    private QuizPayload load(Integer quizId, Supplier<JsonNode> loader) throws IOException {
+        long loadGeneration = generation.get();
+        JsonNode result = loader.get();
+        // Only a quiz view is kept; error bodies are served once and dropped
+        QuizQuestionsView view = result instanceof POJONode node && node.getPojo() instanceof QuizQuestionsView quiz
+                ? quiz : null;
+        QuizPayload payload = encode(result, view);
+
+        if (view != null) {
+            List<Integer> questionIds = new ArrayList<>(view.questions().size());
+            for (QuestionView question : view.questions()) {
+                questionIds.add(question.questionId());
+            }
+            store(quizId, payload, questionIds, loadGeneration);
+        }
+        return payload;
+    }
+
+    private QuizPayload encode(JsonNode result, QuizQuestionsView view) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(result);
+        String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+        if (view == null) {
+            return new QuizPayload(json, null, null, null, etag, false, 0);
+        }
+
+        byte[] gzip = null;
+        if (json.length >= gzipMinBytes) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(json);
+            }
+            gzip = buffer.toByteArray();
+        }
+        // Encoded once per load, so binary clients are served from the cache like JSON ones
+        byte[] smile = smileConverter.getObjectMapper().writeValueAsBytes(view);
+        byte[] cbor = cborConverter.getObjectMapper().writeValueAsBytes(view);
+        return new QuizPayload(json, gzip, smile, cbor, etag, true, view.questions().size());
+    }
+
+    private synchronized void store(Integer quizId, QuizPayload payload, List<Integer> questionIds, long loadGeneration) {
+        if (generation.get() != loadGeneration || payload.sizeInBytes() > maxBytes) {
+            return;
+        }
+        remove(quizId);
+        entries.put(quizId, new CacheEntry(payload, questionIds));
+        totalBytes += payload.sizeInBytes();
+        for (Integer questionId : questionIds) {
+            quizzesByQuestion.computeIfAbsent(questionId, id -> new HashSet<>()).add(quizId);
+        }
+
+        Iterator<Map.Entry<Integer, CacheEntry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+            Map.Entry<Integer, CacheEntry> victim = eldest.next();
+            eldest.remove();
+            unlink(victim.getKey(), victim.getValue());
+            evictions.increment();
+        }
+    }
+
+    public synchronized void invalidate(Integer quizId) {
+        generation.incrementAndGet();
+        // Requests from now on must not join a load that may have read the old quiz
+        loads.forget(quizId);
+        if (remove(quizId)) {
+            invalidations.increment();
+            logger.debug("Dropped cached payload for quiz {}", quizId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuizChange(QuizChangeEvent event) {
+        invalidate(event.getQuizId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onQuestionChange(QuestionChangeEvent event) {
+        Set<Integer> affected = new HashSet<>();
+        for (Question question : event.getUpserted()) {
+            affected.addAll(quizzesByQuestion.getOrDefault(question.getQuestionId(), Set.of()));
+        }
+        for (Integer questionId : event.getDeletedIds()) {
+            affected.addAll(quizzesByQuestion.getOrDefault(questionId, Set.of()));
+        }
+        for (Integer quizId : affected) {
+            invalidate(quizId);
+        }
+        generation.incrementAndGet();
+        // A load in progress may be for a quiz that is not cached yet, so none of them can be joined any more
+        loads.forgetAll();
+    }
+
+    private boolean remove(Integer quizId) {
+        CacheEntry entry = entries.remove(quizId);
+        if (entry == null) {
+            return false;
+        }
+        unlink(quizId, entry);
+        return true;
+    }
+
+    private void unlink(Integer quizId, CacheEntry entry) {
+        totalBytes -= entry.payload.sizeInBytes();
+        for (Integer questionId : entry.questionIds) {
+            Set<Integer> quizzes = quizzesByQuestion.get(questionId);
+            if (quizzes != null) {
+                quizzes.remove(quizId);
+                if (quizzes.isEmpty()) {
+                    quizzesByQuestion.remove(questionId);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public SingleFlight<Integer, QuizPayload> getLoads() {
+        return loads;
+    }
+
+    private static final class CacheEntry {
+        private final QuizPayload payload;
+        private final List<Integer> questionIds;
+
+        CacheEntry(QuizPayload payload, List<Integer> questionIds) {
+            this.payload = payload;
+            this.questionIds = questionIds;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Keeps ready-made question id lists per (category, numQ) so createQuiz can claim one in O(1) instead of
+// sampling inside the request. A background task refills each pool towards a depth that follows how fast
+// it is being drained. Pools only exist for categories that have questions and a bounded numQ, at most
+// max-pools of them, and one nobody claims from for idle-evict-seconds is dropped.
+@Component
+public class QuizPool {
+
+    @Autowired
+    private QuestionSampler questionSampler;
+
+    private static final Logger logger = LogManager.getLogger(QuizPool.class);
+
+    @Value("${quiz.pool.enabled:true}")
+    private boolean enabled;
+
+    // Pools to keep warm from startup, as category:numQ pairs, e.g. "java:10,python:20"
+    @Value("${quiz.pool.warm:}")
+    private String warm;
+
+    @Value("${quiz.pool.min-depth:5}")
+    private int minDepth;
+
+    @Value("${quiz.pool.max-depth:200}")
+    private int maxDepth;
+
+    // Target depth covers this many seconds of claims at the current claim rate
+    @Value("${quiz.pool.refill-horizon-seconds:30}")
+    private int refillHorizonSeconds;
+
+    @Value("${quiz.pool.max-refill-per-tick:100}")
+    private int maxRefillPerTick;
+
+    // Larger quizzes are sampled inline; each pool is a gauge per tag pair, so the key space stays bounded
+    @Value("${quiz.pool.max-num-q:50}")
+    private int maxNumQ;
+
+    @Value("${quiz.pool.max-pools:100}")
+    private int maxPools;
+
+    // Warm pools are never evicted
+    @Value("${quiz.pool.idle-evict-seconds:600}")
+    private int idleEvictSeconds;
+
+    private final Map<PoolKey, Pool> pools = new ConcurrentHashMap<>();
+
+    // Pools an event drained in onQuestionChange, to drain again in afterSamplerChange. Keyed by identity:
+    // both listeners get the same event instance.
+    private final Map<QuestionChangeEvent, List<Pool>> pendingDrains =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    @PostConstruct
+    public void registerWarmPools() {
+        if (warm == null || warm.isBlank()) {
+            return;
+        }
+        for (String entry : warm.split(",")) {
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0) {
+                logger.warn("Ignoring quiz pool entry '{}', expected category:numQ", entry);
+                continue;
+            }
+            PoolKey key = new PoolKey(QuestionSampler.categoryKey(entry.substring(0, separator).trim()), Integer.parseInt(entry.substring(separator + 1).trim()));
+            pools.computeIfAbsent(key, k -> new Pool(true));
+        }
+    }
+
+    // Returns a pre-sampled id list, or null when the pool is empty (or pooling is off).
+    // An unknown key gets a pool registered so the refiller starts serving it, but only when the category has
+    // at least numQ questions, numQ is within max-num-q and fewer than max-pools exist; any other request
+    // samples inline as if its pool were empty.
+    public List<Integer> claim(String category, int numQ) {
+        if (!enabled) {
+            return null;
+        }
+        // Spellings that sample the same questions share one pool
+        PoolKey key = new PoolKey(QuestionSampler.categoryKey(category), numQ);
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            if (numQ <= 0 || numQ > maxNumQ || questionSampler.categorySize(category) < numQ) {
+                return null;
+            }
+            synchronized (pools) {
+                pool = pools.get(key);
+                if (pool == null) {
+                    if (pools.size() >= maxPools) {
+                        return null;
+                    }
+                    pool = new Pool(false);
+                    pools.put(key, pool);
+                }
+            }
+        }
+        pool.lastClaimNanos = System.nanoTime();
+        pool.claims.increment();
+        List<Integer> ids = pool.ready.poll();
+        if (ids == null) {
+            pool.misses.increment();
+            pool.markEmpty();
+            return null;
+        }
+        pool.depth.decrementAndGet();
+        return ids;
+    }
+
+    @Scheduled(fixedDelayString = "${quiz.pool.refill-interval-ms:1000}")
+    public void refill() {
+        if (!enabled || !questionSampler.isLoaded()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.SECONDS.toNanos(idleEvictSeconds);
+        for (Map.Entry<PoolKey, Pool> entry : pools.entrySet()) {
+            PoolKey key = entry.getKey();
+            Pool pool = entry.getValue();
+            if (!pool.warm && now - pool.lastClaimNanos > idleNanos) {
+                pools.remove(key, pool);
+                logger.debug("Evicted idle quiz pool {}:{}", key.category(), key.numQ());
+                continue;
+            }
+            pool.updateRate(now);
+
+            // Read before sampling: a list sampled from questions a write has since changed is dropped, not
+            // queued behind the drain
+            long generation = pool.generation;
+            int target = pool.targetDepth(minDepth, maxDepth, refillHorizonSeconds);
+            int added = 0;
+            while (pool.depth.get() < target && added < maxRefillPerTick) {
+                List<Integer> ids = questionSampler.sampleIds(key.category(), key.numQ());
+                if (ids.isEmpty()) {
+                    break; // category has no questions (any more)
+                }
+                if (!pool.offer(ids, generation)) {
+                    break;
+                }
+                added++;
+            }
+            if (added > 0) {
+                pool.markRefilled(System.nanoTime());
+            }
+        }
+    }
+
+    // Pooled lists may hold deleted or re-categorised questions, so pools of a category a write touched start
+    // over: the category of every written question, and the one each written or deleted question had before.
+    // Ordered ahead of QuestionSampler's listener, so categoryOf still answers with the previous category.
+    // The pools are drained again once the sampler has the write, in afterSamplerChange.
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onQuestionChange(QuestionChangeEvent event) {
+        if (pools.isEmpty()) {
+            return;
+        }
+        Set<String> categories = new HashSet<>();
+        for (Question question : event.getUpserted()) {
+            categories.add(QuestionSampler.categoryKey(question.getCategory()));
+            if (question.getQuestionId() != null) {
+                categories.add(questionSampler.categoryOf(question.getQuestionId()));
+            }
+        }
+        for (Integer questionId : event.getDeletedIds()) {
+            categories.add(questionSampler.categoryOf(questionId));
+        }
+        List<Pool> touched = new ArrayList<>();
+        for (Map.Entry<PoolKey, Pool> entry : pools.entrySet()) {
+            if (categories.contains(entry.getKey().category())) {
+                entry.getValue().drain();
+                touched.add(entry.getValue());
+            }
+        }
+        if (!touched.isEmpty()) {
+            pendingDrains.put(event, touched);
+        }
+    }
+
+    // After QuestionSampler's listener: anything a refill sampled before the sampler had the write is gone
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 2)
+    public void afterSamplerChange(QuestionChangeEvent event) {
+        List<Pool> touched = pendingDrains.remove(event);
+        if (touched == null) {
+            return;
+        }
+        for (Pool pool : touched) {
+            pool.drain();
+        }
+    }
+
+    public List<PoolStats> stats() {
+        List<PoolStats> stats = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Map.Entry<PoolKey, Pool> entry : pools.entrySet()) {
+            Pool pool = entry.getValue();
+            stats.add(new PoolStats(entry.getKey().category(), entry.getKey().numQ(), pool.depth.get(),
+                    pool.targetDepth(minDepth, maxDepth, refillHorizonSeconds), pool.claims.sum(), pool.misses.sum(),
+                    pool.claimRate, pool.refillLagMillis(now)));
+        }
+        return stats;
+    }
+
+    private record PoolKey(String category, int numQ) {
+    }
+
+    private static final class Pool {
+        private static final double RATE_SMOOTHING = 0.3;
+
+        private final ConcurrentLinkedQueue<List<Integer>> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        // Bumped by every drain, under the pool's lock; a refill only offers lists sampled in the same generation
+        private volatile long generation;
+        private final LongAdder claims = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final boolean warm;
+        private volatile long lastClaimNanos = System.nanoTime();
+
+        // Only touched by the refill task
+        private long lastClaims;
+        private long lastRateNanos = System.nanoTime();
+        private volatile double claimRate;
+
+        // Set when a claim found the pool empty, cleared once the refiller catches up
+        private volatile long emptySinceNanos;
+        private volatile long lastRefillLagNanos;
+
+        Pool(boolean warm) {
+            this.warm = warm;
+        }
+
+        void updateRate(long now) {
+            long total = claims.sum();
+            double seconds = (now - lastRateNanos) / 1_000_000_000.0;
+            if (seconds > 0) {
+                double instant = (total - lastClaims) / seconds;
+                claimRate = RATE_SMOOTHING * instant + (1 - RATE_SMOOTHING) * claimRate;
+            }
+            lastClaims = total;
+            lastRateNanos = now;
+        }
+
+        int targetDepth(int minDepth, int maxDepth, int horizonSeconds) {
+            int wanted = (int) Math.ceil(claimRate * horizonSeconds);
+            return Math.max(minDepth, Math.min(maxDepth, wanted));
+        }
+
+        void markEmpty() {
+            if (emptySinceNanos == 0) {
+                emptySinceNanos = System.nanoTime();
+            }
+        }
+
+        void markRefilled(long now) {
+            long since = emptySinceNanos;
+            if (since != 0) {
+                lastRefillLagNanos = now - since;
+                emptySinceNanos = 0;
+            }
+        }
+
+        // Current lag while the pool is starved, otherwise how long the last starvation lasted
+        long refillLagMillis(long now) {
+            long since = emptySinceNanos;
+            return (since != 0 ? now - since : lastRefillLagNanos) / 1_000_000;
+        }
+
+        synchronized boolean offer(List<Integer> ids, long sampledGeneration) {
+            if (generation != sampledGeneration) {
+                return false;
+            }
+            ready.offer(ids);
+            depth.incrementAndGet();
+            return true;
+        }
+
+        synchronized void drain() {
+            generation++;
+            while (ready.poll() != null) {
+                depth.decrementAndGet();
+            }
+        }
+    }
+
+    public static class PoolStats {
+        private final String category;
+        private final int numQ;
+        private final int depth;
+        private final int targetDepth;
+        private final long claims;
+        private final long misses;
+        private final double claimRate;
+        private final long refillLagMillis;
+
+        PoolStats(String category, int numQ, int depth, int targetDepth, long claims, long misses,
+                  double claimRate, long refillLagMillis) {
+            this.category = category;
+            this.numQ = numQ;
+            this.depth = depth;
+            this.targetDepth = targetDepth;
+            this.claims = claims;
+            this.misses = misses;
+            this.claimRate = claimRate;
+            this.refillLagMillis = refillLagMillis;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public int getNumQ() {
+            return numQ;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getTargetDepth() {
+            return targetDepth;
+        }
+
+        public long getClaims() {
+            return claims;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getClaimRate() {
+            return claimRate;
+        }
+
+        public long getRefillLagMillis() {
+            return refillLagMillis;
+        }
+    }
+}
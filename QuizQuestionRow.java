@@ -0,0 +1,24 @@
+package com.quize.quizproject.repository;
+
+// One row of a quiz joined to one of its questions. Only what clients are shown: no right answer.
+// The question columns are null for a quiz that has no questions.
+public interface QuizQuestionRow {
+
+    Integer getQuizId();
+
+    String getTitle();
+
+    Integer getQuestionId();
+
+    String getCategory();
+
+    String getQuestionTitle();
+
+    String getOption1();
+
+    String getOption2();
+
+    String getOption3();
+
+    String getOption4();
+}
@@ -0,0 +1,7 @@
+package com.quize.quizproject.view;
+
+import java.util.List;
+
+// Body of /quiz/getQuizQues: the quiz header and its questions, without answers
+public record QuizQuestionsView(Integer quizId, String title, List<QuestionView> questions) {
+}
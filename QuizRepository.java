@@ -2,8 +2,26 @@ package com.quize.quizproject.repository;
 
 import com.quize.quizproject.model.Quiz;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface QuizRepository extends JpaRepository<Quiz,Integer> {
+
+    // Quiz header and question columns in one round-trip, instead of a quiz select followed by a lazy
+    // join-table select that also drags in right_ans
+    @Query("SELECT q.quizId AS quizId, q.title AS title, ques.questionId AS questionId, ques.category AS category, "
+            + "ques.questionTitle AS questionTitle, ques.option1 AS option1, ques.option2 AS option2, "
+            + "ques.option3 AS option3, ques.option4 AS option4 "
+            + "FROM Quiz q LEFT JOIN q.questionList ques WHERE q.quizId = :quizId ORDER BY ques.questionId")
+    List<QuizQuestionRow> findQuizQuestionRows(@Param("quizId") Integer quizId);
+
+    // Everything grading needs from a quiz's question list, in question id order. No rows means no such quiz.
+    @Query("SELECT ques.questionId AS questionId, ques.option1 AS option1, ques.option2 AS option2, "
+            + "ques.option3 AS option3, ques.option4 AS option4, ques.rightAns AS rightAns "
+            + "FROM Quiz q LEFT JOIN q.questionList ques WHERE q.quizId = :quizId ORDER BY ques.questionId")
+    List<AnswerSheetRow> findAnswerSheetRows(@Param("quizId") Integer quizId);
 }
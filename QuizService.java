@@ -4,20 +4,30 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quize.quizproject.config.DatabaseConcurrencyGuard.DatabaseBusyException;
+import com.quize.quizproject.event.QuizChangeEvent;
 import com.quize.quizproject.model.Question;
 import com.quize.quizproject.model.Quiz;
 import com.quize.quizproject.repository.QuestionRepository;
+import com.quize.quizproject.repository.QuizQuestionRow;
 import com.quize.quizproject.repository.QuizRepository;
+import com.quize.quizproject.view.QuestionView;
+import com.quize.quizproject.view.QuizQuestionsView;
 import jakarta.transaction.Transactional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,8 +39,35 @@ public class QuizService {
     @Autowired
     private QuestionRepository questionRepository;
 
+    @Autowired
+    private AnswerKeyIndex answerKeyIndex;
+
+    @Autowired
+    private QuestionSampler questionSampler;
+
+    @Autowired
+    private QuizPool quizPool;
+
+    @Autowired
+    private SubmissionGrader submissionGrader;
+
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
+
+    @Autowired
+    private QuizLeaderboards quizLeaderboards;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Upper bound on the leaderboard page size
+    @Value("${quiz.leaderboard.max-limit:100}")
+    private int leaderboardMaxLimit;
+
     private static final Logger logger = LogManager.getLogger(QuestionService.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
 
 
 
@@ -47,8 +84,26 @@ public class QuizService {
             Integer numQ = jsonNode.get("numQ").asInt();
             String title = jsonNode.get("title").asText();
 
-            // Fetch random questions based on category and count
-            List<Question> questionList = questionRepository.findRandomQuestionByCategory(category, numQ);
+            // Optional difficulty mix, e.g. {"easy": 50, "medium": 30, "hard": 20}; weights need not add up to 100
+            Map<String, Integer> difficultyCounts = jsonNode.has("difficulty") && !jsonNode.get("difficulty").isNull()
+                    ? QuestionSampler.allocate(numQ, difficultyWeights(jsonNode.get("difficulty")))
+                    : null;
+
+            // Claim a pre-sampled question set from the warm pool, sampling inline only when it is empty.
+            // Pools are per (category, numQ) only, so a difficulty mix is always sampled inline.
+            List<Question> questionList = null;
+            List<Integer> pooledIds = difficultyCounts == null ? quizPool.claim(category, numQ) : null;
+            if (pooledIds != null) {
+                questionList = questionSampler.fetchInOrder(pooledIds);
+                if (questionList.size() < pooledIds.size()) {
+                    questionList = null; // a pooled question has been deleted since it was sampled
+                }
+            }
+            if (questionList == null) {
+                questionList = difficultyCounts != null
+                        ? questionSampler.sampleMixedQuestions(category, difficultyCounts)
+                        : questionSampler.sampleQuestions(category, numQ);
+            }
             if (questionList.isEmpty()) {
                 throw new IllegalArgumentException("No questions found for the specified category and count.");
             }
@@ -68,12 +123,13 @@ public class QuizService {
             // Set quiz fields
             quiz.setTitle(title);
 
-            // Set the actual list of Question objects
-            quiz.setQuestionList(questionList); // Store the full list of Question objects
+            // Bring the quiz's questions in line with the new sample, touching only the rows that differ
+            int[] changes = applyQuestionList(quiz, questionList);
 
             // Save the quiz to the database
             Quiz savedQuiz = quizRepository.save(quiz);
             logger.info("Quiz saved successfully with ID: {}", savedQuiz.getQuizId());
+            eventPublisher.publishEvent(new QuizChangeEvent(savedQuiz.getQuizId()));
 
             // Prepare the response
             ObjectNode response = objectMapper.createObjectNode();
@@ -85,6 +141,24 @@ public class QuizService {
                     .map(Question::getQuestionId)
                     .collect(Collectors.toList());
             response.set("questionIds", objectMapper.convertValue(questionIds, JsonNode.class));
+            response.put("added", changes[0]);
+            response.put("removed", changes[1]);
+            if (difficultyCounts != null) {
+                // What was actually drawn per level; short when a level has fewer questions than asked for
+                Map<String, Integer> drawn = new LinkedHashMap<>();
+                for (String difficulty : difficultyCounts.keySet()) {
+                    drawn.put(difficulty, 0);
+                }
+                for (Question question : questionList) {
+                    for (String difficulty : difficultyCounts.keySet()) {
+                        if (difficulty.equalsIgnoreCase(question.getDifficultyLevel())) {
+                            drawn.merge(difficulty, 1, Integer::sum);
+                            break;
+                        }
+                    }
+                }
+                response.putPOJO("difficultyMix", drawn);
+            }
 
             return response;
         } catch (IllegalArgumentException e) {
@@ -96,47 +170,171 @@ public class QuizService {
         }
     }
 
+    private Map<String, Double> difficultyWeights(JsonNode difficulty) {
+        if (!difficulty.isObject() || difficulty.isEmpty()) {
+            throw new IllegalArgumentException("'difficulty' must map difficulty levels to weights.");
+        }
+        Map<String, Double> weights = new LinkedHashMap<>();
+        double total = 0;
+        for (Map.Entry<String, JsonNode> entry : difficulty.properties()) {
+            if (!entry.getValue().isNumber() || entry.getValue().asDouble() < 0) {
+                throw new IllegalArgumentException("Difficulty weight for '" + entry.getKey() + "' must be a non-negative number.");
+            }
+            weights.put(entry.getKey(), entry.getValue().asDouble());
+            total += entry.getValue().asDouble();
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Difficulty weights must not all be zero.");
+        }
+        return weights;
+    }
+
+    // Swaps some of a quiz's questions for fresh ones without rewriting the rest. Either 'count' random
+    // questions or the listed 'questionIds' are replaced, each by a question from the same category
+    // (or from 'category' when given) that is not already in the quiz.
     @Transactional
-    public JsonNode getQuizQuestion(Integer quizId) {
+    public JsonNode replaceQuestions(JsonNode jsonNode) {
         try {
-            // Fetch the quiz by quizId
-            Quiz quiz = quizRepository.findById(quizId).orElse(null);
+            // Validate input
+            if (!jsonNode.has("quizId") || (!jsonNode.has("count") && !jsonNode.has("questionIds"))) {
+                throw new IllegalArgumentException("Fields 'quizId' and either 'count' or 'questionIds' are required.");
+            }
 
+            Integer quizId = jsonNode.get("quizId").asInt();
+            Quiz quiz = quizRepository.findById(quizId).orElse(null);
             if (quiz == null) {
-                // If quiz is not found, return an error message
                 logger.error("Quiz with ID {} not found", quizId);
                 return objectMapper.createObjectNode().put("error", "Quiz not found");
             }
 
-            // Fetch the associated questions from the quiz
-            List<Question> questionList = quiz.getQuestionList();
+            // Pick the questions to swap out
+            Set<Question> current = quiz.getQuestionList();
+            List<Question> outgoing = new ArrayList<>();
+            if (jsonNode.has("questionIds")) {
+                Set<Integer> requestedIds = new HashSet<>();
+                for (JsonNode idNode : jsonNode.get("questionIds")) {
+                    requestedIds.add(idNode.asInt());
+                }
+                for (Question question : current) {
+                    if (requestedIds.contains(question.getQuestionId())) {
+                        outgoing.add(question);
+                    }
+                }
+                if (outgoing.size() != requestedIds.size()) {
+                    throw new IllegalArgumentException("Some questionIds are not part of the quiz.");
+                }
+            } else {
+                int count = jsonNode.get("count").asInt();
+                if (count <= 0) {
+                    throw new IllegalArgumentException("count must be a positive number.");
+                }
+                outgoing.addAll(current);
+                Collections.shuffle(outgoing);
+                outgoing = new ArrayList<>(outgoing.subList(0, Math.min(count, outgoing.size())));
+            }
+
+            // Draw replacements per category, never picking something the quiz already has
+            String categoryOverride = jsonNode.has("category") ? jsonNode.get("category").asText() : null;
+            Map<String, Integer> neededByCategory = new LinkedHashMap<>();
+            for (Question question : outgoing) {
+                neededByCategory.merge(categoryOverride != null ? categoryOverride : question.getCategory(), 1, Integer::sum);
+            }
+            Set<Integer> excludedIds = new HashSet<>();
+            for (Question question : current) {
+                excludedIds.add(question.getQuestionId());
+            }
+            List<Question> incoming = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : neededByCategory.entrySet()) {
+                List<Question> sampled = questionSampler.sampleQuestions(entry.getKey(), entry.getValue(), excludedIds);
+                for (Question question : sampled) {
+                    excludedIds.add(question.getQuestionId());
+                }
+                incoming.addAll(sampled);
+            }
+            if (incoming.isEmpty()) {
+                throw new IllegalArgumentException("No replacement questions available for the quiz.");
+            }
+
+            // Only swap out as many questions as we found replacements for
+            List<Question> removed = outgoing.subList(0, Math.min(outgoing.size(), incoming.size()));
+            removed.forEach(current::remove);
+            current.addAll(incoming);
+
+            Quiz savedQuiz = quizRepository.save(quiz);
+            logger.info("Replaced {} questions in quiz {}", incoming.size(), quizId);
+            eventPublisher.publishEvent(new QuizChangeEvent(savedQuiz.getQuizId()));
 
             // Prepare the response
             ObjectNode response = objectMapper.createObjectNode();
-            response.put("quizId", quiz.getQuizId());
-            response.put("title", quiz.getTitle());
+            response.put("quizId", savedQuiz.getQuizId());
+            response.put("title", savedQuiz.getTitle());
+            response.set("removedQuestionIds", objectMapper.convertValue(
+                    removed.stream().map(Question::getQuestionId).collect(Collectors.toList()), JsonNode.class));
+            response.set("addedQuestionIds", objectMapper.convertValue(
+                    incoming.stream().map(Question::getQuestionId).collect(Collectors.toList()), JsonNode.class));
+            response.set("questionIds", objectMapper.convertValue(
+                    current.stream().map(Question::getQuestionId).collect(Collectors.toList()), JsonNode.class));
+            return response;
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid input format: {}", e.getMessage(), e);
+            return objectMapper.createObjectNode().put("error", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error replacing quiz questions: {}", e.getMessage(), e);
+            return objectMapper.createObjectNode().put("error", "Error processing quiz data");
+        }
+    }
 
-            // Prepare the list of question details
-            ArrayNode questionsNode = objectMapper.createArrayNode();
-            for (int i = 0; i < questionList.size(); i++) {
-                Question question = questionList.get(i);
-                ObjectNode questionNode = objectMapper.createObjectNode();
-                questionNode.put("questionId", question.getQuestionId());
-                questionNode.put("category", question.getCategory());
-                questionNode.put("questionTitle", question.getQuestionTitle());
-                questionNode.put("option1", question.getOption1());
-                questionNode.put("option2", question.getOption2());
-                questionNode.put("option3", question.getOption3());
-                questionNode.put("option4", question.getOption4());
+    // Makes the quiz hold exactly the given questions by removing and adding only the difference, so
+    // Hibernate issues single-row deletes and inserts on quiz_question. Returns {added, removed}.
+    private int[] applyQuestionList(Quiz quiz, List<Question> questionList) {
+        Set<Integer> wantedIds = new HashSet<>();
+        for (Question question : questionList) {
+            wantedIds.add(question.getQuestionId());
+        }
+
+        Set<Question> current = quiz.getQuestionList();
+        int before = current.size();
+        current.removeIf(question -> !wantedIds.contains(question.getQuestionId()));
+        int removed = before - current.size();
 
-                // Add the question node to the questions array
-                questionsNode.add(questionNode);
+        Set<Integer> presentIds = new HashSet<>();
+        for (Question question : current) {
+            presentIds.add(question.getQuestionId());
+        }
+        int added = 0;
+        for (Question question : questionList) {
+            if (presentIds.add(question.getQuestionId())) {
+                current.add(question);
+                added++;
             }
+        }
+        return new int[]{added, removed};
+    }
 
-            response.set("questions", questionsNode);
+    @Transactional
+    public JsonNode getQuizQuestion(Integer quizId) {
+        try {
+            // Fetch the quiz and its questions (without answers) in a single query
+            List<QuizQuestionRow> rows = quizRepository.findQuizQuestionRows(quizId);
 
-            // Return the response with quiz and associated questions
-            return response;
+            if (rows.isEmpty()) {
+                // If quiz is not found, return an error message
+                logger.error("Quiz with ID {} not found", quizId);
+                return objectMapper.createObjectNode().put("error", "Quiz not found");
+            }
+
+            // Prepare the list of question details
+            List<QuestionView> questions = new ArrayList<>(rows.size());
+            for (QuizQuestionRow row : rows) {
+                if (row.getQuestionId() == null) {
+                    continue; // quiz without questions comes back as a single header row
+                }
+                questions.add(QuestionView.from(row));
+            }
+
+            // Public view only, so answers never reach the client; Jackson writes it without an intermediate tree
+            QuizQuestionsView view = new QuizQuestionsView(rows.get(0).getQuizId(), rows.get(0).getTitle(), questions);
+            return objectMapper.getNodeFactory().pojoNode(view);
 
         } catch (Exception e) {
             logger.error("Error retrieving quiz questions for quizId {}: {}", quizId, e.getMessage(), e);
@@ -145,55 +343,170 @@ public class QuizService {
     }
 
 
-    @Transactional
+    // No transaction: grading is served from memory, and a miss opens its own read through the repository
     public JsonNode processUserQuizSubmission(JsonNode jsonObject) {
         try {
-            // Parse submitted answers
-            List<Integer> questionIds = new ArrayList<>();
-            Map<Integer, String> userResponses = new HashMap<>();
-
-            for (JsonNode node : jsonObject) {
-                int questionId = node.get("questionId").asInt();
-                String response = node.get("response").asText(); // Convert all responses to String
-                questionIds.add(questionId);
-                userResponses.put(questionId, response);
-            }
-
-            // Fetch correct answers from the repository
-            List<Object[]> results = questionRepository.findCorrectAnswersByQuestionIds(questionIds);
-
-            // Map correct answers
-            Map<Integer, String> correctAnswers = new HashMap<>();
-            for (Object[] row : results) {
-                Integer questionId = (Integer) row[0];
-                String correctAnswer = (String) row[1];
-                correctAnswers.put(questionId, correctAnswer);
-            }
-
-            // Compare user responses with correct answers
-            int correctCount = 0;
-            for (Map.Entry<Integer, String> entry : userResponses.entrySet()) {
-                String userResponse = entry.getValue();
-                String correctAnswer = correctAnswers.get(entry.getKey());
-                if (userResponse != null && userResponse.equals(correctAnswer)) {
-                    correctCount++;
-                }
-            }
+            // Parse submitted answers and grade them against the resident answer key
+            Submission submission = Submission.fromJson(jsonObject);
+            GradeResult result = submissionGrader.grade(submission);
+            quizLeaderboards.record(submission, result);
 
             // Create response JSON
             ObjectNode response = objectMapper.createObjectNode();
-            response.put("totalQuestions", questionIds.size());
-            response.put("correctAnswers", correctCount);
-            response.put("incorrectAnswers", questionIds.size() - correctCount);
+            response.put("totalQuestions", result.getTotalQuestions());
+            response.put("correctAnswers", result.getCorrectAnswers());
+            response.put("incorrectAnswers", result.getIncorrectAnswers());
+            if (submission.getQuizId() != null && submission.getUserId() != null) {
+                QuizLeaderboard.Standing standing = quizLeaderboards.get(submission.getQuizId())
+                        .standingOf(submission.getUserId());
+                response.put("rank", standing.rank());
+                response.put("bestScore", standing.entry().correctAnswers());
+            }
 
             return response;
 
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected quiz submission: {}", e.getMessage());
+            return objectMapper.createObjectNode().put("status", "error").put("message", e.getMessage());
+        } catch (DatabaseBusyException e) {
+            // A key or sheet miss found no database capacity; the controller answers 503 with Retry-After
+            throw e;
         } catch (Exception e) {
             logger.error("Error processing quiz submission: {}", e.getMessage(), e);
             return objectMapper.createObjectNode().put("error", "Error processing quiz submission");
         }
     }
 
+    // Queues the submission for background grading and answers with its attempt id right away.
+    // status is "rejected" when the pipeline queue is full.
+    public JsonNode submitQuizAsync(JsonNode jsonObject) {
+        try {
+            Submission submission = Submission.fromJson(jsonObject);
+            // Checked now, so the client hears about an unknown quiz or question instead of a silent zero
+            submissionGrader.validate(submission);
+            String attemptId = submissionPipeline.submit(submission);
+            if (attemptId == null) {
+                logger.warn("Submission queue full, rejecting submission");
+                return objectMapper.createObjectNode()
+                        .put("status", "rejected")
+                        .put("message", "Too many submissions in progress, please retry shortly.");
+            }
+            return objectMapper.createObjectNode()
+                    .put("status", "QUEUED")
+                    .put("attemptId", attemptId);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected quiz submission: {}", e.getMessage());
+            return objectMapper.createObjectNode().put("status", "error").put("message", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return objectMapper.createObjectNode().put("error", "Error processing quiz submission");
+        } catch (DatabaseBusyException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error queueing quiz submission: {}", e.getMessage(), e);
+            return objectMapper.createObjectNode().put("error", "Error processing quiz submission");
+        }
+    }
+
+    public JsonNode getAttempt(String attemptId) {
+        SubmissionPipeline.AttemptStatus attempt = submissionPipeline.getAttempt(attemptId);
+        if (attempt == null) {
+            return objectMapper.createObjectNode().put("error", "Attempt not found");
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("attemptId", attempt.getAttemptId());
+        response.put("status", attempt.getStatus());
+        GradeResult result = attempt.getResult();
+        if (result != null) {
+            response.put("totalQuestions", result.getTotalQuestions());
+            response.put("correctAnswers", result.getCorrectAnswers());
+            response.put("incorrectAnswers", result.getIncorrectAnswers());
+        }
+        return response;
+    }
+
+    // The top of a quiz's leaderboard, plus the given user's own standing when userId is set
+    public JsonNode getLeaderboard(Integer quizId, int limit, String userId) {
+        QuizLeaderboard board = quizLeaderboards.get(quizId);
+        ArrayNode top = objectMapper.createArrayNode();
+        if (board != null) {
+            for (QuizLeaderboard.Standing standing : board.top(Math.min(limit, leaderboardMaxLimit))) {
+                top.add(standingNode(standing));
+            }
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("status", "success");
+        response.put("quizId", quizId);
+        response.put("participants", board != null ? board.size() : 0);
+        response.set("top", top);
+        if (userId != null) {
+            QuizLeaderboard.Standing standing = board != null ? board.standingOf(userId) : null;
+            if (standing != null) {
+                response.set("user", standingNode(standing));
+            } else {
+                response.putNull("user");
+            }
+        }
+        return response;
+    }
+
+    private ObjectNode standingNode(QuizLeaderboard.Standing standing) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("rank", standing.rank());
+        node.put("userId", standing.entry().userId());
+        node.put("correctAnswers", standing.entry().correctAnswers());
+        node.put("totalQuestions", standing.entry().totalQuestions());
+        node.put("achievedAt", standing.entry().achievedAtMillis());
+        return node;
+    }
+
+    public JsonNode getSubmissionStats() {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("status", "success");
+        response.put("workers", submissionPipeline.getWorkerCount());
+        response.put("queueDepth", submissionPipeline.getQueueDepth());
+        response.put("queueCapacity", submissionPipeline.getQueueCapacity());
+        response.put("accepted", submissionPipeline.getAccepted());
+        response.put("rejected", submissionPipeline.getRejected());
+        response.put("persisted", submissionPipeline.getPersisted());
+        response.put("failed", submissionPipeline.getFailed());
+        response.put("batches", submissionPipeline.getBatches());
+        response.put("writeRetries", submissionPipeline.getRetries());
+        return response;
+    }
+
+    public JsonNode getPoolStats() {
+        ArrayNode pools = objectMapper.createArrayNode();
+        for (QuizPool.PoolStats stats : quizPool.stats()) {
+            ObjectNode poolNode = objectMapper.createObjectNode();
+            poolNode.put("category", stats.getCategory());
+            poolNode.put("numQ", stats.getNumQ());
+            poolNode.put("depth", stats.getDepth());
+            poolNode.put("targetDepth", stats.getTargetDepth());
+            poolNode.put("claims", stats.getClaims());
+            poolNode.put("misses", stats.getMisses());
+            poolNode.put("claimsPerSecond", stats.getClaimRate());
+            poolNode.put("refillLagMillis", stats.getRefillLagMillis());
+            pools.add(poolNode);
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("status", "success");
+        response.set("pools", pools);
+        return response;
+    }
+
+    public JsonNode getAnswerKeyStats() {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("status", "success");
+        response.put("loaded", answerKeyIndex.isLoaded());
+        response.put("size", answerKeyIndex.size());
+        response.put("hits", answerKeyIndex.getHits());
+        response.put("misses", answerKeyIndex.getMisses());
+        response.put("refreshes", answerKeyIndex.getRefreshes());
+        response.put("lastRefreshMillis", answerKeyIndex.getLastRefreshMillis());
+        return response;
+    }
+
 
 
 }
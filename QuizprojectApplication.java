@@ -3,11 +3,19 @@ package com.quize.quizproject;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Map;
+
 @SpringBootApplication
 public class QuizprojectApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(QuizprojectApplication.class, args);
+		SpringApplication application = new SpringApplication(QuizprojectApplication.class);
+		// Defaults only: anything in application.properties or the environment still wins
+		application.setDefaultProperties(Map.of(
+				"management.endpoints.web.exposure.include", "health,metrics,prometheus",
+				"management.metrics.distribution.percentiles-histogram.http.server.requests", "true",
+				"management.metrics.tags.application", "quizproject"));
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,58 @@
+package com.quize.quizproject.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Times every Spring Data repository call as quiz.repository.query{repository, method}, including the
+// inherited JpaRepository methods. Timers are cached per (proxy class, method).
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private static final String REPOSITORY_PACKAGE = "com.quize.quizproject.repository";
+
+    private final QuizMetrics quizMetrics;
+    private final Map<Class<?>, Map<Method, Timer>> timers = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(QuizMetrics quizMetrics) {
+        this.quizMetrics = quizMetrics;
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> proxyClass = joinPoint.getThis().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = timers.computeIfAbsent(proxyClass, c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, m -> Timer.builder("quiz.repository.query")
+                        .description("Repository call latency")
+                        .tag("repository", repositoryName(proxyClass))
+                        .tag("method", m.getName())
+                        .publishPercentileHistogram()
+                        .register(quizMetrics.getRegistry()));
+
+        Timer.Sample sample = Timer.start(quizMetrics.getRegistry());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            sample.stop(timer);
+        }
+    }
+
+    // The proxy implements our repository interface alongside Spring's own; that is the name we want
+    private static String repositoryName(Class<?> proxyClass) {
+        for (Class<?> candidate : proxyClass.getInterfaces()) {
+            if (candidate.getName().startsWith(REPOSITORY_PACKAGE)) {
+                return candidate.getSimpleName();
+            }
+        }
+        return proxyClass.getSimpleName();
+    }
+}
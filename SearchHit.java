@@ -0,0 +1,5 @@
+package com.quize.quizproject.view;
+
+// One /question/search result with its relevance score, best first
+public record SearchHit(double score, AdminQuestionView question) {
+}
@@ -0,0 +1,107 @@
+package com.quize.quizproject.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Collapses concurrent calls for the same key into one computation. The first caller runs the loader on
+// its own thread; callers arriving while it runs wait for that result, or its exception, instead of
+// repeating the work. Nothing is kept once the computation ends, so this only merges calls that overlap.
+public class SingleFlight<K, V> {
+
+    @FunctionalInterface
+    public interface Loader<V, E extends Exception> {
+        V load() throws E;
+    }
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    // The loader's own call is not bounded by timeoutMillis; only callers waiting on it give up after that
+    // long, with a TimeoutException, while the computation carries on for everyone else.
+    public <E extends Exception> V execute(K key, long timeoutMillis, Loader<V, E> loader)
+            throws E, TimeoutException {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            return await(running, timeoutMillis);
+        }
+
+        executions.increment();
+        V value;
+        try {
+            value = loader.load();
+        } catch (Throwable e) {
+            failures.increment();
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        // Unlisted before it completes, so a caller arriving after the load finished starts a new one
+        // rather than being handed a result computed before it asked
+        inFlight.remove(key, flight);
+        flight.complete(value);
+        return value;
+    }
+
+    // Callers arriving after this start a fresh computation; ones already waiting still get the old result.
+    // For when the data behind a key has changed while it was being loaded.
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Exception> V await(CompletableFuture<V> running, long timeoutMillis) throws E, TimeoutException {
+        try {
+            return running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new TimeoutException("Gave up after " + timeoutMillis + " ms waiting for an identical request");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for an identical request", e);
+        } catch (ExecutionException e) {
+            // Every waiter sees the loader's own exception, as if it had run the loader itself
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw (E) cause;
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+}
@@ -0,0 +1,116 @@
+package com.quize.quizproject.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// A parsed quiz submission. Answers are kept per distinct question (the last response for a question
+// wins), while totalQuestions counts every submitted element, as the original grading loop did.
+// quizId and userId are optional; only submissions with both are ranked on the quiz leaderboard. With a
+// quizId an answer may pick {"option": 1-4} instead of sending the option text as its response.
+public class Submission {
+
+    // Mirrors quiz_leaderboard.user_id
+    private static final int USER_ID_LENGTH = 64;
+
+    private final int[] questionIds;
+    private final String[] responses;
+    private final byte[] options;
+    private final int totalQuestions;
+    private final Integer quizId;
+    private final String userId;
+
+    public Submission(int[] questionIds, String[] responses, int totalQuestions) {
+        this(questionIds, responses, null, totalQuestions, null, null);
+    }
+
+    public Submission(int[] questionIds, String[] responses, byte[] options, int totalQuestions, Integer quizId,
+                      String userId) {
+        this.questionIds = questionIds;
+        this.responses = responses;
+        this.options = options;
+        this.totalQuestions = totalQuestions;
+        this.quizId = quizId;
+        this.userId = userId;
+    }
+
+    // The answer array of a /quiz/quizSubmit body, which is either that array or {quizId, userId, answers}.
+    // Null when there is none.
+    public static JsonNode answersOf(JsonNode body) {
+        return body.isObject() ? body.get("answers") : body;
+    }
+
+    public static Submission fromJson(JsonNode body) {
+        JsonNode answers = answersOf(body);
+        Map<Integer, JsonNode> userAnswers = new LinkedHashMap<>();
+        int total = 0;
+        for (JsonNode node : answers) {
+            userAnswers.put(node.get("questionId").asInt(), node);
+            total++;
+        }
+
+        int[] questionIds = new int[userAnswers.size()];
+        String[] responses = new String[userAnswers.size()];
+        byte[] options = null;
+        int i = 0;
+        for (Map.Entry<Integer, JsonNode> entry : userAnswers.entrySet()) {
+            questionIds[i] = entry.getKey();
+            JsonNode response = entry.getValue().get("response");
+            responses[i] = response != null && !response.isNull() ? response.asText() : null; // Convert all responses to String
+            JsonNode option = entry.getValue().get("option");
+            if (option != null && !option.isNull()) {
+                if (!option.canConvertToInt() || option.asInt() < 1 || option.asInt() > AnswerSheet.OPTIONS) {
+                    throw new IllegalArgumentException("option must be a number from 1 to " + AnswerSheet.OPTIONS + ".");
+                }
+                if (options == null) {
+                    options = new byte[questionIds.length];
+                }
+                options[i] = (byte) option.asInt();
+            }
+            i++;
+        }
+
+        Integer quizId = null;
+        String userId = null;
+        if (body.isObject()) {
+            JsonNode quiz = body.get("quizId");
+            JsonNode user = body.get("userId");
+            quizId = quiz != null && !quiz.isNull() ? quiz.asInt() : null;
+            userId = user != null && !user.isNull() && !user.asText().isBlank() ? user.asText() : null;
+            if (userId != null && userId.length() > USER_ID_LENGTH) {
+                throw new IllegalArgumentException("userId is longer than " + USER_ID_LENGTH + " characters.");
+            }
+        }
+        // Option indexes only mean something against a quiz's answer sheet
+        if (options != null && quizId == null) {
+            throw new IllegalArgumentException("Answers given as an option need a quizId.");
+        }
+        return new Submission(questionIds, responses, options, total, quizId, userId);
+    }
+
+    public int[] getQuestionIds() {
+        return questionIds;
+    }
+
+    public String[] getResponses() {
+        return responses;
+    }
+
+    // Option 1-4 picked per answer, 0 where a response text was given instead. Null when no answer used one.
+    public byte[] getOptions() {
+        return options;
+    }
+
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public Integer getQuizId() {
+        return quizId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,144 @@
+package com.quize.quizproject.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Grades submissions. Ones that name a quizId are walked position by position against that quiz's compiled
+// AnswerSheet; the rest are graded against the answer-key index. Shared by the synchronous /quiz/quizSubmit
+// path and the asynchronous pipeline, which grades a whole micro-batch with a single index lookup. Every
+// graded answer is also counted in AnswerStats.
+@Component
+public class SubmissionGrader {
+
+    @Autowired
+    private AnswerKeyIndex answerKeyIndex;
+
+    @Autowired
+    private AnswerSheets answerSheets;
+
+    @Autowired
+    private AnswerStats answerStats;
+
+    // Strict: a quiz-scoped submission for an unknown quiz, or with a question outside it, is rejected
+    public GradeResult grade(Submission submission) {
+        if (submission.getQuizId() != null) {
+            return gradeOnSheet(submission, sheetFor(submission), true);
+        }
+        return gradeBatch(List.of(submission)).get(0);
+    }
+
+    // The same checks as grade, for submissions accepted now and graded later
+    public void validate(Submission submission) {
+        if (submission.getQuizId() == null) {
+            return;
+        }
+        AnswerSheet sheet = sheetFor(submission);
+        int hint = 0;
+        for (int questionId : submission.getQuestionIds()) {
+            int position = sheet.positionOf(questionId, hint);
+            if (position < 0) {
+                throw notInQuiz(questionId, sheet);
+            }
+            hint = position + 1;
+        }
+    }
+
+    // Lenient, since a queued submission's quiz may have changed since it was validated: answers the quiz no
+    // longer has, or all of them when the quiz is gone, count as incorrect
+    public List<GradeResult> gradeBatch(List<Submission> submissions) {
+        // Concatenate the loose submissions' ids so they cost one index lookup between them
+        int totalIds = 0;
+        for (Submission submission : submissions) {
+            if (submission.getQuizId() == null) {
+                totalIds += submission.getQuestionIds().length;
+            }
+        }
+        int[] ids = new int[totalIds];
+        int offset = 0;
+        for (Submission submission : submissions) {
+            if (submission.getQuizId() == null) {
+                int[] questionIds = submission.getQuestionIds();
+                System.arraycopy(questionIds, 0, ids, offset, questionIds.length);
+                offset += questionIds.length;
+            }
+        }
+        String[] answers = totalIds > 0 ? answerKeyIndex.answersFor(ids) : new String[0];
+
+        // Compare user responses with correct answers
+        List<GradeResult> results = new ArrayList<>(submissions.size());
+        offset = 0;
+        for (Submission submission : submissions) {
+            if (submission.getQuizId() != null) {
+                results.add(gradeOnSheet(submission, answerSheets.get(submission.getQuizId()), false));
+                continue;
+            }
+            String[] responses = submission.getResponses();
+            int correctCount = 0;
+            for (int i = 0; i < responses.length; i++) {
+                String userResponse = responses[i];
+                if (userResponse != null && userResponse.equals(answers[offset + i])) {
+                    correctCount++;
+                }
+            }
+            answerStats.record(submission.getQuestionIds(), responses, answers, offset);
+            offset += responses.length;
+            results.add(new GradeResult(submission.getTotalQuestions(), correctCount));
+        }
+        return results;
+    }
+
+    private GradeResult gradeOnSheet(Submission submission, AnswerSheet sheet, boolean strict) {
+        int[] questionIds = submission.getQuestionIds();
+        String[] responses = submission.getResponses();
+        byte[] options = submission.getOptions();
+        if (sheet == null) {
+            return new GradeResult(submission.getTotalQuestions(), 0);
+        }
+
+        // What AnswerStats counts: the picked option's text, and the right answer, left null for questions
+        // outside the quiz so they are not counted
+        String[] picked = options != null ? Arrays.copyOf(responses, responses.length) : responses;
+        String[] answers = new String[questionIds.length];
+        int correctCount = 0;
+        int hint = 0;
+        for (int i = 0; i < questionIds.length; i++) {
+            int position = sheet.positionOf(questionIds[i], hint);
+            if (position < 0) {
+                if (strict) {
+                    throw notInQuiz(questionIds[i], sheet);
+                }
+                continue;
+            }
+            hint = position + 1;
+            int option;
+            if (options != null && options[i] != 0) {
+                option = options[i];
+                picked[i] = sheet.optionText(position, option);
+            } else {
+                option = sheet.optionOf(position, responses[i]);
+            }
+            if (sheet.isCorrect(position, option, responses[i])) {
+                correctCount++;
+            }
+            answers[i] = sheet.rightAnswer(position);
+        }
+        answerStats.record(questionIds, picked, answers, 0);
+        return new GradeResult(submission.getTotalQuestions(), correctCount);
+    }
+
+    private AnswerSheet sheetFor(Submission submission) {
+        AnswerSheet sheet = answerSheets.get(submission.getQuizId());
+        if (sheet == null) {
+            throw new IllegalArgumentException("Quiz " + submission.getQuizId() + " not found.");
+        }
+        return sheet;
+    }
+
+    private static IllegalArgumentException notInQuiz(int questionId, AnswerSheet sheet) {
+        return new IllegalArgumentException("Question " + questionId + " is not part of quiz " + sheet.getQuizId() + ".");
+    }
+}
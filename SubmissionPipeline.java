@@ -0,0 +1,329 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.model.QuizAttempt;
+import com.quize.quizproject.repository.QuizAttemptRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Accepts submissions into a bounded queue and hands back an attempt id straight away. Worker threads
+// grade them in micro-batches (one answer-key lookup per batch) and write the results to quiz_attempt
+// with one batched insert per batch. A full queue rejects new work rather than letting it pile up. A batch
+// whose insert fails is retried a bounded number of times before its attempts are reported as failed.
+@Component
+public class SubmissionPipeline {
+
+    private static final String INSERT_SQL = "INSERT INTO quiz_attempt (attempt_id, quiz_id, user_id, total_questions, "
+            + "correct_answers, incorrect_answers, submitted_at, graded_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private SubmissionGrader submissionGrader;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private QuizLeaderboards quizLeaderboards;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static final Logger logger = LogManager.getLogger(SubmissionPipeline.class);
+
+    @Value("${quiz.submission.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${quiz.submission.workers:4}")
+    private int workerCount;
+
+    @Value("${quiz.submission.batch-size:200}")
+    private int batchSize;
+
+    @Value("${quiz.submission.offer-timeout-ms:20}")
+    private long offerTimeoutMillis;
+
+    // Further tries of a batch insert that failed; the wait before each one doubles from retry-backoff-ms
+    @Value("${quiz.submission.write-retries:3}")
+    private int writeRetries;
+
+    @Value("${quiz.submission.retry-backoff-ms:200}")
+    private long retryBackoffMillis;
+
+    // How long a failed attempt stays pollable before it is forgotten
+    @Value("${quiz.submission.failed-ttl-ms:600000}")
+    private long failedTtlMillis;
+
+    private BlockingQueue<PendingSubmission> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    // Attempts that are queued, or graded but not yet written, so polling never misses one in flight
+    private final Map<String, PendingSubmission> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "submission-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        logger.info("Submission pipeline started with {} workers, queue capacity {}", workerCount, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Workers keep going until the queue is empty, so accepted submissions are not lost on shutdown
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    // Returns the attempt id, or null when the queue stayed full for the whole offer timeout
+    public String submit(Submission submission) throws InterruptedException {
+        PendingSubmission pending = new PendingSubmission(UUID.randomUUID().toString(), submission, LocalDateTime.now());
+        inFlight.put(pending.attemptId, pending);
+        if (!queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            inFlight.remove(pending.attemptId);
+            rejected.increment();
+            return null;
+        }
+        accepted.increment();
+        return pending.attemptId;
+    }
+
+    // Looks in memory first, then in quiz_attempt. Null when the attempt id is unknown.
+    public AttemptStatus getAttempt(String attemptId) {
+        PendingSubmission pending = inFlight.get(attemptId);
+        if (pending != null) {
+            return new AttemptStatus(attemptId, pending.failed ? "FAILED" : pending.result == null ? "QUEUED" : "GRADED",
+                    pending.result);
+        }
+        QuizAttempt attempt = quizAttemptRepository.findById(attemptId).orElse(null);
+        if (attempt == null) {
+            return null;
+        }
+        return new AttemptStatus(attemptId, "GRADED", new GradeResult(attempt.getTotalQuestions(), attempt.getCorrectAnswers()));
+    }
+
+    private void runWorker() {
+        List<PendingSubmission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSubmission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                failQueued();
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Error processing submission batch of {}: {}", batch.size(), e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<PendingSubmission> batch) throws InterruptedException {
+        List<Submission> submissions = new ArrayList<>(batch.size());
+        for (PendingSubmission pending : batch) {
+            submissions.add(pending.submission);
+        }
+
+        List<GradeResult> results;
+        try {
+            results = submissionGrader.gradeBatch(submissions);
+        } catch (Exception e) {
+            markFailed(batch);
+            throw e;
+        }
+        LocalDateTime gradedAt = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result = results.get(i);
+        }
+
+        // One transaction per try, so a failed insert leaves no rows behind to collide with the retry
+        for (int attempt = 0; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, pending) -> {
+                            ps.setString(1, pending.attemptId);
+                            ps.setObject(2, pending.submission.getQuizId(), Types.INTEGER);
+                            ps.setString(3, pending.submission.getUserId());
+                            ps.setInt(4, pending.result.getTotalQuestions());
+                            ps.setInt(5, pending.result.getCorrectAnswers());
+                            ps.setInt(6, pending.result.getIncorrectAnswers());
+                            ps.setTimestamp(7, Timestamp.valueOf(pending.submittedAt));
+                            ps.setTimestamp(8, Timestamp.valueOf(gradedAt));
+                        }));
+                break;
+            } catch (Exception e) {
+                if (attempt >= writeRetries) {
+                    markFailed(batch);
+                    throw e;
+                }
+                long backoff = retryBackoffMillis << attempt;
+                logger.warn("Writing {} graded attempts failed, retrying in {} ms: {}", batch.size(), backoff,
+                        e.getMessage());
+                retries.increment();
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    markFailed(batch);
+                    throw interrupted;
+                }
+            }
+        }
+
+        // Ranked only once the attempt is in quiz_attempt, so a leaderboard never shows a score whose attempt
+        // failed to write. Until the next leaderboard snapshot the score itself is held only in memory.
+        for (PendingSubmission pending : batch) {
+            quizLeaderboards.record(pending.submission, pending.result);
+            inFlight.remove(pending.attemptId);
+        }
+        persisted.add(batch.size());
+        batches.increment();
+    }
+
+    // Failed attempts stay visible in memory for failed-ttl-ms, so pollers get a definite answer instead of
+    // "unknown"
+    private void markFailed(List<PendingSubmission> batch) {
+        long now = System.currentTimeMillis();
+        for (PendingSubmission pending : batch) {
+            pending.failedAtMillis = now;
+            pending.failed = true;
+        }
+        failed.add(batch.size());
+    }
+
+    // An interrupted worker stops taking work, so whatever is still queued is reported failed rather than
+    // left QUEUED for good
+    private void failQueued() {
+        List<PendingSubmission> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        if (!abandoned.isEmpty()) {
+            markFailed(abandoned);
+            logger.warn("Submission worker interrupted, {} queued attempts marked failed", abandoned.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${quiz.submission.failed-sweep-interval-ms:60000}")
+    public void expireFailed() {
+        long cutoff = System.currentTimeMillis() - failedTtlMillis;
+        inFlight.values().removeIf(pending -> pending.failed && pending.failedAtMillis < cutoff);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getPersisted() {
+        return persisted.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    private static final class PendingSubmission {
+        private final String attemptId;
+        private final Submission submission;
+        private final LocalDateTime submittedAt;
+        private volatile GradeResult result;
+        private volatile boolean failed;
+        private volatile long failedAtMillis;
+
+        PendingSubmission(String attemptId, Submission submission, LocalDateTime submittedAt) {
+            this.attemptId = attemptId;
+            this.submission = submission;
+            this.submittedAt = submittedAt;
+        }
+    }
+
+    public static class AttemptStatus {
+        private final String attemptId;
+        private final String status;
+        private final GradeResult result;
+
+        AttemptStatus(String attemptId, String status, GradeResult result) {
+            this.attemptId = attemptId;
+            this.status = status;
+            this.result = result;
+        }
+
+        public String getAttemptId() {
+            return attemptId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        // Null while the attempt is still queued
+        public GradeResult getResult() {
+            return result;
+        }
+    }
+}
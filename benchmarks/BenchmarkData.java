@@ -0,0 +1,139 @@
+package com.quize.quizproject.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quize.quizproject.config.JacksonConfig;
+import com.quize.quizproject.model.Question;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Synthetic question banks and wiring helpers shared by the benchmarks
+final class BenchmarkData {
+
+    static final String[] DIFFICULTIES = {"easy", "medium", "hard"};
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BenchmarkData() {
+    }
+
+    // Questions with ids 1..count spread round-robin over `categories` categories; the right answer is
+    // one of the four option texts, like real banks
+    static List<Question> questions(int count, int categories, long seed) {
+        Random random = new Random(seed);
+        List<Question> questions = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Question question = new Question();
+            question.setQuestionId(i);
+            question.setCategory("category-" + (i % categories));
+            question.setQuestionTitle("Which statement about topic " + i + " is correct?");
+            question.setOption1("First option for question " + i);
+            question.setOption2("Second option for question " + i);
+            question.setOption3("Third option for question " + i);
+            question.setOption4("Fourth option for question " + i);
+            question.setRightAns(option(question, 1 + random.nextInt(4)));
+            question.setDifficultyLevel(DIFFICULTIES[i % DIFFICULTIES.length]);
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    static String option(Question question, int option) {
+        switch (option) {
+            case 1:
+                return question.getOption1();
+            case 2:
+                return question.getOption2();
+            case 3:
+                return question.getOption3();
+            default:
+                return question.getOption4();
+        }
+    }
+
+    // The /question/ques request body for the given questions, without ids (all inserts)
+    static JsonNode upsertRequest(List<Question> questions) {
+        ArrayNode request = objectMapper.createArrayNode();
+        for (Question question : questions) {
+            ObjectNode node = request.addObject();
+            node.put("category", question.getCategory());
+            node.put("questionTitle", question.getQuestionTitle());
+            node.put("option1", question.getOption1());
+            node.put("option2", question.getOption2());
+            node.put("option3", question.getOption3());
+            node.put("option4", question.getOption4());
+            node.put("rightAns", question.getRightAns());
+            node.put("difficultyLevel", question.getDifficultyLevel());
+        }
+        return request;
+    }
+
+    // A /quiz/quizSubmit body answering `answers` random questions, roughly half of them correctly
+    static JsonNode submission(List<Question> questions, int answers, Random random) {
+        ArrayNode request = objectMapper.createArrayNode();
+        for (int i = 0; i < answers; i++) {
+            Question question = questions.get(random.nextInt(questions.size()));
+            ObjectNode node = request.addObject();
+            node.put("questionId", question.getQuestionId());
+            node.put("response", random.nextBoolean() ? question.getRightAns() : option(question, 1 + random.nextInt(4)));
+        }
+        return request;
+    }
+
+    // A quiz-scoped /quiz/quizSubmit body answering every question of the quiz in order, roughly half of them
+    // correctly, with option texts or with option indexes
+    static JsonNode quizSubmission(int quizId, List<Question> quizQuestions, boolean byOption, Random random) {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("quizId", quizId);
+        ArrayNode answers = request.putArray("answers");
+        for (Question question : quizQuestions) {
+            int option = 1 + random.nextInt(4);
+            if (random.nextBoolean()) {
+                for (int i = 1; i <= 4; i++) {
+                    if (option(question, i).equals(question.getRightAns())) {
+                        option = i;
+                    }
+                }
+            }
+            ObjectNode node = answers.addObject();
+            node.put("questionId", question.getQuestionId());
+            if (byOption) {
+                node.put("option", option);
+            } else {
+                node.put("response", option(question, option));
+            }
+        }
+        return request;
+    }
+
+    // Built the way Spring Boot builds the application's ObjectMapper, with the same customizations
+    static ObjectMapper applicationObjectMapper() {
+        return applicationObjectMapper(new JsonFactory());
+    }
+
+    // Same, over a Smile or CBOR factory, like the binary message converters
+    static ObjectMapper applicationObjectMapper(JsonFactory factory) {
+        JacksonConfig config = new JacksonConfig();
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json().modulesToInstall(config.blackbirdModule());
+        config.quizObjectMapperCustomizer().customize(builder);
+        return builder.factory(factory).build();
+    }
+
+    // Services use private @Autowired fields; benchmarks wire them by hand instead of starting Spring
+    static void inject(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("No field " + fieldName + " on " + target.getClass().getName());
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,80 @@
+package com.quize.quizproject.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quize.quizproject.config.BinaryFormatsConfig;
+import com.quize.quizproject.view.AdminQuestionView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Encode and decode cost of a /question/category bank in JSON, Smile and CBOR. The encoded size of each
+// combination is printed once per trial, since JMH itself only reports times.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    // Questions in one category bank
+    @Param({"100", "1000", "10000"})
+    private int questionCount;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private ObjectNode response;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = BenchmarkData.applicationObjectMapper(factory(format));
+        response = mapper.createObjectNode();
+        response.put("status", "success");
+        response.putPOJO("questions", AdminQuestionView.fromAll(BenchmarkData.questions(questionCount, 1, 42)));
+        encoded = mapper.writeValueAsBytes(response);
+
+        int jsonSize = BenchmarkData.applicationObjectMapper().writeValueAsBytes(response).length;
+        System.out.printf("%n%s, %d questions: %d bytes (%.0f%% of JSON)%n", format, questionCount, encoded.length,
+                100.0 * encoded.length / jsonSize);
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "smile":
+                return BinaryFormatsConfig.smileFactory();
+            case "cbor":
+                return BinaryFormatsConfig.cborFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    // What a client pays to parse the body
+    @Benchmark
+    public JsonNode decode() throws IOException {
+        return mapper.readTree(encoded);
+    }
+}
@@ -0,0 +1,86 @@
+package com.quize.quizproject.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.service.SingleFlight;
+import com.quize.quizproject.view.AdminQuestionView;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+// An exam start: many threads asking for the same category bank at once. Each request either runs its own
+// query (a fixed simulated latency) and serialization, or goes through SingleFlight and shares one. The
+// "loads" counter is how many queries actually ran per second.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class CoalescingBenchmark {
+
+    @Param({"1000"})
+    private int questionCount;
+
+    // Simulated round trip of the category query
+    @Param({"2000"})
+    private int queryMicros;
+
+    private ObjectMapper objectMapper;
+    private List<Question> questions;
+    private final SingleFlight<String, byte[]> flight = new SingleFlight<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = BenchmarkData.applicationObjectMapper();
+        questions = BenchmarkData.questions(questionCount, 1, 42);
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Loads {
+        public long loads;
+    }
+
+    @Benchmark
+    public byte[] uncoalesced(Loads counter) throws IOException {
+        counter.loads++;
+        return load();
+    }
+
+    @Benchmark
+    public byte[] coalesced(Loads counter) throws IOException, TimeoutException {
+        // The loader runs on the calling thread, so a load is counted against the thread that ran it
+        return flight.execute("category-0", 5000, () -> {
+            counter.loads++;
+            return load();
+        });
+    }
+
+    private byte[] load() throws IOException {
+        LockSupport.parkNanos(queryMicros * 1000L);
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("status", "success");
+        response.putPOJO("questions", AdminQuestionView.fromAll(questions));
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,195 @@
+package com.quize.quizproject.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.AnswerSheetRow;
+import com.quize.quizproject.repository.QuizRepository;
+import com.quize.quizproject.service.AnswerKeyIndex;
+import com.quize.quizproject.service.AnswerSheets;
+import com.quize.quizproject.service.AnswerStats;
+import com.quize.quizproject.service.GradeResult;
+import com.quize.quizproject.service.QuestionCatalog;
+import com.quize.quizproject.service.QuizLeaderboards;
+import com.quize.quizproject.service.QuizService;
+import com.quize.quizproject.service.Submission;
+import com.quize.quizproject.service.SubmissionGrader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// The grading loop behind /quiz/quizSubmit, and the micro-batch path used by the async pipeline. The quiz
+// variants answer every question of one quiz, graded against its compiled answer sheet.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GradingBenchmark {
+
+    private static final int SUBMISSIONS = 1024;
+    private static final int BATCH = 100;
+    private static final int QUIZ_ID = 1;
+
+    @Param({"10000", "1000000"})
+    private int questionCount;
+
+    @Param({"20", "100"})
+    private int answersPerSubmission;
+
+    private QuizService quizService;
+    private SubmissionGrader submissionGrader;
+    private JsonNode[] requests;
+    private List<Submission> batch;
+    private JsonNode[] quizRequests;
+    private JsonNode[] quizOptionRequests;
+    private List<Submission> quizBatch;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Question> questions = BenchmarkData.questions(questionCount, 10, 42);
+
+        AnswerKeyIndex answerKeyIndex = new AnswerKeyIndex();
+        BenchmarkData.inject(answerKeyIndex, "questionRepository", InMemoryQuestionRepository.over(questions));
+        answerKeyIndex.refresh();
+
+        QuestionCatalog questionCatalog = new QuestionCatalog();
+        BenchmarkData.inject(questionCatalog, "questionRepository", InMemoryQuestionRepository.over(questions));
+        BenchmarkData.inject(questionCatalog, "changeLogSize", 10000);
+        BenchmarkData.inject(questionCatalog, "pageSize", 1000);
+        questionCatalog.refresh();
+
+        // Counts every graded answer in memory, as in the application; nothing is flushed here
+        AnswerStats answerStats = new AnswerStats();
+        BenchmarkData.inject(answerStats, "questionCatalog", questionCatalog);
+
+        // A quiz of answersPerSubmission random questions, in question id order like findAnswerSheetRows
+        Random random = new Random(7);
+        Set<Question> picked = new LinkedHashSet<>();
+        while (picked.size() < answersPerSubmission) {
+            picked.add(questions.get(random.nextInt(questions.size())));
+        }
+        List<Question> quizQuestions = new ArrayList<>(picked);
+        quizQuestions.sort(Comparator.comparing(Question::getQuestionId));
+        List<AnswerSheetRow> rows = new ArrayList<>();
+        for (Question question : quizQuestions) {
+            rows.add(new SheetRow(question));
+        }
+        AnswerSheets answerSheets = new AnswerSheets();
+        BenchmarkData.inject(answerSheets, "quizRepository", quizRepositoryOver(rows));
+        BenchmarkData.inject(answerSheets, "maxEntries", 10000);
+
+        submissionGrader = new SubmissionGrader();
+        BenchmarkData.inject(submissionGrader, "answerKeyIndex", answerKeyIndex);
+        BenchmarkData.inject(submissionGrader, "answerSheets", answerSheets);
+        BenchmarkData.inject(submissionGrader, "answerStats", answerStats);
+
+        quizService = new QuizService();
+        BenchmarkData.inject(quizService, "submissionGrader", submissionGrader);
+        BenchmarkData.inject(quizService, "quizLeaderboards", new QuizLeaderboards());
+        BenchmarkData.inject(quizService, "objectMapper", BenchmarkData.applicationObjectMapper());
+
+        requests = new JsonNode[SUBMISSIONS];
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            requests[i] = BenchmarkData.submission(questions, answersPerSubmission, random);
+        }
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(Submission.fromJson(requests[i]));
+        }
+        quizRequests = new JsonNode[SUBMISSIONS];
+        quizOptionRequests = new JsonNode[SUBMISSIONS];
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            quizRequests[i] = BenchmarkData.quizSubmission(QUIZ_ID, quizQuestions, false, random);
+            quizOptionRequests[i] = BenchmarkData.quizSubmission(QUIZ_ID, quizQuestions, true, random);
+        }
+        quizBatch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            quizBatch.add(Submission.fromJson(quizOptionRequests[i]));
+        }
+    }
+
+    private static QuizRepository quizRepositoryOver(List<AnswerSheetRow> rows) {
+        return (QuizRepository) Proxy.newProxyInstance(QuizRepository.class.getClassLoader(),
+                new Class<?>[]{QuizRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAnswerSheetRows")) {
+                        return Integer.valueOf(QUIZ_ID).equals(args[0]) ? rows : List.of();
+                    }
+                    throw new UnsupportedOperationException(method.getName() + " is not supported in benchmarks");
+                });
+    }
+
+    @Benchmark
+    public JsonNode processUserQuizSubmission() {
+        next = (next + 1) & (SUBMISSIONS - 1);
+        return quizService.processUserQuizSubmission(requests[next]);
+    }
+
+    // One answer lookup for BATCH submissions; divide by BATCH for the per-submission cost
+    @Benchmark
+    public List<GradeResult> gradeBatch() {
+        return submissionGrader.gradeBatch(batch);
+    }
+
+    @Benchmark
+    public JsonNode processQuizSubmission() {
+        next = (next + 1) & (SUBMISSIONS - 1);
+        return quizService.processUserQuizSubmission(quizRequests[next]);
+    }
+
+    @Benchmark
+    public JsonNode processQuizSubmissionByOption() {
+        next = (next + 1) & (SUBMISSIONS - 1);
+        return quizService.processUserQuizSubmission(quizOptionRequests[next]);
+    }
+
+    @Benchmark
+    public List<GradeResult> gradeQuizBatch() {
+        return submissionGrader.gradeBatch(quizBatch);
+    }
+
+    private record SheetRow(Question question) implements AnswerSheetRow {
+        public Integer getQuestionId() {
+            return question.getQuestionId();
+        }
+
+        public String getOption1() {
+            return question.getOption1();
+        }
+
+        public String getOption2() {
+            return question.getOption2();
+        }
+
+        public String getOption3() {
+            return question.getOption3();
+        }
+
+        public String getOption4() {
+            return question.getOption4();
+        }
+
+        public String getRightAns() {
+            return question.getRightAns();
+        }
+    }
+}
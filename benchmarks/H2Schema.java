@@ -0,0 +1,81 @@
+package com.quize.quizproject.benchmark;
+
+import com.quize.quizproject.model.Question;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The question table and its lookup tables as Hibernate creates them for MySQL once the legacy category and
+// difficulty_level columns are dropped, for benchmarks that need real SQL
+final class H2Schema {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    // Question columns with category and difficulty resolved back to their names
+    static final String SELECT_QUESTIONS = "SELECT q.question_id, c.name AS category, q.question_title, q.option1, "
+            + "q.option2, q.option3, q.option4, q.right_ans, d.name AS difficulty_level FROM question q "
+            + "LEFT JOIN question_category c ON c.category_id = q.category_id "
+            + "LEFT JOIN question_difficulty d ON d.difficulty_id = q.difficulty_id";
+
+    // (questionId, category, difficultyLevel) rows, as QuestionRepository.findAllCategoryKeys returns them
+    static final String SELECT_CATEGORY_KEYS = "SELECT q.question_id, c.name, d.name FROM question q "
+            + "LEFT JOIN question_category c ON c.category_id = q.category_id "
+            + "LEFT JOIN question_difficulty d ON d.difficulty_id = q.difficulty_id";
+
+    private H2Schema() {
+    }
+
+    static void createQuestionTable(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("CREATE TABLE question_category ("
+                + "category_id SMALLINT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(45) NOT NULL UNIQUE)");
+        jdbcTemplate.execute("CREATE TABLE question_difficulty ("
+                + "difficulty_id SMALLINT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(45) NOT NULL UNIQUE)");
+        jdbcTemplate.execute("CREATE TABLE question ("
+                + "question_id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "category_id SMALLINT, "
+                + "question_title VARCHAR(150), "
+                + "option1 VARCHAR(100), option2 VARCHAR(100), option3 VARCHAR(100), option4 VARCHAR(100), "
+                + "right_ans VARCHAR(100), "
+                + "difficulty_id SMALLINT)");
+        jdbcTemplate.execute("CREATE INDEX idx_question_category_difficulty_id ON question (category_id, difficulty_id)");
+    }
+
+    static void insertQuestions(JdbcTemplate jdbcTemplate, List<Question> questions) {
+        Map<String, Short> categories = new HashMap<>();
+        Map<String, Short> difficulties = new HashMap<>();
+        for (int from = 0; from < questions.size(); from += INSERT_BATCH) {
+            List<Question> batch = questions.subList(from, Math.min(from + INSERT_BATCH, questions.size()));
+            for (Question question : batch) {
+                lookupId(jdbcTemplate, categories, "question_category", "category_id", question.getCategory());
+                lookupId(jdbcTemplate, difficulties, "question_difficulty", "difficulty_id",
+                        question.getDifficultyLevel());
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO question (question_id, category_id, question_title, option1, option2, "
+                    + "option3, option4, right_ans, difficulty_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    batch, batch.size(), (ps, question) -> {
+                        ps.setInt(1, question.getQuestionId());
+                        ps.setObject(2, categories.get(question.getCategory()));
+                        ps.setString(3, question.getQuestionTitle());
+                        ps.setString(4, question.getOption1());
+                        ps.setString(5, question.getOption2());
+                        ps.setString(6, question.getOption3());
+                        ps.setString(7, question.getOption4());
+                        ps.setString(8, question.getRightAns());
+                        ps.setObject(9, difficulties.get(question.getDifficultyLevel()));
+                    });
+        }
+    }
+
+    private static void lookupId(JdbcTemplate jdbcTemplate, Map<String, Short> ids, String table, String idColumn,
+                                 String name) {
+        if (name != null && !ids.containsKey(name)) {
+            jdbcTemplate.update("INSERT INTO " + table + " (name) VALUES (?)", name);
+            ids.put(name, jdbcTemplate.queryForObject("SELECT " + idColumn + " FROM " + table + " WHERE name = ?",
+                    Short.class, name));
+        }
+    }
+}
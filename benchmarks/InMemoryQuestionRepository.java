@@ -0,0 +1,114 @@
+package com.quize.quizproject.benchmark;
+
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.QuestionRepository;
+import org.springframework.data.domain.Limit;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// In-memory stand-in for QuestionRepository. Answers the queries the services actually issue from a
+// map, so service benchmarks measure our own code rather than MySQL. Anything else is unsupported.
+final class InMemoryQuestionRepository implements InvocationHandler {
+
+    // Sorted by id, so keyset pages are a tailMap rather than a scan from the start
+    private final TreeMap<Integer, Question> questions = new TreeMap<>();
+
+    private InMemoryQuestionRepository(List<Question> questions) {
+        for (Question question : questions) {
+            this.questions.put(question.getQuestionId(), question);
+        }
+    }
+
+    static QuestionRepository over(List<Question> questions) {
+        return (QuestionRepository) Proxy.newProxyInstance(QuestionRepository.class.getClassLoader(),
+                new Class<?>[]{QuestionRepository.class}, new InMemoryQuestionRepository(questions));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "findAll":
+                return new ArrayList<>(questions.values());
+            case "findByCategory": {
+                List<Question> result = new ArrayList<>();
+                for (Question question : questions.values()) {
+                    if (question.getCategory().equals(args[0])) {
+                        result.add(question);
+                    }
+                }
+                return result;
+            }
+            case "findById":
+                return Optional.ofNullable(questions.get((Integer) args[0]));
+            case "findAllById": {
+                List<Question> result = new ArrayList<>();
+                for (Integer id : (Iterable<Integer>) args[0]) {
+                    if (questions.containsKey(id)) {
+                        result.add(questions.get(id));
+                    }
+                }
+                return result;
+            }
+            case "findExistingIds": {
+                List<Integer> result = new ArrayList<>();
+                for (Integer id : (Collection<Integer>) args[0]) {
+                    if (questions.containsKey(id)) {
+                        result.add(id);
+                    }
+                }
+                return result;
+            }
+            case "findCorrectAnswersByQuestionIds": {
+                List<Object[]> result = new ArrayList<>();
+                for (Integer id : (Collection<Integer>) args[0]) {
+                    if (questions.containsKey(id)) {
+                        result.add(new Object[]{id, questions.get(id).getRightAns()});
+                    }
+                }
+                return result;
+            }
+            case "findAllAnswerKeys": {
+                List<Object[]> result = new ArrayList<>(questions.size());
+                for (Question question : questions.values()) {
+                    result.add(new Object[]{question.getQuestionId(), question.getRightAns()});
+                }
+                return result;
+            }
+            case "findAllCategoryKeys": {
+                List<Object[]> result = new ArrayList<>(questions.size());
+                for (Question question : questions.values()) {
+                    result.add(new Object[]{question.getQuestionId(), question.getCategory(), question.getDifficultyLevel()});
+                }
+                return result;
+            }
+            case "findByQuestionIdGreaterThanOrderByQuestionIdAsc": {
+                int after = (Integer) args[0];
+                int limit = ((Limit) args[1]).max();
+                List<Question> result = new ArrayList<>(limit);
+                for (Question question : questions.tailMap(after, false).values()) {
+                    if (result.size() == limit) {
+                        break;
+                    }
+                    result.add(question);
+                }
+                return result;
+            }
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "InMemoryQuestionRepository(" + questions.size() + " questions)";
+            default:
+                throw new UnsupportedOperationException(method.getName() + " is not supported by the benchmark repository");
+        }
+    }
+}
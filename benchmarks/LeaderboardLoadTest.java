@@ -0,0 +1,234 @@
+package com.quize.quizproject.benchmark;
+
+import com.quize.quizproject.service.QuizLeaderboard;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+// Contention test for the per-quiz leaderboards. Many submitter threads offer graded scores to a handful of
+// quiz boards as fast as they can, while reader threads ask for the top 10 and for a random user's rank
+// (what the leaderboard endpoint does) at a fixed interval each. It runs twice: once against a single-lock board (a
+// TreeSet and HashMap behind synchronized, with rank counted through the TreeSet), and once against
+// QuizLeaderboard. Prints submission throughput and read latency percentiles for each.
+//   usage: LeaderboardLoadTest [submitters=10000] [submissionsEach=100] [quizzes=10] [users=100000] [readers=8]
+//          [readIntervalMicros=500]
+//   mvn -P benchmarks compile exec:java -Dbenchmark.main=com.quize.quizproject.benchmark.LeaderboardLoadTest \
+//       -Dbenchmark.args="10000 100"
+public final class LeaderboardLoadTest {
+
+    private static final int QUESTIONS = 50;
+    private static final int SAMPLES_PER_READER = 100_000;
+
+    private LeaderboardLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int submitters = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int submissionsEach = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int quizzes = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+        int readers = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+        long readIntervalMicros = args.length > 5 ? Long.parseLong(args[5]) : 500;
+
+        String[] userIds = new String[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = "user-" + i;
+        }
+        System.out.printf("%d submitters x %d submissions, %d quizzes, %d users, %d readers every %d us%n",
+                submitters, submissionsEach, quizzes, users, readers, readIntervalMicros);
+        long readIntervalNanos = readIntervalMicros * 1000;
+        // The first pass of each only warms up
+        for (int pass = 0; pass < 2; pass++) {
+            run("locked", LockedBoard::new, userIds, submitters, submissionsEach, quizzes, readers, readIntervalNanos,
+                    pass == 1);
+            run("concurrent", ConcurrentBoard::new, userIds, submitters, submissionsEach, quizzes, readers,
+                    readIntervalNanos, pass == 1);
+        }
+    }
+
+    private static void run(String name, IntFunction<Board> factory, String[] userIds, int submitters,
+                            int submissionsEach, int quizzes, int readers, long readIntervalNanos, boolean report)
+            throws InterruptedException {
+        Board[] boards = new Board[quizzes];
+        for (int q = 0; q < quizzes; q++) {
+            boards[q] = factory.apply(q);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[submitters];
+        for (int s = 0; s < submitters; s++) {
+            threads[s] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < submissionsEach; i++) {
+                    boards[random.nextInt(boards.length)].offer(userIds[random.nextInt(userIds.length)],
+                            random.nextInt(QUESTIONS + 1), System.nanoTime());
+                }
+            }, "submitter-" + s);
+            threads[s].start();
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[][] latencies = new long[readers][];
+        long[] counts = new long[readers];
+        Thread[] readerThreads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            int reader = r;
+            readerThreads[r] = new Thread(() -> {
+                // Reservoir sample, so a fast board cannot run the readers out of memory
+                long[] samples = new long[SAMPLES_PER_READER];
+                long count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    Board board = boards[random.nextInt(boards.length)];
+                    long begin = System.nanoTime();
+                    board.top(10);
+                    board.rank(userIds[random.nextInt(userIds.length)]);
+                    long latency = System.nanoTime() - begin;
+                    if (count < samples.length) {
+                        samples[(int) count] = latency;
+                    } else {
+                        long slot = random.nextLong(count + 1);
+                        if (slot < samples.length) {
+                            samples[(int) slot] = latency;
+                        }
+                    }
+                    count++;
+                    LockSupport.parkNanos(readIntervalNanos);
+                }
+                latencies[reader] = samples;
+                counts[reader] = count;
+            }, "reader-" + r);
+            readerThreads[r].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        running.set(false);
+        for (Thread thread : readerThreads) {
+            thread.join();
+        }
+        if (!report) {
+            return;
+        }
+
+        long reads = Arrays.stream(counts).sum();
+        long[] all = new long[0];
+        for (int r = 0; r < readers; r++) {
+            int kept = (int) Math.min(counts[r], SAMPLES_PER_READER);
+            all = Arrays.copyOf(all, all.length + kept);
+            System.arraycopy(latencies[r], 0, all, all.length - kept, kept);
+        }
+        Arrays.sort(all);
+        long submissions = (long) submitters * submissionsEach;
+        System.out.printf("%-10s submissions %d in %.2f s: %.0f/s; reads %d: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                name, submissions, elapsed / 1e9, submissions / (elapsed / 1e9), reads, percentile(all, 50),
+                percentile(all, 99), all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private interface Board {
+        void offer(String userId, int correctAnswers, long achievedAt);
+
+        int top(int limit);
+
+        long rank(String userId);
+    }
+
+    private static final class ConcurrentBoard implements Board {
+        private final QuizLeaderboard board;
+
+        ConcurrentBoard(int quizId) {
+            board = new QuizLeaderboard(quizId);
+        }
+
+        @Override
+        public void offer(String userId, int correctAnswers, long achievedAt) {
+            board.offer(userId, correctAnswers, QUESTIONS, achievedAt);
+        }
+
+        @Override
+        public int top(int limit) {
+            return board.top(limit).size();
+        }
+
+        @Override
+        public long rank(String userId) {
+            QuizLeaderboard.Standing standing = board.standingOf(userId);
+            return standing != null ? standing.rank() : 0;
+        }
+    }
+
+    // The straightforward version: one lock per board, rank by counting the better entries
+    private static final class LockedBoard implements Board {
+        private record Entry(String userId, int correctAnswers, long achievedAt) {
+        }
+
+        private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::correctAnswers).reversed()
+                .thenComparingLong(Entry::achievedAt)
+                .thenComparing(Entry::userId);
+
+        private final Map<String, Entry> best = new HashMap<>();
+        private final TreeSet<Entry> ranking = new TreeSet<>(ORDER);
+
+        LockedBoard(int quizId) {
+        }
+
+        @Override
+        public synchronized void offer(String userId, int correctAnswers, long achievedAt) {
+            Entry current = best.get(userId);
+            if (current != null && current.correctAnswers >= correctAnswers) {
+                return;
+            }
+            Entry entry = new Entry(userId, correctAnswers, achievedAt);
+            if (current != null) {
+                ranking.remove(current);
+            }
+            ranking.add(entry);
+            best.put(userId, entry);
+        }
+
+        @Override
+        public synchronized int top(int limit) {
+            int count = 0;
+            for (Entry ignored : ranking) {
+                if (++count >= limit) {
+                    break;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public synchronized long rank(String userId) {
+            Entry entry = best.get(userId);
+            if (entry == null) {
+                return 0;
+            }
+            return ranking.headSet(new Entry("", entry.correctAnswers, Long.MIN_VALUE)).size() + 1;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.quize.quizproject.benchmark;
+
+import com.quize.quizproject.repository.LookupDictionary;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The old string columns against the lookup keys, on the same questions: a findByCategory-style index
+// lookup, and grouping every question by category in memory with one String per row as the driver hands
+// them out versus the dictionary's shared instances
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupKeyBenchmark {
+
+    @Param({"100000"})
+    private int questions;
+
+    @Param({"50"})
+    private int categories;
+
+    private JdbcTemplate jdbcTemplate;
+    private LookupDictionary categoryDictionary;
+    private String category;
+    private List<String> rowCategories;
+    private List<String> sharedCategories;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:lookup" + questions + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        H2Schema.createQuestionTable(jdbcTemplate);
+        H2Schema.insertQuestions(jdbcTemplate, BenchmarkData.questions(questions, categories, 42));
+
+        // The pre-migration layout, filled from the same rows
+        jdbcTemplate.execute("CREATE TABLE question_legacy (question_id INT PRIMARY KEY, category VARCHAR(45), "
+                + "difficulty_level VARCHAR(45))");
+        jdbcTemplate.execute("INSERT INTO question_legacy SELECT q.question_id, c.name, d.name FROM question q "
+                + "LEFT JOIN question_category c ON c.category_id = q.category_id "
+                + "LEFT JOIN question_difficulty d ON d.difficulty_id = q.difficulty_id");
+        jdbcTemplate.execute("CREATE INDEX idx_legacy_category_difficulty ON question_legacy (category, difficulty_level)");
+
+        categoryDictionary = new LookupDictionary(dataSource, "question_category", "category_id");
+        categoryDictionary.reload();
+        category = "category-" + (categories / 2);
+
+        // H2 caches small values, so copy each one to get a String per row the way Connector/J returns them
+        rowCategories = new ArrayList<>(questions);
+        for (String name : jdbcTemplate.queryForList("SELECT category FROM question_legacy", String.class)) {
+            rowCategories.add(new String(name));
+        }
+        sharedCategories = new ArrayList<>(questions);
+        for (Short categoryId : jdbcTemplate.queryForList("SELECT category_id FROM question", Short.class)) {
+            sharedCategories.add(categoryDictionary.nameOf(categoryId));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Benchmark
+    public List<Integer> stringKeyLookup() {
+        return jdbcTemplate.queryForList("SELECT question_id FROM question_legacy WHERE category = ?", Integer.class,
+                category);
+    }
+
+    @Benchmark
+    public List<Integer> lookupKeyLookup() {
+        return jdbcTemplate.queryForList("SELECT question_id FROM question WHERE category_id = ?", Integer.class,
+                categoryDictionary.findId(category));
+    }
+
+    @Benchmark
+    public Map<String, Integer> groupRowStrings() {
+        return group(rowCategories);
+    }
+
+    @Benchmark
+    public Map<String, Integer> groupSharedStrings() {
+        return group(sharedCategories);
+    }
+
+    private static Map<String, Integer> group(List<String> keys) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String key : keys) {
+            counts.merge(key, 1, Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,94 @@
+package com.quize.quizproject.benchmark;
+
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.service.QuestionSampler;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// A 50/30/20 easy/medium/hard quiz: one ORDER BY RAND() query per difficulty (on the composite index)
+// against one pass of the (category, difficulty) sampler followed by a single primary-key fetch
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixedQuizBenchmark {
+
+    private static final String CATEGORY = "category-0";
+
+    @Param({"10000", "100000", "1000000"})
+    private int categorySize;
+
+    @Param({"20"})
+    private int numQ;
+
+    private JdbcTemplate jdbcTemplate;
+    private QuestionSampler questionSampler;
+    private Map<String, Integer> counts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:mixed" + categorySize + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        H2Schema.createQuestionTable(jdbcTemplate);
+        // One big category plus a second one, so the category predicate actually filters
+        H2Schema.insertQuestions(jdbcTemplate, BenchmarkData.questions(categorySize * 2, 2, 42));
+
+        questionSampler = new QuestionSampler();
+        questionSampler.reseed(42);
+        questionSampler.load(jdbcTemplate.query(H2Schema.SELECT_CATEGORY_KEYS,
+                (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getString(2), rs.getString(3)}));
+
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("easy", 50.0);
+        weights.put("medium", 30.0);
+        weights.put("hard", 20.0);
+        counts = QuestionSampler.allocate(numQ, weights);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Benchmark
+    public List<Question> orderByRandPerDifficulty() {
+        List<Question> questions = new ArrayList<>(numQ);
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            questions.addAll(jdbcTemplate.query(H2Schema.SELECT_QUESTIONS
+                    + " WHERE c.name = ? AND d.name = ? ORDER BY RAND() LIMIT ?",
+                    QuestionSamplerBenchmark.QUESTION_ROW_MAPPER, CATEGORY, count.getKey(), count.getValue()));
+        }
+        return questions;
+    }
+
+    @Benchmark
+    public List<Question> mixedSampler() {
+        List<Integer> ids = questionSampler.sampleMixedIds(CATEGORY, counts);
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query(H2Schema.SELECT_QUESTIONS + " WHERE q.question_id IN (" + placeholders + ")",
+                QuestionSamplerBenchmark.QUESTION_ROW_MAPPER, ids.toArray());
+    }
+}
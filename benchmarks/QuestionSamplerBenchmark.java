@@ -0,0 +1,94 @@
+package com.quize.quizproject.benchmark;
+
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.service.QuestionSampler;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ORDER BY RAND() LIMIT n against the id-array sampler followed by a primary-key fetch, on an H2
+// database in MySQL mode standing in for the real one
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuestionSamplerBenchmark {
+
+    private static final String CATEGORY = "category-0";
+
+    static final RowMapper<Question> QUESTION_ROW_MAPPER = (rs, rowNum) -> {
+        Question question = new Question();
+        question.setQuestionId(rs.getInt("question_id"));
+        question.setCategory(rs.getString("category"));
+        question.setQuestionTitle(rs.getString("question_title"));
+        question.setOption1(rs.getString("option1"));
+        question.setOption2(rs.getString("option2"));
+        question.setOption3(rs.getString("option3"));
+        question.setOption4(rs.getString("option4"));
+        question.setRightAns(rs.getString("right_ans"));
+        question.setDifficultyLevel(rs.getString("difficulty_level"));
+        return question;
+    };
+
+    @Param({"10000", "100000", "1000000"})
+    private int categorySize;
+
+    @Param({"20"})
+    private int numQ;
+
+    private JdbcTemplate jdbcTemplate;
+    private QuestionSampler questionSampler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:sampler" + categorySize + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        H2Schema.createQuestionTable(jdbcTemplate);
+        // One big category plus a second one, so the category predicate actually filters
+        H2Schema.insertQuestions(jdbcTemplate, BenchmarkData.questions(categorySize * 2, 2, 42));
+
+        questionSampler = new QuestionSampler();
+        questionSampler.reseed(42);
+        questionSampler.load(jdbcTemplate.query(H2Schema.SELECT_CATEGORY_KEYS,
+                (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getString(2), rs.getString(3)}));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Benchmark
+    public List<Question> orderByRand() {
+        return jdbcTemplate.query(H2Schema.SELECT_QUESTIONS + " WHERE c.name = ? ORDER BY RAND() LIMIT ?",
+                QUESTION_ROW_MAPPER, CATEGORY, numQ);
+    }
+
+    @Benchmark
+    public List<Question> indexedSampler() {
+        List<Integer> ids = questionSampler.sampleIds(CATEGORY, numQ);
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query(H2Schema.SELECT_QUESTIONS + " WHERE q.question_id IN (" + placeholders + ")",
+                QUESTION_ROW_MAPPER, ids.toArray());
+    }
+}
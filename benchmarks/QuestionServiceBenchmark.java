@@ -0,0 +1,111 @@
+package com.quize.quizproject.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quize.quizproject.metrics.QuizMetrics;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.service.BulkWriteResult;
+import com.quize.quizproject.service.QuestionBulkWriter;
+import com.quize.quizproject.service.QuestionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// The streamed /question/allQuestions body, getQuestionByCategory and the mapping loop in
+// createOrUpdateQuestion, each including writing the response body, with the repository, the entity manager
+// and the JDBC writer replaced by in-memory stand-ins
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuestionServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int questionCount;
+
+    // Size of one /question/ques request body
+    @Param({"100", "1000"})
+    private int upsertSize;
+
+    private QuestionService questionService;
+    private ObjectMapper objectMapper;
+    private JsonNode categoryRequest;
+    private JsonNode upsertRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Question> questions = BenchmarkData.questions(questionCount, 10, 42);
+
+        objectMapper = BenchmarkData.applicationObjectMapper();
+        questionService = new QuestionService();
+        BenchmarkData.inject(questionService, "objectMapper", objectMapper);
+        BenchmarkData.inject(questionService, "questionRepository", InMemoryQuestionRepository.over(questions));
+        BenchmarkData.inject(questionService, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        BenchmarkData.inject(questionService, "questionBulkWriter", new NoOpBulkWriter());
+        BenchmarkData.inject(questionService, "quizMetrics", new QuizMetrics(new SimpleMeterRegistry()));
+        BenchmarkData.inject(questionService, "entityManager", detachedEntityManager());
+        BenchmarkData.inject(questionService, "pageSize", 1000);
+
+        categoryRequest = new ObjectMapper().createObjectNode().put("category", "category-0");
+        upsertRequest = BenchmarkData.upsertRequest(questions.subList(0, Math.min(upsertSize, questions.size())));
+    }
+
+    @Benchmark
+    public void writeAllQuestions() throws IOException {
+        questionService.writeAllQuestions(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void getQuestionByCategory() throws IOException, TimeoutException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), questionService.getQuestionByCategory(categoryRequest));
+    }
+
+    @Benchmark
+    public void createOrUpdateQuestion() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), questionService.createOrUpdateQuestion(upsertRequest));
+    }
+
+    // The in-memory repository keeps no persistence context, so clearing one between pages has nothing to do
+    private static EntityManager detachedEntityManager() {
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("clear")) {
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName() + " is not supported in benchmarks");
+                });
+    }
+
+    // Hands out ids without touching a database, so only the request mapping and response building is timed
+    private static final class NoOpBulkWriter extends QuestionBulkWriter {
+        private int nextId = 1;
+
+        @Override
+        public void write(List<Question> questions, BulkWriteResult result) {
+            for (Question question : questions) {
+                question.setQuestionId(nextId++);
+            }
+        }
+    }
+}
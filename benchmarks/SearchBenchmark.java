@@ -0,0 +1,106 @@
+package com.quize.quizproject.benchmark;
+
+import com.quize.quizproject.repository.QuestionRepository;
+import com.quize.quizproject.service.QuestionCatalog;
+import com.quize.quizproject.service.QuestionSearchIndex;
+import com.quize.quizproject.view.AdminQuestionView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// /question/search latency distribution (read p0.99 off the sample-time output) for the inverted index,
+// against scanning every question with a case-insensitive contains the way LIKE '%...%' would
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int questionCount;
+
+    // rare: one selective word; common: two words every question has; prefix: short prefixes that expand
+    // to many terms; filtered: a common word narrowed by category
+    @Param({"rare", "common", "prefix", "filtered"})
+    private String queryType;
+
+    private QuestionCatalog questionCatalog;
+    private QuestionSearchIndex questionSearchIndex;
+    private String query;
+    private String category;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        QuestionRepository questionRepository = InMemoryQuestionRepository.over(BenchmarkData.questions(questionCount, 20, 42));
+
+        questionCatalog = new QuestionCatalog();
+        BenchmarkData.inject(questionCatalog, "questionRepository", questionRepository);
+        BenchmarkData.inject(questionCatalog, "changeLogSize", 10000);
+        BenchmarkData.inject(questionCatalog, "pageSize", 1000);
+        questionCatalog.refresh();
+
+        questionSearchIndex = new QuestionSearchIndex();
+        BenchmarkData.inject(questionSearchIndex, "questionRepository", questionRepository);
+        BenchmarkData.inject(questionSearchIndex, "questionCatalog", questionCatalog);
+        BenchmarkData.inject(questionSearchIndex, "pageSize", 1000);
+        BenchmarkData.inject(questionSearchIndex, "maxPrefixTerms", 64);
+        questionSearchIndex.refresh();
+
+        switch (queryType) {
+            case "rare":
+                query = "topic " + (questionCount / 2 + 7);
+                break;
+            case "common":
+                query = "statement correct";
+                break;
+            case "prefix":
+                query = "quest " + (questionCount / 1000);
+                break;
+            default:
+                query = "second option " + (questionCount / 100);
+                category = "category-3";
+        }
+    }
+
+    @Benchmark
+    public QuestionSearchIndex.SearchResult invertedIndex() {
+        return questionSearchIndex.search(query, category, null, 20);
+    }
+
+    @Benchmark
+    public List<AdminQuestionView> linearScan() {
+        String[] words = query.toLowerCase(Locale.ROOT).split(" ");
+        List<AdminQuestionView> hits = new ArrayList<>();
+        for (AdminQuestionView question : questionCatalog.snapshot().getQuestions()) {
+            if (category != null && !category.equalsIgnoreCase(question.category())) {
+                continue;
+            }
+            String text = (question.questionTitle() + " " + question.option1() + " " + question.option2() + " "
+                    + question.option3() + " " + question.option4()).toLowerCase(Locale.ROOT);
+            boolean all = true;
+            for (String word : words) {
+                all &= text.contains(word);
+            }
+            if (all && hits.size() < 20) {
+                hits.add(question);
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,183 @@
+package com.quize.quizproject.benchmark;
+
+import com.quize.quizproject.QuizprojectApplication;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.service.QuestionService;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop HTTP load against the real application on H2, for comparing the thread-per-request model
+// with the virtual-thread serving mode. Every client thread sends keyset page requests back to back, each
+// of which runs one repository query. H2 answers in microseconds, so every transaction holds its connection
+// for dbLatencyMs extra to stand in for the MySQL round trip; that wait is what the serving modes handle
+// differently. Prints throughput and latency percentiles for the measured window.
+//   usage: ServingModeLoadTest <platform|virtual> [clients=400] [seconds=20] [dbLatencyMs=5] [warmupSeconds=5]
+//   mvn -P benchmarks compile exec:java -Dbenchmark.main=com.quize.quizproject.benchmark.ServingModeLoadTest \
+//       -Dbenchmark.args="platform 400 20"
+// virtual needs Java 21: add the jdk21 profile (-P benchmarks,jdk21) and run Maven on a Java 21 JDK.
+public final class ServingModeLoadTest {
+
+    private static final int QUESTIONS = 5_000;
+    private static final int PAGE_SIZE = 20;
+
+    private ServingModeLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || !(args[0].equals("platform") || args[0].equals("virtual"))) {
+            System.err.println("usage: ServingModeLoadTest <platform|virtual> [clients] [seconds] [dbLatencyMs] [warmupSeconds]");
+            System.exit(2);
+        }
+        boolean virtual = args[0].equals("virtual");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int dbLatencyMillis = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int warmupSeconds = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+        if (virtual && Runtime.version().feature() < 21) {
+            System.err.println("virtual mode needs Java 21 or later; this is Java " + Runtime.version().feature());
+            System.exit(2);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuizprojectApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "quiz.pool.enabled=false",
+                        "logging.level.root=WARN")
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new SlowConnections(dbLatencyMillis)))
+                .run();
+        try {
+            seed(context);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI base = URI.create("http://localhost:" + port + "/question/allQuestions");
+
+            System.out.printf("%s threads, %d clients, %d ms simulated query latency, Java %d%n",
+                    virtual ? "virtual" : "platform", clients, dbLatencyMillis, Runtime.version().feature());
+            run(base, clients, warmupSeconds, false);
+            run(base, clients, seconds, true);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        List<Question> questions = BenchmarkData.questions(QUESTIONS, 10, 42);
+        for (Question question : questions) {
+            question.setQuestionId(null);
+        }
+        QuestionService questionService = context.getBean(QuestionService.class);
+        questionService.createOrUpdateQuestion(BenchmarkData.upsertRequest(questions));
+    }
+
+    private static void run(URI base, int clients, int seconds, boolean report) throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10)).build();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        AtomicLong errors = new AtomicLong();
+
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            threads[c] = new Thread(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    URI uri = URI.create(base + "?limit=" + PAGE_SIZE + "&after=" + random.nextInt(QUESTIONS));
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = http.send(HttpRequest.newBuilder(uri).GET().build(),
+                                HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                latencies[client] = samples;
+                counts[client] = count;
+            }, "load-client-" + c);
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!report) {
+            return;
+        }
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, offset, counts[c]);
+            offset += counts[c];
+        }
+        Arrays.sort(all);
+        System.out.printf("requests %d in %d s: %.0f req/s, errors %d%n", total, seconds, (double) total / seconds,
+                errors.get());
+        System.out.printf("latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n", percentile(all, 50),
+                percentile(all, 90), percentile(all, 99), all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    // Holds every connection checkout for a fixed time, while the pooled connection is already taken
+    private static final class SlowConnections implements BeanPostProcessor {
+        private final int latencyMillis;
+
+        SlowConnections(int latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || latencyMillis <= 0) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    Connection connection = super.getConnection();
+                    try {
+                        Thread.sleep(latencyMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return connection;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.quize.quizproject.config;
+
+import com.quize.quizproject.config.AdaptiveConcurrencyLimiter.Admission;
+import com.quize.quizproject.config.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// AIMD limit changes, and which priority gets the limit when it is short
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long TARGET_MILLIS = 50;
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(TARGET_MILLIS * 2);
+
+    private final ExecutorService waiters = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        waiters.shutdownNow();
+    }
+
+    @Test
+    void fastResponsesGrowTheLimitOnlyWhileItIsUsed() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 20, TARGET_MILLIS, 0.5, 0.5);
+        // One request at a time never comes near half the limit
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Admission.ADMITTED, limiter.acquire(Priority.HIGH, 0, 0));
+            limiter.release(FAST, false);
+        }
+        assertEquals(10, limiter.getLimit());
+
+        // With nine held, each fast response adds 1/limit
+        for (int i = 0; i < 9; i++) {
+            limiter.acquire(Priority.HIGH, 0, 0);
+        }
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(Priority.HIGH, 0, 0);
+            limiter.release(FAST, false);
+        }
+        assertEquals(14, limiter.getLimit());
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.acquire(Priority.HIGH, 0, 0);
+            limiter.release(FAST, false);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void slowOrOverloadedResponsesCutTheLimitOncePerInterval() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 3, 20, TARGET_MILLIS, 0.5, 0.5);
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire(Priority.HIGH, 0, 0);
+        }
+        limiter.release(SLOW, false);
+        assertEquals(8, limiter.getLimit());
+        // The same burst of slow responses is one signal
+        limiter.release(SLOW, false);
+        assertEquals(8, limiter.getLimit());
+
+        // A fast response that failed on the backend counts as overload too, down to the floor
+        Thread.sleep(TARGET_MILLIS + 10);
+        limiter.release(FAST, true);
+        assertEquals(4, limiter.getLimit());
+        Thread.sleep(TARGET_MILLIS + 10);
+        limiter.release(FAST, true);
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void lowPriorityIsShedFirst() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 4, 4, TARGET_MILLIS, 0.5, 0.5);
+        assertEquals(Admission.ADMITTED, limiter.acquire(Priority.LOW, 0, 0));
+        assertEquals(Admission.ADMITTED, limiter.acquire(Priority.LOW, 0, 0));
+        // LOW has used its half of the limit; HIGH still gets the rest
+        assertEquals(Admission.QUEUE_FULL, limiter.acquire(Priority.LOW, 0, 0));
+        assertEquals(Admission.TIMED_OUT, limiter.acquire(Priority.LOW, 1, 10));
+        assertEquals(Admission.ADMITTED, limiter.acquire(Priority.HIGH, 0, 0));
+        assertEquals(Admission.ADMITTED, limiter.acquire(Priority.HIGH, 0, 0));
+        assertEquals(Admission.QUEUE_FULL, limiter.acquire(Priority.HIGH, 0, 0));
+        assertEquals(Admission.TIMED_OUT, limiter.acquire(Priority.HIGH, 1, 10));
+        assertEquals(4, limiter.getInFlight());
+        assertEquals(0, limiter.getWaiting(Priority.HIGH));
+        assertEquals(0, limiter.getWaiting(Priority.LOW));
+    }
+
+    @Test
+    void queuedHighIsAdmittedBeforeQueuedLow() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2, 2, TARGET_MILLIS, 0.5, 1.0);
+        limiter.acquire(Priority.HIGH, 0, 0);
+        limiter.acquire(Priority.HIGH, 0, 0);
+
+        Future<Admission> low = waiters.submit(() -> limiter.acquire(Priority.LOW, 10, 10_000));
+        awaitTrue(() -> limiter.getWaiting(Priority.LOW) == 1);
+        Future<Admission> high = waiters.submit(() -> limiter.acquire(Priority.HIGH, 10, 10_000));
+        awaitTrue(() -> limiter.getWaiting(Priority.HIGH) == 1);
+
+        // The LOW request queued first, but the free slot goes to HIGH
+        limiter.release(FAST, false);
+        assertEquals(Admission.QUEUED, high.get(5, TimeUnit.SECONDS));
+        assertFalse(low.isDone());
+        assertEquals(1, limiter.getWaiting(Priority.LOW));
+
+        limiter.release(FAST, false);
+        assertEquals(Admission.QUEUED, low.get(5, TimeUnit.SECONDS));
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting");
+            Thread.sleep(1);
+        }
+    }
+}
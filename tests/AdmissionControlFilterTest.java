@@ -0,0 +1,88 @@
+package com.quize.quizproject.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quize.quizproject.metrics.QuizMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// What the filter reports to the limiter once an admitted request is done
+class AdmissionControlFilterTest {
+
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AdmissionControlFilter();
+        ReflectionTestUtils.setField(filter, "quizMetrics", new QuizMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "initialLimit", 20);
+        ReflectionTestUtils.setField(filter, "minLimit", 2);
+        ReflectionTestUtils.setField(filter, "maxLimit", 20);
+        ReflectionTestUtils.setField(filter, "targetLatencyMillis", 10_000L);
+        ReflectionTestUtils.setField(filter, "backoff", 0.5);
+        ReflectionTestUtils.setField(filter, "createShare", 0.5);
+        ReflectionTestUtils.setField(filter, "submitMaxQueue", 10);
+        ReflectionTestUtils.setField(filter, "submitMaxWaitMillis", 100L);
+        filter.init();
+    }
+
+    @Test
+    void okResponseLeavesTheLimit() throws Exception {
+        submit((request, response) -> { });
+        assertEquals(20, filter.getLimiter().getLimit());
+        assertEquals(0, filter.getLimiter().getInFlight());
+    }
+
+    @Test
+    void busyDatabaseCutsTheLimitEvenBehindA200() throws Exception {
+        DatabaseConcurrencyGuard guard = new DatabaseConcurrencyGuard();
+        ReflectionTestUtils.setField(guard, "permits", new Semaphore(0));
+        ReflectionTestUtils.setField(guard, "rejections", new SimpleMeterRegistry().counter("rejections"));
+        ProceedingJoinPoint call = mock(ProceedingJoinPoint.class);
+        when(call.getSignature()).thenReturn(mock(Signature.class));
+
+        // A service that caught the DatabaseBusyException and answered with an error body
+        submit((request, response) -> {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes((HttpServletRequest) request));
+            try {
+                guard.guard(call);
+            } catch (Throwable e) {
+                assertInstanceOf(DatabaseConcurrencyGuard.DatabaseBusyException.class, e);
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        });
+        assertEquals(10, filter.getLimiter().getLimit());
+        assertEquals(0, filter.getLimiter().getInFlight());
+    }
+
+    @Test
+    void serverErrorCutsTheLimit() throws Exception {
+        submit((request, response) -> ((MockHttpServletResponse) response).setStatus(503));
+        assertEquals(10, filter.getLimiter().getLimit());
+    }
+
+    private void submit(FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/quiz/quizSubmit");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+    }
+}
@@ -0,0 +1,99 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.repository.AnswerSheetRow;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compiling a quiz's answer key and looking answers up in it by position
+class AnswerSheetTest {
+
+    @Test
+    void compileSkipsNullIdsAndFindsTheRightOption() {
+        AnswerSheet sheet = AnswerSheet.compile(7, List.of(
+                row(3, "a", "b", "c", "d", "c"),
+                row(null, null, null, null, null, null),
+                row(5, "x", "y", "z", "w", "w")));
+
+        assertEquals(7, sheet.getQuizId());
+        assertEquals(2, sheet.size());
+        assertEquals(3, sheet.questionIdAt(0));
+        assertEquals(5, sheet.questionIdAt(1));
+        assertTrue(sheet.isCorrect(0, 3, null));
+        assertFalse(sheet.isCorrect(0, 1, "c"));
+        assertTrue(sheet.isCorrect(1, 4, "w"));
+        assertEquals("c", sheet.rightAnswer(0));
+        assertEquals("y", sheet.optionText(1, 2));
+        assertNull(sheet.optionText(1, 0));
+        assertNull(sheet.optionText(1, 5));
+    }
+
+    @Test
+    void quizWithoutQuestionsCompilesEmpty() {
+        AnswerSheet sheet = AnswerSheet.compile(7, List.of(row(null, null, null, null, null, null)));
+        assertEquals(0, sheet.size());
+        assertEquals(-1, sheet.positionOf(1, 0));
+        assertFalse(sheet.contains(1));
+    }
+
+    @Test
+    void rightAnswerOutsideTheOptionsIsComparedAsText() {
+        AnswerSheet sheet = AnswerSheet.compile(1, List.of(row(1, "a", "b", "c", "d", "free text")));
+
+        assertEquals(0, sheet.optionOf(0, "free text"));
+        assertTrue(sheet.isCorrect(0, 0, "free text"));
+        assertFalse(sheet.isCorrect(0, 0, "a"));
+        assertFalse(sheet.isCorrect(0, 0, null));
+        // Picking an option never matches a right answer that is none of them
+        assertFalse(sheet.isCorrect(0, 1, null));
+
+        AnswerSheet noAnswer = AnswerSheet.compile(1, List.of(row(1, "a", "b", "c", "d", null)));
+        assertFalse(noAnswer.isCorrect(0, 0, null));
+        assertFalse(noAnswer.isCorrect(0, 1, "a"));
+    }
+
+    @Test
+    void optionOfMatchesTheExactText() {
+        AnswerSheet sheet = AnswerSheet.compile(1, List.of(row(1, "a", "b", null, "d", "b")));
+        assertEquals(2, sheet.optionOf(0, "b"));
+        assertEquals(4, sheet.optionOf(0, "d"));
+        assertEquals(0, sheet.optionOf(0, "B"));
+        assertEquals(0, sheet.optionOf(0, null));
+    }
+
+    @Test
+    void positionOfUsesTheHintThenFallsBackToBinarySearch() {
+        AnswerSheet sheet = AnswerSheet.compile(1, List.of(
+                row(10, "a", "b", "c", "d", "a"),
+                row(20, "a", "b", "c", "d", "a"),
+                row(30, "a", "b", "c", "d", "a"),
+                row(40, "a", "b", "c", "d", "a")));
+
+        // The hint is right
+        assertEquals(2, sheet.positionOf(30, 2));
+        // Wrong, out of range or negative hints still find the question
+        assertEquals(0, sheet.positionOf(10, 3));
+        assertEquals(3, sheet.positionOf(40, 4));
+        assertEquals(1, sheet.positionOf(20, -1));
+        // Not in the quiz, whatever the hint
+        assertEquals(-1, sheet.positionOf(25, 2));
+        assertEquals(-1, sheet.positionOf(5, 0));
+        assertEquals(-1, sheet.positionOf(50, 4));
+        assertTrue(sheet.contains(40));
+        assertFalse(sheet.contains(41));
+    }
+
+    static AnswerSheetRow row(Integer questionId, String option1, String option2, String option3, String option4,
+                              String rightAns) {
+        return new Row(questionId, option1, option2, option3, option4, rightAns);
+    }
+
+    private record Row(Integer getQuestionId, String getOption1, String getOption2, String getOption3,
+                       String getOption4, String getRightAns) implements AnswerSheetRow {
+    }
+}
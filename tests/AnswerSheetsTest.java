@@ -0,0 +1,92 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuizChangeEvent;
+import com.quize.quizproject.repository.AnswerSheetRow;
+import com.quize.quizproject.repository.QuizRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static com.quize.quizproject.service.AnswerSheetTest.row;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Compiled sheets and remembered misses, both dropped by a change to their quiz
+class AnswerSheetsTest {
+
+    private QuizRepository quizRepository;
+    private AnswerSheets sheets;
+
+    @BeforeEach
+    void setUp() {
+        quizRepository = mock(QuizRepository.class);
+        sheets = new AnswerSheets();
+        ReflectionTestUtils.setField(sheets, "quizRepository", quizRepository);
+        ReflectionTestUtils.setField(sheets, "maxEntries", 100);
+        ReflectionTestUtils.setField(sheets, "coalesceTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(sheets, "missTtlMillis", 60_000L);
+    }
+
+    @Test
+    void sheetIsCompiledOnceUntilItsQuizChanges() {
+        List<AnswerSheetRow> rows = List.of(row(10, "a", "b", "c", "d", "a"));
+        when(quizRepository.findAnswerSheetRows(1)).thenReturn(rows);
+
+        AnswerSheet sheet = sheets.get(1);
+        assertSame(sheet, sheets.get(1));
+        verify(quizRepository, times(1)).findAnswerSheetRows(1);
+
+        sheets.onQuizChange(new QuizChangeEvent(1));
+        assertEquals(1, sheets.get(1).size());
+        verify(quizRepository, times(2)).findAnswerSheetRows(1);
+    }
+
+    @Test
+    void unknownQuizIsRememberedUntilItIsCreated() {
+        when(quizRepository.findAnswerSheetRows(99)).thenReturn(List.of());
+
+        assertNull(sheets.get(99));
+        assertNull(sheets.get(99));
+        assertNull(sheets.get(99));
+        verify(quizRepository, times(1)).findAnswerSheetRows(99);
+        assertEquals(0, sheets.size());
+
+        // Creating quiz 99 drops the remembered miss
+        when(quizRepository.findAnswerSheetRows(99)).thenReturn(List.of(row(10, "a", "b", "c", "d", "a")));
+        sheets.onQuizChange(new QuizChangeEvent(99));
+        assertEquals(1, sheets.get(99).size());
+        verify(quizRepository, times(2)).findAnswerSheetRows(99);
+    }
+
+    @Test
+    void missIsAskedAgainOnceItsTtlHasPassed() throws InterruptedException {
+        ReflectionTestUtils.setField(sheets, "missTtlMillis", 20L);
+        when(quizRepository.findAnswerSheetRows(99)).thenReturn(List.of());
+
+        assertNull(sheets.get(99));
+        assertNull(sheets.get(99));
+        verify(quizRepository, times(1)).findAnswerSheetRows(99);
+        Thread.sleep(40);
+        assertNull(sheets.get(99));
+        verify(quizRepository, times(2)).findAnswerSheetRows(99);
+    }
+
+    @Test
+    void missThatRacedWithAChangeIsNotRemembered() {
+        // The quiz is created while the miss is being read
+        when(quizRepository.findAnswerSheetRows(99)).thenAnswer(invocation -> {
+            sheets.onQuizChange(new QuizChangeEvent(99));
+            return List.of();
+        });
+        assertNull(sheets.get(99));
+        assertNull(sheets.get(99));
+        verify(quizRepository, times(2)).findAnswerSheetRows(99);
+    }
+}
@@ -0,0 +1,249 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// Striped answer counters and their delta flush into question_answer_stats
+class AnswerStatsTest {
+
+    private QuestionCatalog catalog;
+    private JdbcTemplate jdbcTemplate;
+    private AnswerStats stats;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new QuestionCatalog();
+        ReflectionTestUtils.setField(catalog, "changeLogSize", 100);
+        catalog.onQuestionChange(QuestionChangeEvent.upserted(List.of(question(1), question(2))));
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        stats = new AnswerStats();
+        ReflectionTestUtils.setField(stats, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(stats, "questionCatalog", catalog);
+        ReflectionTestUtils.setField(stats, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(stats, "flushBatchSize", 500);
+    }
+
+    @Test
+    void recordCountsAttemptsCorrectAnswersAndPicks() {
+        // Question 3 has no known answer, so it is not counted
+        stats.record(new int[]{1, 2, 3}, new String[]{"b", "c", "a"}, new String[]{"x", "b", "b", null}, 1);
+        stats.record(new int[]{1}, new String[]{"other"}, new String[]{"b"}, 0);
+
+        AnswerStats.Stats first = stats.get(1);
+        assertEquals(2, first.attempts());
+        assertEquals(1, first.correct());
+        assertArrayEquals(new long[]{0, 1, 0, 0}, first.optionPicks());
+        assertEquals(0.5, first.correctRate());
+        assertArrayEquals(new long[]{0, 0, 1, 0}, stats.get(2).optionPicks());
+        assertNull(stats.get(3));
+    }
+
+    @Test
+    void concurrentGradersLoseNoIncrement() throws InterruptedException {
+        int threads = 8;
+        int perThread = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> graders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String response = t % 2 == 0 ? "a" : "d";
+            Thread grader = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    stats.record(new int[]{1}, new String[]{response}, new String[]{"a"}, 0);
+                }
+            });
+            grader.start();
+            graders.add(grader);
+        }
+        start.countDown();
+        for (Thread grader : graders) {
+            grader.join();
+        }
+
+        AnswerStats.Stats totals = stats.get(1);
+        assertEquals((long) threads * perThread, totals.attempts());
+        assertEquals((long) threads / 2 * perThread, totals.correct());
+        assertArrayEquals(new long[]{threads / 2 * perThread, 0, 0, threads / 2 * perThread}, totals.optionPicks());
+    }
+
+    @Test
+    void flushUpsertsOnlyWhatChangedSinceTheLastFlush() throws Exception {
+        stats.record(new int[]{1, 2}, new String[]{"a", "b"}, new String[]{"a", "a"}, 0);
+        stats.flush();
+        assertEquals(List.of(List.of(1L, 1L, 1L, 1L, 0L, 0L, 0L), List.of(2L, 1L, 0L, 0L, 1L, 0L, 0L)), upserts());
+        assertEquals(2, stats.getFlushedRows());
+
+        // Nothing new, nothing written
+        clearInvocations(jdbcTemplate);
+        stats.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(Collection.class), anyInt(), any());
+
+        stats.record(new int[]{2}, new String[]{"a"}, new String[]{"a"}, 0);
+        stats.flush();
+        assertEquals(List.of(List.of(2L, 1L, 1L, 1L, 0L, 0L, 0L)), upserts());
+        assertEquals(2, stats.get(2).attempts());
+    }
+
+    @Test
+    void failedFlushIsRetriedWithTheLargerDelta() throws Exception {
+        doThrow(new RuntimeException("database down")).when(jdbcTemplate)
+                .batchUpdate(startsWith("INSERT"), any(Collection.class), anyInt(), any());
+        stats.record(new int[]{1}, new String[]{"a"}, new String[]{"a"}, 0);
+        stats.flush();
+        assertEquals(1, stats.getFlushFailures());
+        assertEquals(0, stats.getFlushedRows());
+
+        clearInvocations(jdbcTemplate);
+        doReturn(new int[0][]).when(jdbcTemplate)
+                .batchUpdate(startsWith("INSERT"), any(Collection.class), anyInt(), any());
+        stats.record(new int[]{1}, new String[]{"b"}, new String[]{"a"}, 0);
+        stats.flush();
+        assertEquals(List.of(List.of(1L, 2L, 1L, 1L, 1L, 0L, 0L)), upserts());
+    }
+
+    @Test
+    void deletedQuestionIsNotFlushedBack() throws Exception {
+        stats.record(new int[]{1, 2}, new String[]{"a", "a"}, new String[]{"a", "a"}, 0);
+        QuestionChangeEvent deleted = QuestionChangeEvent.deleted(1);
+        catalog.onQuestionChange(deleted);
+        stats.onQuestionChange(deleted);
+        assertNull(stats.get(1));
+
+        // A grader that looked question 1 up before the delete still answers it afterwards
+        stats.record(new int[]{1}, new String[]{"a"}, new String[]{"a"}, 0);
+        stats.flush();
+
+        assertEquals(List.of(List.of(1L)), deletes());
+        assertEquals(List.of(List.of(2L, 1L, 1L, 1L, 0L, 0L, 0L)), upserts());
+        assertNull(stats.get(1));
+        assertEquals(1, stats.size());
+
+        // The delete went through, so the next flush does not repeat it, and answers arriving even later are
+        // still not counted
+        clearInvocations(jdbcTemplate);
+        stats.record(new int[]{1}, new String[]{"a"}, new String[]{"a"}, 0);
+        stats.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(Collection.class), anyInt(), any());
+        assertNull(stats.get(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deletedCountersLeftByARacingGraderAreNotFlushed() throws Exception {
+        // The grader made its counters just before the delete marked the id, as if it had lost the race
+        QuestionChangeEvent deleted = QuestionChangeEvent.deleted(1);
+        stats.record(new int[]{1}, new String[]{"a"}, new String[]{"a"}, 0);
+        Object counters = ((Map<?, ?>) ReflectionTestUtils.getField(stats, "counters")).get(1);
+        stats.onQuestionChange(deleted);
+        ((Map<Integer, Object>) ReflectionTestUtils.getField(stats, "counters")).put(1, counters);
+
+        stats.flush();
+        assertEquals(List.of(List.of(1L)), deletes());
+        assertEquals(List.of(), upserts());
+        assertEquals(0, stats.size());
+    }
+
+    @Test
+    void questionWrittenAgainUnderADeletedIdIsCountedAgain() throws Exception {
+        QuestionChangeEvent deleted = QuestionChangeEvent.deleted(1);
+        catalog.onQuestionChange(deleted);
+        stats.onQuestionChange(deleted);
+        stats.record(new int[]{1}, new String[]{"a"}, new String[]{"a"}, 0);
+        assertNull(stats.get(1));
+
+        QuestionChangeEvent restored = QuestionChangeEvent.upserted(List.of(question(1)));
+        catalog.onQuestionChange(restored);
+        stats.onQuestionChange(restored);
+        stats.record(new int[]{1}, new String[]{"a"}, new String[]{"a"}, 0);
+        stats.flush();
+
+        // The old row goes before the new counts are written
+        assertEquals(List.of(List.of(1L)), deletes());
+        assertEquals(List.of(List.of(1L, 1L, 1L, 1L, 0L, 0L, 0L)), upserts());
+    }
+
+    private List<List<Long>> upserts() throws Exception {
+        return written("INSERT", 7);
+    }
+
+    private List<List<Long>> deletes() throws Exception {
+        return written("DELETE", 1);
+    }
+
+    // Runs the statement setter of the one batch whose SQL starts with prefix, and reads back its parameters
+    @SuppressWarnings("unchecked")
+    private List<List<Long>> written(String prefix, int columns) throws Exception {
+        ArgumentCaptor<Collection<Object>> batch = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(startsWith(prefix), batch.capture(), anyInt(), setter.capture());
+
+        List<List<Long>> rows = new ArrayList<>();
+        for (Object item : batch.getValue()) {
+            Long[] values = new Long[columns];
+            PreparedStatement ps = mock(PreparedStatement.class);
+            doAnswer(invocation -> {
+                values[(int) invocation.getArgument(0) - 1] = ((Number) invocation.getArgument(1)).longValue();
+                return null;
+            }).when(ps).setInt(anyInt(), anyInt());
+            doAnswer(invocation -> {
+                values[(int) invocation.getArgument(0) - 1] = invocation.getArgument(1);
+                return null;
+            }).when(ps).setLong(anyInt(), anyLong());
+            setter.getValue().setValues(ps, item);
+            rows.add(List.of(values));
+        }
+        return rows;
+    }
+
+    private static Question question(int id) {
+        Question question = new Question();
+        question.setQuestionId(id);
+        question.setQuestionTitle("Question " + id);
+        question.setOption1("a");
+        question.setOption2("b");
+        question.setOption3("c");
+        question.setOption4("d");
+        question.setRightAns("a");
+        question.setCategory("java");
+        question.setDifficultyLevel("easy");
+        return question;
+    }
+}
@@ -0,0 +1,93 @@
+package com.quize.quizproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The answer-key index's open-addressing table, checked against a HashMap
+class AnswerTableTest {
+
+    @Test
+    void putOverwritesAndKeepsQuestionsWithoutAnswer() {
+        AnswerKeyIndex.AnswerTable table = new AnswerKeyIndex.AnswerTable(4);
+        table.put(7, "a");
+        table.put(7, "b");
+        table.put(8, null);
+
+        assertEquals(2, table.size());
+        assertEquals("b", table.answerAt(table.indexOf(7)));
+        assertTrue(table.indexOf(8) >= 0);
+        assertNull(table.answerAt(table.indexOf(8)));
+        assertEquals(-1, table.indexOf(9));
+    }
+
+    @Test
+    void resizeKeepsEveryEntry() {
+        AnswerKeyIndex.AnswerTable table = new AnswerKeyIndex.AnswerTable(0);
+        assertEquals(16, table.capacity());
+        for (int key = 0; key < 1000; key++) {
+            table.put(key, "answer-" + key);
+        }
+        assertEquals(1000, table.size());
+        assertTrue(table.capacity() >= 2000);
+        for (int key = 0; key < 1000; key++) {
+            assertEquals("answer-" + key, table.answerAt(table.indexOf(key)));
+        }
+    }
+
+    @Test
+    void removeKeepsProbeChainsIntact() {
+        // Filled to just under the resize threshold, so removals land inside probe chains
+        AnswerKeyIndex.AnswerTable table = new AnswerKeyIndex.AnswerTable(64);
+        int capacity = table.capacity();
+        for (int key = 0; key < capacity / 2 - 1; key++) {
+            table.put(key, "v" + key);
+        }
+        assertEquals(capacity, table.capacity());
+        for (int key = 0; key < capacity / 2 - 1; key += 3) {
+            table.remove(key);
+        }
+        table.remove(12345);
+        for (int key = 0; key < capacity / 2 - 1; key++) {
+            int slot = table.indexOf(key);
+            if (key % 3 == 0) {
+                assertEquals(-1, slot);
+            } else {
+                assertEquals("v" + key, table.answerAt(slot));
+            }
+        }
+        assertEquals(capacity / 2 - 1 - (capacity / 2 + 1) / 3, table.size());
+    }
+
+    @Test
+    void randomOperationsMatchAHashMap() {
+        Random random = new Random(42);
+        AnswerKeyIndex.AnswerTable table = new AnswerKeyIndex.AnswerTable(16);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int step = 0; step < 50_000; step++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                table.remove(key);
+                expected.remove(key);
+            } else {
+                String answer = random.nextInt(10) == 0 ? null : "a" + random.nextInt(100);
+                table.put(key, answer);
+                expected.put(key, answer);
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (int key = -1000; key < 1000; key++) {
+            int slot = table.indexOf(key);
+            assertEquals(expected.containsKey(key), slot >= 0, "key " + key);
+            if (slot >= 0) {
+                assertEquals(expected.get(key), table.answerAt(slot));
+            }
+        }
+    }
+}
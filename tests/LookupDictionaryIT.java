@@ -0,0 +1,113 @@
+package com.quize.quizproject.it;
+
+import com.quize.quizproject.repository.LookupDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// A name added inside a transaction is private to it until it commits, and forgotten if it rolls back. Other
+// requests are played by a second thread, which gets its own connection outside the transaction.
+class LookupDictionaryIT {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:lookup-dictionary;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final TransactionTemplate transactionTemplate =
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final ExecutorService otherRequest = Executors.newSingleThreadExecutor();
+    private LookupDictionary categories;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE question_category (category_id SMALLINT NOT NULL AUTO_INCREMENT, "
+                + "name VARCHAR(45) NOT NULL, PRIMARY KEY (category_id), "
+                + "CONSTRAINT uk_question_category_name UNIQUE (name))");
+        jdbcTemplate.update("INSERT INTO question_category (name) VALUES ('java')");
+        // No miss TTL, so every lookup the other thread makes reaches the table
+        categories = new LookupDictionary(dataSource, "question_category", "category_id", 0);
+        categories.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherRequest.shutdownNow();
+        jdbcTemplate.execute("DROP TABLE question_category");
+    }
+
+    @Test
+    void nameAddedInATransactionIsHeldUntilItCommits() {
+        short id = transactionTemplate.execute(status -> {
+            short added = categories.idOf("sql");
+            // The transaction sees its own row, in memory and in the table
+            assertEquals(added, categories.findId("sql"));
+            assertEquals("sql", categories.nameOf(added));
+            assertEquals(added, categories.idOf("sql"));
+            // Nobody else does, neither from the dictionary nor from the uncommitted row
+            assertNull(fromOtherRequest("sql"));
+            assertEquals(1, categories.size());
+            return added;
+        });
+
+        assertEquals(id, fromOtherRequest("sql"));
+        assertEquals(id, categories.findId("sql"));
+        assertEquals(2, categories.size());
+        // The published name is the one instance every later lookup shares
+        assertSame(categories.nameOf(id), categories.canonical("sql"));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM question_category WHERE name = 'sql'", Integer.class));
+    }
+
+    @Test
+    void nameAddedInARolledBackTransactionIsForgotten() {
+        short id = transactionTemplate.execute(status -> {
+            short added = categories.idOf("sql");
+            status.setRollbackOnly();
+            return added;
+        });
+
+        assertNull(categories.findId("sql"));
+        assertNull(fromOtherRequest("sql"));
+        assertEquals(1, categories.size());
+        assertThrows(IllegalStateException.class, () -> categories.nameOf(id));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM question_category WHERE name = 'sql'", Integer.class));
+
+        // Adding it again outside a transaction publishes it straight away
+        short again = categories.idOf("sql");
+        assertEquals(again, fromOtherRequest("sql"));
+        assertEquals("sql", categories.nameOf(again));
+    }
+
+    @Test
+    void existingNameIsSharedInsideATransaction() {
+        short java = categories.findId("java");
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(java, categories.idOf("java"));
+            status.setRollbackOnly();
+        });
+        // Rolling back a transaction that only read a name leaves it in place
+        assertEquals(java, categories.findId("java"));
+        assertEquals(1, categories.size());
+    }
+
+    private Short fromOtherRequest(String name) {
+        try {
+            return otherRequest.submit(() -> categories.findId(name)).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new AssertionError("Lookup of '" + name + "' from another request failed", e);
+        }
+    }
+}
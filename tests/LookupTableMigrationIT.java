@@ -0,0 +1,147 @@
+package com.quize.quizproject.it;
+
+import com.quize.quizproject.config.LookupTableMigration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Moving a question table with legacy category and difficulty strings onto the lookup tables, and running
+// the move again after instances of the previous release wrote more rows without keys
+class LookupTableMigrationIT {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:lookup-table-migration;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final LookupTableMigration migration = new LookupTableMigration();
+
+    // The question table as the previous release left it
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE question (question_id INT NOT NULL AUTO_INCREMENT, "
+                + "category VARCHAR(45), difficulty_level VARCHAR(45), question_title VARCHAR(150), "
+                + "PRIMARY KEY (question_id))");
+        insertLegacy("java", "easy", "java", "hard", "sql", "easy");
+        jdbcTemplate.update("INSERT INTO question (question_title) VALUES ('no category')");
+        ReflectionTestUtils.setField(migration, "dataSource", dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void legacyValuesAreMovedToLookupTables() throws Exception {
+        // Off, startup refuses a table whose values have no keys yet
+        IllegalStateException unkeyed = assertThrows(IllegalStateException.class, migration::migrate);
+        assertTrue(unkeyed.getMessage().startsWith("6 question category or difficulty values have no lookup key"),
+                unkeyed.getMessage());
+
+        ReflectionTestUtils.setField(migration, "enabled", true);
+        migration.migrate();
+
+        assertEquals(List.of("java", "sql"), names("question_category"));
+        assertEquals(List.of("easy", "hard"), names("question_difficulty"));
+        assertEquals(0, unkeyedRows());
+        assertKeysMatchNames();
+        assertEquals(1, foreignKeys("fk_question_category"));
+        assertEquals(1, foreignKeys("fk_question_difficulty"));
+        assertTrue(hasIndexOnCategoryId());
+        // The legacy columns stay for instances of the previous release
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM question WHERE category IS NOT NULL AND difficulty_level IS NOT NULL",
+                Integer.class));
+
+        ReflectionTestUtils.setField(migration, "enabled", false);
+        assertDoesNotThrow(migration::migrate);
+    }
+
+    @Test
+    void rerunKeysRowsWrittenWithoutKeysMeanwhile() throws Exception {
+        ReflectionTestUtils.setField(migration, "enabled", true);
+        migration.migrate();
+        Map<String, Object> java = jdbcTemplate.queryForMap(
+                "SELECT category_id FROM question_category WHERE name = 'java'");
+
+        // An old instance writes only the strings, one of them a category nobody used before
+        insertLegacy("java", "medium", "python", "easy");
+        ReflectionTestUtils.setField(migration, "enabled", false);
+        IllegalStateException unkeyed = assertThrows(IllegalStateException.class, migration::migrate);
+        assertTrue(unkeyed.getMessage().startsWith("4 question"), unkeyed.getMessage());
+
+        ReflectionTestUtils.setField(migration, "enabled", true);
+        migration.migrate();
+
+        assertEquals(List.of("java", "python", "sql"), names("question_category"));
+        assertEquals(List.of("easy", "hard", "medium"), names("question_difficulty"));
+        // Existing names keep their ids, and every step that already ran is skipped
+        assertEquals(java, jdbcTemplate.queryForMap("SELECT category_id FROM question_category WHERE name = 'java'"));
+        assertEquals(0, unkeyedRows());
+        assertKeysMatchNames();
+        assertEquals(1, foreignKeys("fk_question_category"));
+        assertEquals(1, foreignKeys("fk_question_difficulty"));
+
+        ReflectionTestUtils.setField(migration, "enabled", false);
+        assertDoesNotThrow(migration::migrate);
+    }
+
+    // Pairs of category and difficulty
+    private void insertLegacy(String... values) {
+        for (int i = 0; i < values.length; i += 2) {
+            jdbcTemplate.update("INSERT INTO question (category, difficulty_level, question_title) VALUES (?, ?, ?)",
+                    values[i], values[i + 1], values[i] + " " + values[i + 1]);
+        }
+    }
+
+    private List<String> names(String table) {
+        return jdbcTemplate.queryForList("SELECT name FROM " + table + " ORDER BY name", String.class);
+    }
+
+    private int unkeyedRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM question WHERE category IS NOT NULL AND "
+                + "category_id IS NULL OR difficulty_level IS NOT NULL AND difficulty_id IS NULL", Integer.class);
+    }
+
+    private void assertKeysMatchNames() {
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM question q "
+                + "LEFT JOIN question_category c ON c.category_id = q.category_id "
+                + "LEFT JOIN question_difficulty d ON d.difficulty_id = q.difficulty_id "
+                + "WHERE q.category IS NOT NULL AND (c.name IS NULL OR c.name <> q.category) "
+                + "OR q.difficulty_level IS NOT NULL AND (d.name IS NULL OR d.name <> q.difficulty_level)",
+                Integer.class));
+        // The row without a category stays without a key
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM question WHERE category_id IS NULL", Integer.class));
+    }
+
+    private int foreignKeys(String name) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS "
+                + "WHERE CONSTRAINT_TYPE = 'FOREIGN KEY' AND UPPER(CONSTRAINT_NAME) = UPPER(?)", Integer.class,
+                name);
+    }
+
+    private boolean hasIndexOnCategoryId() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             ResultSet info = connection.getMetaData().getIndexInfo(null, null, "QUESTION", false, false)) {
+            while (info.next()) {
+                if ("CATEGORY_ID".equalsIgnoreCase(info.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,57 @@
+package com.quize.quizproject.it;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quize.quizproject.service.QuestionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Category reads are served from the second-level cache, and question writes evict what they change
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:question-cache;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "quiz.pool.enabled=false"})
+class QuestionCacheIT {
+
+    private static final String QUESTION = "{\"category\":\"java\",\"questionTitle\":\"%s\",\"option1\":\"x\","
+            + "\"option2\":\"y\",\"option3\":\"z\",\"option4\":\"w\",\"rightAns\":\"x\",\"difficultyLevel\":\"easy\"}";
+
+    @Autowired
+    private QuestionService questionService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void repeatedCategoryFetchRunsNoSql() throws Exception {
+        // The saved questions come back as a POJO node, so read the ids from its JSON
+        JsonNode saved = objectMapper.readTree(objectMapper.writeValueAsString(questionService.createOrUpdateQuestion(
+                objectMapper.readTree("[" + QUESTION.formatted("first") + "," + QUESTION.formatted("second") + "]"))));
+        int questionId = saved.get(0).get("questionId").asInt();
+        JsonNode request = objectMapper.readTree("{\"category\":\"java\"}");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        questionService.getQuestionByCategory(request);
+        statistics.clear();
+        questionService.getQuestionByCategory(request);
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        questionService.createOrUpdateQuestion(objectMapper.readTree("[" + QUESTION.formatted("changed")
+                .replace("{", "{\"questionId\":" + questionId + ",") + "]"));
+        assertTrue(objectMapper.writeValueAsString(questionService.getQuestionByCategory(request)).contains("changed"));
+
+        questionService.deleteQuestion(questionId);
+        assertFalse(objectMapper.writeValueAsString(questionService.getQuestionByCategory(request)).contains("changed"));
+    }
+}
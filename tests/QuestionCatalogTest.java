@@ -0,0 +1,189 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.QuestionRepository;
+import com.quize.quizproject.view.AdminQuestionView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Snapshots, the change log behind changesSince, and what a write shares with the snapshot before it
+class QuestionCatalogTest {
+
+    private QuestionCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new QuestionCatalog();
+        ReflectionTestUtils.setField(catalog, "changeLogSize", 3);
+        ReflectionTestUtils.setField(catalog, "pageSize", 2);
+    }
+
+    @Test
+    void deltaHoldsWhatChangedSinceAVersion() {
+        write(1, 2);
+        write(3);
+        QuestionCatalog.Snapshot third = write(1);
+
+        assertEquals(3, third.getVersion());
+        QuestionCatalog.Delta delta = catalog.changesSince(third, catalog.getEpoch(), 1);
+        assertEquals(List.of(1, 3), ids(delta.upserted()));
+        assertEquals(List.of(), delta.deleted());
+        assertEquals("q1 v3", delta.upserted().get(0).questionTitle());
+
+        // A client already on the latest version gets an empty delta, not a full snapshot
+        QuestionCatalog.Delta none = catalog.changesSince(third, catalog.getEpoch(), 3);
+        assertTrue(none.upserted().isEmpty() && none.deleted().isEmpty());
+        assertEquals(List.of(1, 2, 3), ids(third.getQuestions()));
+    }
+
+    @Test
+    void questionUpsertedThenDeletedIsReportedDeleted() {
+        write(1);
+        write(5);
+        catalog.onQuestionChange(QuestionChangeEvent.deleted(5));
+        QuestionCatalog.Snapshot snapshot = catalog.snapshot();
+
+        QuestionCatalog.Delta fromStart = catalog.changesSince(snapshot, catalog.getEpoch(), 0);
+        assertEquals(List.of(1), ids(fromStart.upserted()));
+        assertEquals(List.of(5), fromStart.deleted());
+        QuestionCatalog.Delta sinceUpsert = catalog.changesSince(snapshot, catalog.getEpoch(), 2);
+        assertEquals(List.of(), sinceUpsert.upserted());
+        assertEquals(List.of(5), sinceUpsert.deleted());
+        assertNull(snapshot.get(5));
+        assertEquals(1, snapshot.size());
+
+        // Both in one event: the delete wins
+        catalog.onQuestionChange(new QuestionChangeEvent(List.of(question(7, 1)), List.of(7)));
+        assertNull(catalog.snapshot().get(7));
+        assertEquals(List.of(7), catalog.changesSince(catalog.snapshot(), catalog.getEpoch(), 3).deleted());
+    }
+
+    @Test
+    void logWrapsAndRegrowsWithoutDisturbingOlderSnapshots() {
+        QuestionCatalog.Snapshot second = null;
+        for (int id = 1; id <= 7; id++) {
+            QuestionCatalog.Snapshot snapshot = write(id);
+            if (id == 2) {
+                second = snapshot;
+            }
+        }
+        QuestionCatalog.Snapshot seventh = catalog.snapshot();
+        // The log keeps the last 3 changes, so clients on version 4 or later still get a delta
+        assertEquals(List.of(7, 6, 5), ids(catalog.changesSince(seventh, catalog.getEpoch(), 4).upserted()));
+        assertNull(catalog.changesSince(seventh, catalog.getEpoch(), 3));
+
+        // The next write moves the kept entries to a new array; older snapshots keep reading the old one
+        QuestionCatalog.Snapshot eighth = write(8);
+        assertNotSame(ReflectionTestUtils.getField(seventh, "log"), ReflectionTestUtils.getField(eighth, "log"));
+        assertEquals(List.of(8, 7, 6), ids(catalog.changesSince(eighth, catalog.getEpoch(), 5).upserted()));
+        assertNull(catalog.changesSince(eighth, catalog.getEpoch(), 4));
+        assertEquals(List.of(7, 6, 5), ids(catalog.changesSince(seventh, catalog.getEpoch(), 4).upserted()));
+        // Version 2 never saw the entries appended after it
+        assertEquals(List.of(2, 1), ids(catalog.changesSince(second, catalog.getEpoch(), 0).upserted()));
+
+        // A write touching more ids than the log keeps loses some of its own entries, so only clients already
+        // on it get a delta
+        QuestionCatalog.Snapshot wide = write(10, 11, 12, 13);
+        assertNull(catalog.changesSince(wide, catalog.getEpoch(), 8));
+        assertTrue(catalog.changesSince(wide, catalog.getEpoch(), 9).upserted().isEmpty());
+        QuestionCatalog.Snapshot after = write(14);
+        assertEquals(List.of(14), ids(catalog.changesSince(after, catalog.getEpoch(), 9).upserted()));
+    }
+
+    @Test
+    void epochMismatchOrUnknownVersionNeedsAFullSnapshot() {
+        write(1);
+        QuestionCatalog.Snapshot snapshot = write(2);
+
+        assertNull(catalog.changesSince(snapshot, catalog.getEpoch() - 1, 1));
+        assertNull(catalog.changesSince(snapshot, catalog.getEpoch(), 3));
+        assertEquals(List.of(2), ids(catalog.changesSince(snapshot, catalog.getEpoch(), 1).upserted()));
+
+        // A reload cannot say what changed, so every earlier version falls below the delta floor
+        QuestionRepository repository = mock(QuestionRepository.class);
+        when(repository.findByQuestionIdGreaterThanOrderByQuestionIdAsc(eq(0), any()))
+                .thenReturn(List.of(question(1, 1), question(2, 1)));
+        when(repository.findByQuestionIdGreaterThanOrderByQuestionIdAsc(eq(2), any()))
+                .thenReturn(List.of(question(4, 1)));
+        ReflectionTestUtils.setField(catalog, "questionRepository", repository);
+        catalog.refresh();
+
+        QuestionCatalog.Snapshot loaded = catalog.snapshot();
+        assertTrue(loaded.isLoaded());
+        assertEquals(3, loaded.getVersion());
+        assertEquals(List.of(1, 2, 4), ids(loaded.getQuestions()));
+        assertNull(catalog.changesSince(loaded, catalog.getEpoch(), 2));
+        QuestionCatalog.Delta none = catalog.changesSince(loaded, catalog.getEpoch(), 3);
+        assertTrue(none.upserted().isEmpty() && none.deleted().isEmpty());
+        assertEquals(List.of(5), ids(catalog.changesSince(write(5), catalog.getEpoch(), 3).upserted()));
+    }
+
+    @Test
+    void writeCopiesOnlyThePagesItTouches() {
+        // Ids 1 and 2 share the first page; 300 and 600 each have their own
+        QuestionCatalog.Snapshot before = write(1, 2, 300, 600);
+        QuestionCatalog.Snapshot after = write(2);
+        QuestionCatalog.Pages beforePages = pages(before);
+        QuestionCatalog.Pages afterPages = pages(after);
+
+        Object[] beforeIndex = (Object[]) ReflectionTestUtils.getField(beforePages, "pages");
+        Object[] afterIndex = (Object[]) ReflectionTestUtils.getField(afterPages, "pages");
+        assertEquals(3, afterIndex.length);
+        assertNotSame(beforeIndex[0], afterIndex[0]);
+        assertSame(beforeIndex[1], afterIndex[1]);
+        assertSame(beforeIndex[2], afterIndex[2]);
+        assertEquals("q2 v1", before.get(2).questionTitle());
+        assertEquals("q2 v2", after.get(2).questionTitle());
+        assertSame(before.get(1), after.get(1));
+
+        // Emptying a page drops it from the index; a write with nothing in it shares the whole table
+        catalog.onQuestionChange(QuestionChangeEvent.deleted(300));
+        QuestionCatalog.Snapshot deleted = catalog.snapshot();
+        assertEquals(2, ((Object[]) ReflectionTestUtils.getField(pages(deleted), "pages")).length);
+        assertEquals(List.of(1, 2, 600), ids(deleted.getQuestions()));
+        assertEquals(3, deleted.size());
+        assertEquals(4, after.size());
+        catalog.onQuestionChange(new QuestionChangeEvent(null, null));
+        assertSame(pages(deleted), pages(catalog.snapshot()));
+    }
+
+    private QuestionCatalog.Snapshot write(int... questionIds) {
+        long version = catalog.snapshot().getVersion() + 1;
+        catalog.onQuestionChange(QuestionChangeEvent.upserted(Arrays.stream(questionIds)
+                .mapToObj(id -> question(id, version)).toList()));
+        return catalog.snapshot();
+    }
+
+    private static QuestionCatalog.Pages pages(QuestionCatalog.Snapshot snapshot) {
+        return (QuestionCatalog.Pages) ReflectionTestUtils.getField(snapshot, "questions");
+    }
+
+    private static List<Integer> ids(Collection<AdminQuestionView> questions) {
+        return questions.stream().map(AdminQuestionView::questionId).toList();
+    }
+
+    // Titled with the version it was written at, so a test can tell copies of one question apart
+    private static Question question(int id, long version) {
+        Question question = new Question();
+        question.setQuestionId(id);
+        question.setQuestionTitle("q" + id + " v" + version);
+        question.setCategory("java");
+        return question;
+    }
+}
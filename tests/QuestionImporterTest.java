@@ -0,0 +1,219 @@
+package com.quize.quizproject.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Streaming imports: row validation and errors, resuming, and per-chunk commits, with the writer mocked
+class QuestionImporterTest {
+
+    private QuestionBulkWriter writer;
+    private ApplicationEventPublisher publisher;
+    private QuestionImporter importer;
+    // The titles of each chunk handed to the writer
+    private final List<List<String>> chunks = new ArrayList<>();
+    // Chunk number (from 1) the writer fails on, 0 for none
+    private int failOnChunk;
+
+    @BeforeEach
+    void setUp() {
+        writer = mock(QuestionBulkWriter.class);
+        publisher = mock(ApplicationEventPublisher.class);
+        importer = new QuestionImporter();
+        ReflectionTestUtils.setField(importer, "questionBulkWriter", writer);
+        ReflectionTestUtils.setField(importer, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(importer, "eventPublisher", publisher);
+        ReflectionTestUtils.setField(importer, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(importer, "chunkSize", 2);
+        ReflectionTestUtils.setField(importer, "maxReportedErrors", 100);
+        ReflectionTestUtils.setField(importer, "historySize", 50);
+
+        doAnswer(invocation -> {
+            List<Question> questions = invocation.getArgument(0);
+            chunks.add(questions.stream().map(Question::getQuestionTitle).toList());
+            if (chunks.size() == failOnChunk) {
+                throw new IllegalStateException("database down");
+            }
+            BulkWriteResult result = invocation.getArgument(1);
+            result.addBatch("insert", new ArrayList<>(questions), 0);
+            return null;
+        }).when(writer).write(any(), any());
+    }
+
+    @Test
+    void invalidRowsAreRejectedWithTheirRowNumber() {
+        String ndjson = String.join("\n",
+                line("q1", "a"),
+                "{\"category\":\"java\",\"option1\":\"a\",\"option2\":\"b\",\"option3\":\"c\",\"option4\":\"d\",\"rightAns\":\"a\"}",
+                line("q3", "e"),
+                line("x".repeat(151), "a"),
+                line("q5", "a").replace("\"java\"", "\"  \""),
+                "[1, 2]",
+                line("q7", "a").replace("{", "{\"questionId\":\"seven\","),
+                line("q8", "b"));
+
+        ImportReport report = run(ndjson, QuestionImporter.Format.NDJSON, 0, null);
+
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals(8, report.getRowsRead());
+        assertEquals(2, report.getInserted());
+        assertEquals(6, report.getRejected());
+        assertEquals(Map.of(
+                2L, "questionTitle is required.",
+                3L, "rightAns must be one of the four options.",
+                4L, "questionTitle is longer than 150 characters.",
+                5L, "category is required.",
+                6L, "Row must be an object of question fields.",
+                7L, "questionId must be a number."), errors(report));
+        assertEquals(List.of(List.of("q1", "q8")), chunks);
+        assertEquals(8, report.getLastCommittedRow());
+    }
+
+    @Test
+    void blankAndMalformedLinesDoNotStopTheImport() {
+        String ndjson = line("q1", "a") + "\n\n   \n{\"category\": \n" + line("q5", "b") + "\nnot json\n" + line("q7", "c");
+
+        ImportReport report = run(ndjson, QuestionImporter.Format.NDJSON, 0, null);
+
+        assertEquals("COMPLETED", report.getStatus());
+        // Blank lines are not rows, but they still count towards the line numbers rows are reported by
+        assertEquals(5, report.getRowsRead());
+        assertEquals(3, report.getInserted());
+        assertEquals(2, report.getRejected());
+        assertEquals(List.of(4L, 6L), new ArrayList<>(errors(report).keySet()));
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("Malformed JSON: "));
+        assertEquals(List.of(List.of("q1", "q5"), List.of("q7")), chunks);
+    }
+
+    @Test
+    void rowsUpToResumeAfterAreReadButNotWritten() {
+        String ndjson = String.join("\n", line("q1", "a"), line("q2", "a"), line("q3", "a"), line("q4", "a"),
+                line("q5", "a"));
+
+        ImportReport report = run(ndjson, QuestionImporter.Format.NDJSON, 3, null);
+
+        assertEquals(3, report.getResumeAfter());
+        assertEquals(3, report.getRowsSkipped());
+        assertEquals(2, report.getRowsRead());
+        assertEquals(List.of(List.of("q4", "q5")), chunks);
+        assertEquals(5, report.getLastCommittedRow());
+    }
+
+    @Test
+    void eachChunkCommitsAndAFailureKeepsTheLastCommittedRow() {
+        failOnChunk = 3;
+        String csv = "category,questionTitle,option1,option2,option3,option4,rightAns,difficultyLevel\n"
+                + "java,q1,a,b,c,d,a,easy\n"
+                + "java,q2,a,b,c,d,b,easy\n"
+                + "java,q3,a,b,c,d,x,easy\n"
+                + "java,q4,a,b,c,d,c,easy\n"
+                + "java,q5,a,b,c,d,d,easy\n"
+                + "java,q6,a,b,c,d,d,easy\n"
+                + "java,q7,a,b,c,d,d,easy\n";
+
+        ImportReport report = run(csv, QuestionImporter.Format.CSV, 0, null);
+
+        assertEquals("FAILED", report.getStatus());
+        assertEquals("database down", report.getFailure());
+        assertEquals(List.of(List.of("q1", "q2"), List.of("q4", "q5"), List.of("q6", "q7")), chunks);
+        assertEquals(2, report.getChunksCommitted());
+        assertEquals(4, report.getInserted());
+        // Row 3 was rejected inside the second chunk, so a retry resumes after row 5
+        assertEquals(5, report.getLastCommittedRow());
+        assertEquals(Map.of(3L, "rightAns must be one of the four options."), errors(report));
+        // Listeners hear about the committed chunks only
+        verify(publisher, times(2)).publishEvent(any(QuestionChangeEvent.class));
+    }
+
+    @Test
+    void brokenCsvQuoteFailsTheImport() {
+        String csv = "category,questionTitle,option1,option2,option3,option4,rightAns\n"
+                + "java,q1,a,b,c,d,a\n"
+                + "java,q2,a,b,c,d,a\n"
+                + "java,\"q3,a,b,c,d,a\n"
+                + "java,q4,a,b,c,d,a\n";
+
+        ImportReport report = run(csv, QuestionImporter.Format.CSV, 0, null);
+
+        assertEquals("FAILED", report.getStatus());
+        assertTrue(report.getFailure().startsWith("Unreadable CSV at record 3"), report.getFailure());
+        assertEquals(List.of(List.of("q1", "q2")), chunks);
+        assertEquals(2, report.getLastCommittedRow());
+    }
+
+    @Test
+    void runningImportIdIsRefused() {
+        failOnChunk = -1;
+        List<Exception> refused = new ArrayList<>();
+        doAnswer(invocation -> {
+            refused.add(assertThrows(IllegalArgumentException.class,
+                    () -> run(line("q2", "a"), QuestionImporter.Format.NDJSON, 0, "bank-1")));
+            BulkWriteResult result = invocation.getArgument(1);
+            result.addBatch("insert", new ArrayList<>(invocation.<List<Question>>getArgument(0)), 0);
+            return null;
+        }).when(writer).write(any(), any());
+
+        ImportReport report = run(line("q1", "a"), QuestionImporter.Format.NDJSON, 0, "bank-1");
+
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals("Import bank-1 is already running.", refused.get(0).getMessage());
+        assertSame(report, importer.getReport("bank-1"));
+        // Once finished, the id can be used again
+        ReflectionTestUtils.setField(importer, "questionBulkWriter", mock(QuestionBulkWriter.class));
+        ImportReport again = run(line("q1", "a"), QuestionImporter.Format.NDJSON, 1, "bank-1");
+        assertFalse(again.isRunning());
+        assertSame(again, importer.getReport("bank-1"));
+    }
+
+    @Test
+    void formatIsDetectedFromTheParameterOrTheHint() {
+        assertEquals(QuestionImporter.Format.CSV, QuestionImporter.Format.detect("csv", null));
+        assertEquals(QuestionImporter.Format.NDJSON, QuestionImporter.Format.detect(" NDJSON ", "text/csv"));
+        assertEquals(QuestionImporter.Format.CSV, QuestionImporter.Format.detect(null, "bank.CSV"));
+        assertEquals(QuestionImporter.Format.NDJSON, QuestionImporter.Format.detect("", "application/x-ndjson"));
+        assertEquals(QuestionImporter.Format.NDJSON, QuestionImporter.Format.detect(null, null));
+        assertThrows(IllegalArgumentException.class, () -> QuestionImporter.Format.detect("xml", null));
+    }
+
+    private ImportReport run(String body, QuestionImporter.Format format, long resumeAfter, String importId) {
+        InputStream in = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        return importer.importQuestions(in, format, resumeAfter, importId);
+    }
+
+    private static Map<Long, String> errors(ImportReport report) {
+        return report.getErrors().stream().collect(Collectors.toMap(ImportReport.RowError::getRow,
+                ImportReport.RowError::getMessage, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static String line(String title, String rightAns) {
+        return "{\"category\":\"java\",\"questionTitle\":\"" + title + "\",\"option1\":\"a\",\"option2\":\"b\","
+                + "\"option3\":\"c\",\"option4\":\"d\",\"rightAns\":\"" + rightAns + "\",\"difficultyLevel\":\"easy\"}";
+    }
+}
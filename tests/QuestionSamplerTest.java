@@ -0,0 +1,181 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import com.quize.quizproject.repository.QuestionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Sampling over loaded (category, difficulty) buckets, reseeded so every run draws the same questions
+class QuestionSamplerTest {
+
+    private QuestionSampler sampler;
+
+    // java: ids 1-30, ten per level; sql: ids 101-105, all easy
+    @BeforeEach
+    void setUp() {
+        sampler = new QuestionSampler();
+        List<Object[]> rows = new ArrayList<>();
+        String[] levels = {"easy", "medium", "hard"};
+        for (int id = 1; id <= 30; id++) {
+            rows.add(new Object[]{id, "Java", levels[(id - 1) / 10]});
+        }
+        for (int id = 101; id <= 105; id++) {
+            rows.add(new Object[]{id, "sql", "easy"});
+        }
+        sampler.load(rows);
+        sampler.reseed(42);
+    }
+
+    @Test
+    void sampleIdsAreDistinctAndFromTheCategory() {
+        for (int numQ = 1; numQ <= 30; numQ++) {
+            List<Integer> ids = sampler.sampleIds("java", numQ);
+            assertEquals(numQ, ids.size());
+            assertEquals(numQ, new HashSet<>(ids).size());
+            assertTrue(ids.stream().allMatch(id -> id >= 1 && id <= 30), ids::toString);
+        }
+    }
+
+    @Test
+    void sampleIdsStaysWithinBounds() {
+        assertEquals(5, new HashSet<>(sampler.sampleIds("SQL", 50)).size());
+        assertTrue(sampler.sampleIds("java", 0).isEmpty());
+        assertTrue(sampler.sampleIds("java", -1).isEmpty());
+        assertTrue(sampler.sampleIds("python", 3).isEmpty());
+    }
+
+    @Test
+    void caseFoldingIgnoresTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            sampler.load(List.<Object[]>of(new Object[]{201, "LINUX", "EASY"}, new Object[]{202, "Linux", "easy"}));
+            assertEquals("linux", QuestionSampler.categoryKey("LINUX"));
+            assertEquals(Set.of(201, 202), new HashSet<>(sampler.sampleIds("linux", 5)));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void sameSeedDrawsTheSameQuiz() {
+        sampler.reseed(7);
+        List<Integer> first = sampler.sampleIds("java", 10);
+        sampler.reseed(7);
+        assertEquals(first, sampler.sampleIds("java", 10));
+    }
+
+    @Test
+    void sampleMixedIdsTakesEachLevelsCount() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("Easy", 3);
+        counts.put("medium", 2);
+        counts.put("hard", 0);
+        List<Integer> ids = sampler.sampleMixedIds("java", counts);
+        assertEquals(5, ids.size());
+        assertEquals(5, new HashSet<>(ids).size());
+        assertEquals(3, ids.stream().filter(id -> id <= 10).count());
+        assertEquals(2, ids.stream().filter(id -> id > 10 && id <= 20).count());
+
+        // A level with too few questions gives all it has, and an unknown one gives nothing
+        Map<String, Integer> tooFew = new LinkedHashMap<>();
+        tooFew.put("easy", 8);
+        tooFew.put("expert", 2);
+        assertEquals(Set.of(101, 102, 103, 104, 105), new HashSet<>(sampler.sampleMixedIds("sql", tooFew)));
+    }
+
+    @Test
+    void allocateCountsAddUpToNumQ() {
+        Map<String, Double> even = new LinkedHashMap<>();
+        even.put("easy", 1.0);
+        even.put("medium", 1.0);
+        even.put("hard", 1.0);
+        assertEquals(Map.of("easy", 4, "medium", 3, "hard", 3), QuestionSampler.allocate(10, even));
+
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            Map<String, Double> weights = new LinkedHashMap<>();
+            weights.put("easy", random.nextDouble() * 100);
+            weights.put("medium", random.nextDouble() * 100);
+            weights.put("hard", random.nextDouble() * 100);
+            int numQ = random.nextInt(50);
+            Map<String, Integer> counts = QuestionSampler.allocate(numQ, weights);
+            assertEquals(numQ, counts.values().stream().mapToInt(Integer::intValue).sum());
+            double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                assertTrue(Math.abs(count.getValue() - numQ * weights.get(count.getKey()) / total) < 1);
+            }
+        }
+    }
+
+    @Test
+    void refreshKeepsChangesThatArriveWhileItReads() {
+        QuestionRepository repository = mock(QuestionRepository.class);
+        ReflectionTestUtils.setField(sampler, "questionRepository", repository);
+        List<Object[]> staleRows = new ArrayList<>();
+        staleRows.add(new Object[]{1, "java", "easy"});
+        staleRows.add(new Object[]{2, "java", "easy"});
+        when(repository.findAllCategoryKeys()).thenAnswer(invocation -> {
+            // Committed after the query's snapshot: a new question, and question 2 deleted
+            sampler.onQuestionChange(QuestionChangeEvent.upserted(List.of(question(3, "java", "easy"))));
+            sampler.onQuestionChange(QuestionChangeEvent.deleted(2));
+            return staleRows;
+        });
+
+        sampler.refresh();
+
+        assertEquals(Set.of(1, 3), new HashSet<>(sampler.sampleIds("java", 10)));
+        assertEquals(0, sampler.categorySize("sql"));
+    }
+
+    @Test
+    void movesAndDeletesKeepEachBucketExact() {
+        // Every other java question moves to sql and every fifth is deleted, in an order unrelated to position
+        List<Question> moved = new ArrayList<>();
+        for (int id = 30; id >= 1; id -= 2) {
+            moved.add(question(id, "sql", "easy"));
+        }
+        sampler.onQuestionChange(QuestionChangeEvent.upserted(moved));
+        for (int id = 5; id <= 30; id += 5) {
+            sampler.onQuestionChange(QuestionChangeEvent.deleted(id));
+        }
+        // Moving a question to where it already is changes nothing
+        sampler.onQuestionChange(QuestionChangeEvent.upserted(List.of(question(1, "java", "easy"))));
+
+        Set<Integer> java = new HashSet<>();
+        Set<Integer> sql = new HashSet<>(Set.of(101, 102, 103, 104, 105));
+        for (int id = 1; id <= 30; id++) {
+            if (id % 5 != 0) {
+                (id % 2 == 0 ? sql : java).add(id);
+            }
+        }
+        assertEquals(java, new HashSet<>(sampler.sampleIds("java", 100)));
+        assertEquals(sql, new HashSet<>(sampler.sampleIds("sql", 100)));
+        assertEquals(java.size(), sampler.categorySize("java"));
+        assertEquals(sql.size(), sampler.categorySize("sql"));
+    }
+
+    private static Question question(int id, String category, String difficulty) {
+        Question question = new Question();
+        question.setQuestionId(id);
+        question.setCategory(category);
+        question.setDifficultyLevel(difficulty);
+        return question;
+    }
+}
@@ -0,0 +1,181 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Matching, ranking and incremental upkeep of the search index, with hits read back from a real catalog
+class QuestionSearchIndexTest {
+
+    private QuestionCatalog catalog;
+    private QuestionSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new QuestionCatalog();
+        ReflectionTestUtils.setField(catalog, "changeLogSize", 100);
+        index = new QuestionSearchIndex();
+        ReflectionTestUtils.setField(index, "questionCatalog", catalog);
+        ReflectionTestUtils.setField(index, "maxPrefixTerms", 50);
+
+        write(question(1, "What is a Java interface", "class", "contract", "loop", "thread", "java", "easy"),
+                question(2, "Which keyword starts a loop", "for", "interface", "goto", "case", "java", "medium"),
+                question(3, "What does SELECT return", "rows", "tables", "locks", "views", "sql", "easy"),
+                question(4, "Pick the interfaces of a list", "Iterable", "Runnable", "Closeable", "Cloneable",
+                        "java", "hard"));
+    }
+
+    @Test
+    void titleMatchRanksAboveOptionAndExactAbovePrefix() {
+        // 1 has "interface" in its title, 2 only in an option, 4 only "interfaces" as a prefix match in its title
+        assertEquals(List.of(1, 4, 2), ids(index.search("interface", null, null, 10)));
+        assertEquals(3, index.search("interface", null, null, 10).total());
+        assertEquals(List.of(1, 4), ids(index.search("Interface", null, null, 2)));
+    }
+
+    @Test
+    void everyTokenAndFilterMustMatch() {
+        assertEquals(List.of(1), ids(index.search("java interface", null, null, 10)));
+        assertEquals(List.of(1, 3), ids(index.search("what", null, null, 10)));
+        assertEquals(List.of(3), ids(index.search("what", "SQL", null, 10)));
+        assertEquals(List.of(4), ids(index.search("interface", null, "hard", 10)));
+        assertEquals(0, index.search("interface", "python", null, 10).total());
+        assertEquals(0, index.search("interface missing", null, null, 10).total());
+        assertEquals(0, index.search("  ", null, null, 10).total());
+    }
+
+    @Test
+    void updateAndDeleteChangeWhatMatches() {
+        write(question(1, "What is a Java record", "class", "contract", "loop", "thread", "java", "easy"));
+        assertEquals(List.of(1), ids(index.search("record", null, null, 10)));
+        // Exact option hit and prefix title hit on the same now-unique term score alike; the lower id goes first
+        assertEquals(List.of(2, 4), ids(index.search("interface", null, null, 10)));
+
+        // Moving "loop" from an option into the title only changes its field bits
+        write(question(2, "Which loop keyword", "for", "interface", "goto", "case", "java", "medium"));
+        assertEquals(List.of(2, 1), ids(index.search("loop", null, null, 10)));
+
+        delete(2);
+        assertEquals(List.of(4), ids(index.search("interface", null, null, 10)));
+        assertEquals(List.of(1), ids(index.search("loop", null, null, 10)));
+        assertEquals(0, index.search("goto", null, null, 10).total());
+    }
+
+    @Test
+    void caseFoldingIgnoresTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            write(question(7, "INIT SYSTEMS", "systemd", "runit", "upstart", "openrc", "LINUX", "MEDIUM"));
+            assertEquals(List.of(7), ids(index.search("init", "linux", "medium", 10)));
+            assertEquals(List.of(7), ids(index.search("Init", "Linux", "Medium", 10)));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void termsNoQuestionUsesAnyMoreFreeTheirSlots() {
+        write(question(5, "zebra quagga", "okapi", "tapir", "gnu", "yak", "zoo", "easy"));
+        int slots = index.termSlots();
+
+        // Question 5 was the only one holding any of its terms, so its slots are all handed out again
+        delete(5);
+        write(question(6, "ferret marten", "stoat", "mink", "otter", "sable", "zoo", "easy"));
+        assertEquals(slots, index.termSlots());
+        assertEquals(0, index.search("zebra", null, null, 10).total());
+        assertEquals(List.of(6), ids(index.search("stoat", "zoo", null, 10)));
+
+        // And the slots question 6 gives up go to the next new terms the same way
+        delete(6);
+        write(question(6, "heron egret", "stork", "crane", "ibis", "rail", "zoo", "easy"));
+        assertEquals(slots, index.termSlots());
+        assertEquals(List.of(6), ids(index.search("crane", null, "easy", 10)));
+    }
+
+    @Test
+    void postingsMatchATreeMap() {
+        Random random = new Random(42);
+        QuestionSearchIndex.Postings postings = new QuestionSearchIndex.Postings();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        // Mostly ascending appends, with enough out-of-order adds, updates and removes to cross skip blocks
+        int next = 1;
+        for (int step = 0; step < 5000; step++) {
+            int choice = random.nextInt(10);
+            int fields = 1 + random.nextInt(3);
+            if (choice < 6) {
+                next += 1 + random.nextInt(300);
+                postings.add(next, fields);
+                expected.put(next, fields);
+            } else if (choice < 8) {
+                int id = 1 + random.nextInt(next);
+                postings.add(id, fields);
+                expected.put(id, fields);
+            } else {
+                int id = 1 + random.nextInt(next);
+                postings.remove(id);
+                expected.remove(id);
+            }
+        }
+        assertTrue(expected.size() > 4 * QuestionSearchIndex.Postings.SKIP_INTERVAL);
+
+        Map<Integer, Integer> decoded = new TreeMap<>();
+        postings.forEach(decoded::put);
+        assertEquals(expected, decoded);
+        for (int id = 0; id <= next + 1; id++) {
+            assertEquals(expected.getOrDefault(id, -1), postings.find(id), "id " + id);
+        }
+
+        for (Integer id : new ArrayList<>(expected.keySet())) {
+            postings.setFields(id, 3);
+            assertEquals(3, postings.find(id));
+            postings.remove(id);
+            assertEquals(-1, postings.find(id));
+        }
+        postings.forEach((id, fields) -> {
+            throw new AssertionError("left over " + id);
+        });
+    }
+
+    private void write(Question... questions) {
+        QuestionChangeEvent event = QuestionChangeEvent.upserted(List.of(questions));
+        catalog.onQuestionChange(event);
+        index.onQuestionChange(event);
+    }
+
+    private void delete(int questionId) {
+        QuestionChangeEvent event = QuestionChangeEvent.deleted(questionId);
+        catalog.onQuestionChange(event);
+        index.onQuestionChange(event);
+    }
+
+    private static List<Integer> ids(QuestionSearchIndex.SearchResult result) {
+        return result.hits().stream().map(hit -> hit.question().questionId()).toList();
+    }
+
+    private static Question question(int id, String title, String option1, String option2, String option3,
+                                     String option4, String category, String difficulty) {
+        Question question = new Question();
+        question.setQuestionId(id);
+        question.setQuestionTitle(title);
+        question.setOption1(option1);
+        question.setOption2(option2);
+        question.setOption3(option3);
+        question.setOption4(option4);
+        question.setCategory(category);
+        question.setDifficultyLevel(difficulty);
+        return question;
+    }
+}
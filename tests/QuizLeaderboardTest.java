@@ -0,0 +1,77 @@
+package com.quize.quizproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Ranking by best score, earlier achievement first on a tie, with tied scores sharing a rank
+class QuizLeaderboardTest {
+
+    @Test
+    void topOrdersByScoreThenByWhoGotThereFirst() {
+        QuizLeaderboard board = new QuizLeaderboard(1);
+        board.offer("carol", 7, 10, 300);
+        board.offer("alice", 9, 10, 200);
+        board.offer("bob", 7, 10, 100);
+        board.offer("dave", 4, 10, 50);
+
+        List<QuizLeaderboard.Standing> top = board.top(10);
+        assertEquals(List.of("alice", "bob", "carol", "dave"), top.stream().map(s -> s.entry().userId()).toList());
+        assertEquals(List.of(1L, 2L, 2L, 4L), top.stream().map(QuizLeaderboard.Standing::rank).toList());
+        assertEquals(2, board.top(2).size());
+    }
+
+    @Test
+    void onlyABetterScoreReplacesTheBest() {
+        QuizLeaderboard board = new QuizLeaderboard(1);
+        assertTrue(board.offer("alice", 5, 10, 100));
+        assertFalse(board.offer("alice", 4, 10, 200));
+        assertFalse(board.offer("alice", 5, 10, 300));
+        // The same score reached earlier counts as better
+        assertTrue(board.offer("alice", 5, 10, 50));
+        assertTrue(board.offer("alice", 8, 10, 400));
+
+        assertEquals(1, board.size());
+        List<QuizLeaderboard.Standing> top = board.top(10);
+        assertEquals(1, top.size());
+        assertEquals(new QuizLeaderboard.Entry("alice", 8, 10, 400), top.get(0).entry());
+    }
+
+    @Test
+    void standingOfCountsUsersOnHigherScores() {
+        QuizLeaderboard board = new QuizLeaderboard(1);
+        board.offer("alice", 9, 10, 100);
+        board.offer("bob", 7, 10, 200);
+        board.offer("carol", 7, 10, 300);
+        board.offer("dave", 3, 10, 400);
+
+        assertEquals(1, board.standingOf("alice").rank());
+        assertEquals(2, board.standingOf("bob").rank());
+        assertEquals(2, board.standingOf("carol").rank());
+        assertEquals(4, board.standingOf("dave").rank());
+        assertNull(board.standingOf("erin"));
+
+        // dave overtakes everyone; the others move down one
+        board.offer("dave", 10, 10, 500);
+        assertEquals(1, board.standingOf("dave").rank());
+        assertEquals(2, board.standingOf("alice").rank());
+        assertEquals(3, board.standingOf("carol").rank());
+    }
+
+    @Test
+    void restoredScoresAreNotSnapshottedAgain() {
+        QuizLeaderboard board = new QuizLeaderboard(1);
+        board.restore("alice", 6, 10, 100);
+        board.offer("bob", 5, 10, 200);
+        board.offer("alice", 4, 10, 300);
+
+        assertEquals(List.of("bob"), board.drainChanged().stream().map(QuizLeaderboard.Entry::userId).toList());
+        assertTrue(board.drainChanged().isEmpty());
+        assertEquals(6, board.standingOf("alice").entry().correctAnswers());
+    }
+}
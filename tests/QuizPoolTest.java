@@ -0,0 +1,135 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.event.QuestionChangeEvent;
+import com.quize.quizproject.model.Question;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// A question write only drains the pools of the categories it touched
+class QuizPoolTest {
+
+    private QuestionSampler sampler;
+    private QuizPool pool;
+    // Run once by the next sampleIds, after it has drawn its list
+    private Runnable duringSample;
+
+    // java: ids 1-10, sql: ids 11-20, each with a pool of two-question quizzes kept two deep
+    @BeforeEach
+    void setUp() {
+        sampler = new QuestionSampler() {
+            @Override
+            public List<Integer> sampleIds(String category, int numQ) {
+                List<Integer> ids = super.sampleIds(category, numQ);
+                Runnable hook = duringSample;
+                duringSample = null;
+                if (hook != null) {
+                    hook.run();
+                }
+                return ids;
+            }
+        };
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 1; id <= 20; id++) {
+            rows.add(new Object[]{id, id <= 10 ? "java" : "sql", "easy"});
+        }
+        sampler.load(rows);
+        sampler.reseed(42);
+
+        pool = new QuizPool();
+        ReflectionTestUtils.setField(pool, "questionSampler", sampler);
+        ReflectionTestUtils.setField(pool, "enabled", true);
+        ReflectionTestUtils.setField(pool, "minDepth", 2);
+        ReflectionTestUtils.setField(pool, "maxDepth", 2);
+        ReflectionTestUtils.setField(pool, "refillHorizonSeconds", 30);
+        ReflectionTestUtils.setField(pool, "maxRefillPerTick", 100);
+        ReflectionTestUtils.setField(pool, "maxNumQ", 50);
+        ReflectionTestUtils.setField(pool, "maxPools", 100);
+        ReflectionTestUtils.setField(pool, "idleEvictSeconds", 600);
+
+        // The first claim registers the pool, the refill fills it
+        assertNull(pool.claim("java", 2));
+        assertNull(pool.claim("sql", 2));
+        pool.refill();
+        assertEquals(Map.of("java", 2, "sql", 2), depths());
+    }
+
+    @Test
+    void writeDrainsOnlyItsCategory() {
+        pool.onQuestionChange(QuestionChangeEvent.upserted(List.of(question(21, "SQL"))));
+        assertEquals(Map.of("java", 2, "sql", 0), depths());
+    }
+
+    @Test
+    void recategorisedQuestionDrainsItsPreviousCategory() {
+        // The pool's listener runs before the sampler's, so the sampler still has question 3 under java
+        QuestionChangeEvent event = QuestionChangeEvent.upserted(List.of(question(3, "python")));
+        pool.onQuestionChange(event);
+        sampler.onQuestionChange(event);
+        assertEquals(Map.of("java", 0, "sql", 2), depths());
+    }
+
+    @Test
+    void deleteDrainsItsCategory() {
+        pool.onQuestionChange(QuestionChangeEvent.deleted(15));
+        assertEquals(Map.of("java", 2, "sql", 0), depths());
+    }
+
+    @Test
+    void listSampledBeforeAWriteIsNotQueuedAfterIt() {
+        pool.claim("java", 2);
+        pool.claim("java", 2);
+        QuestionChangeEvent event = QuestionChangeEvent.upserted(List.of(question(3, "python")));
+        duringSample = () -> write(event);
+
+        pool.refill();
+        assertEquals(Map.of("java", 0, "sql", 2), depths());
+        pool.refill();
+        assertEquals(Map.of("java", 2, "sql", 2), depths());
+        assertFalse(pool.claim("java", 2).contains(3));
+        assertFalse(pool.claim("java", 2).contains(3));
+    }
+
+    @Test
+    void listQueuedBeforeTheSamplerHasTheWriteIsDrained() {
+        pool.claim("java", 2);
+        pool.claim("java", 2);
+        QuestionChangeEvent event = QuestionChangeEvent.upserted(List.of(question(3, "python")));
+
+        // A refill between QuizPool's first listener and the sampler's still samples question 3 as java
+        pool.onQuestionChange(event);
+        pool.refill();
+        sampler.onQuestionChange(event);
+        pool.afterSamplerChange(event);
+        assertEquals(Map.of("java", 0, "sql", 2), depths());
+    }
+
+    // The listeners in the order the event reaches them
+    private void write(QuestionChangeEvent event) {
+        pool.onQuestionChange(event);
+        sampler.onQuestionChange(event);
+        pool.afterSamplerChange(event);
+    }
+
+    private Map<String, Integer> depths() {
+        return pool.stats().stream().collect(Collectors.toMap(QuizPool.PoolStats::getCategory,
+                QuizPool.PoolStats::getDepth));
+    }
+
+    private static Question question(int id, String category) {
+        Question question = new Question();
+        question.setQuestionId(id);
+        question.setCategory(category);
+        question.setDifficultyLevel("easy");
+        return question;
+    }
+}
@@ -0,0 +1,63 @@
+package com.quize.quizproject.it;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quize.quizproject.service.QuestionService;
+import com.quize.quizproject.service.QuizService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A quiz and its questions are read with one statement, whether or not the questions are in the entity cache
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:quiz-question-query;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "quiz.pool.enabled=false"})
+class QuizQuestionQueryIT {
+
+    private static final String QUESTION = "{\"category\":\"java\",\"questionTitle\":\"%s\",\"option1\":\"x\","
+            + "\"option2\":\"y\",\"option3\":\"z\",\"option4\":\"w\",\"rightAns\":\"x\",\"difficultyLevel\":\"easy\"}";
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuestionService questionService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void quizQuestionsRunOneStatement() throws Exception {
+        questionService.createOrUpdateQuestion(objectMapper.readTree(
+                "[" + QUESTION.formatted("a") + "," + QUESTION.formatted("b") + "," + QUESTION.formatted("c") + "]"));
+        int quizId = quizService.createQuiz(objectMapper.readTree("{\"title\":\"t\",\"category\":\"java\",\"numQ\":3}"))
+                .get("quizId").asInt();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        JsonNode quiz = json(quizService.getQuizQuestion(quizId));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, quiz.get("questions").size());
+        assertFalse(quiz.get("questions").get(0).has("rightAns"));
+
+        statistics.clear();
+        assertTrue(json(quizService.getQuizQuestion(quizId + 1)).has("error"));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    // The questions come back as a POJO node, so compare its JSON
+    private JsonNode json(JsonNode node) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsString(node));
+    }
+}
@@ -0,0 +1,169 @@
+package com.quize.quizproject.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Overlapping calls for one key, held inside the loader by latches so every caller is known to overlap
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        Future<String> leader = executor.submit(() -> flight.execute("k", 5000, () -> blockedLoad("value")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        List<Future<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            waiters.add(executor.submit(() -> flight.execute("k", 5000, () -> blockedLoad("other"))));
+        }
+        awaitCount(flight::getCoalesced, 4);
+        assertEquals(1, flight.inFlight());
+
+        release.countDown();
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> waiter : waiters) {
+            assertEquals("value", waiter.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, flight.getExecutions());
+        assertEquals(4, flight.getCoalesced());
+        assertEquals(0, flight.inFlight());
+
+        // The flight is over, so the next call loads again
+        assertEquals("again", flight.execute("k", 5000, () -> "again"));
+        assertEquals(2, flight.getExecutions());
+    }
+
+    @Test
+    void loaderExceptionReachesEveryWaiter() throws Exception {
+        IOException failure = new IOException("database down");
+        Future<String> leader = executor.submit(() -> flight.execute("k", 5000, () -> {
+            blockedLoad("unused");
+            throw failure;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        List<Future<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waiters.add(executor.submit(() -> flight.execute("k", 5000, () -> "unused")));
+        }
+        awaitCount(flight::getCoalesced, 3);
+
+        release.countDown();
+        assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        for (Future<String> waiter : waiters) {
+            assertSame(failure, assertThrows(ExecutionException.class,
+                    () -> waiter.get(5, TimeUnit.SECONDS)).getCause());
+        }
+        assertEquals(1, flight.getFailures());
+        assertEquals(1, flight.getExecutions());
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void waiterTimeoutDoesNotCancelTheLoad() throws Exception {
+        Future<String> leader = executor.submit(() -> flight.execute("k", 5000, () -> blockedLoad("value")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // The loader is held until after this caller gives up
+        assertThrows(TimeoutException.class, () -> flight.execute("k", 10, () -> "unused"));
+        assertEquals(1, flight.getTimeouts());
+        assertEquals(1, flight.inFlight());
+
+        Future<String> patient = executor.submit(() -> flight.execute("k", 5000, () -> "unused"));
+        awaitCount(flight::getCoalesced, 2);
+        release.countDown();
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("value", patient.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, flight.getTimeouts());
+        assertEquals(0, flight.getFailures());
+    }
+
+    @Test
+    void forgetStartsAFreshLoadWhileOldWaitersKeepTheirs() throws Exception {
+        Future<String> leader = executor.submit(() -> flight.execute("k", 5000, () -> blockedLoad("old")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<String> waiter = executor.submit(() -> flight.execute("k", 5000, () -> "unused"));
+        awaitCount(flight::getCoalesced, 1);
+
+        flight.forget("k");
+        assertEquals(0, flight.inFlight());
+        assertEquals("fresh", flight.execute("k", 5000, () -> "fresh"));
+        assertEquals(2, flight.getExecutions());
+
+        release.countDown();
+        assertEquals("old", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("old", waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void forgetAllDropsEveryKey() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        List<Future<String>> leaders = new ArrayList<>();
+        for (String key : List.of("a", "b")) {
+            leaders.add(executor.submit(() -> flight.execute(key, 5000, () -> {
+                bothStarted.countDown();
+                return blockedLoad("old " + key);
+            })));
+        }
+        assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(2, flight.inFlight());
+
+        flight.forgetAll();
+        assertEquals(0, flight.inFlight());
+        assertEquals("fresh a", flight.execute("a", 5000, () -> "fresh a"));
+        assertEquals("fresh b", flight.execute("b", 5000, () -> "fresh b"));
+        assertEquals(4, flight.getExecutions());
+        assertEquals(0, flight.getCoalesced());
+
+        release.countDown();
+        assertEquals("old a", leaders.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals("old b", leaders.get(1).get(5, TimeUnit.SECONDS));
+    }
+
+    // Counts the load, tells the test it has started, then holds it until released
+    private String blockedLoad(String value) throws InterruptedException {
+        loads.incrementAndGet();
+        started.countDown();
+        assertTrue(release.await(5, TimeUnit.SECONDS));
+        return value;
+    }
+
+    // Callers are counted just before they block, so this is the only way to know they are all waiting
+    private static void awaitCount(LongSupplier counter, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter.getAsLong() < expected) {
+            assertTrue(System.nanoTime() < deadline, "only " + counter.getAsLong() + " of " + expected);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.quize.quizproject.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static com.quize.quizproject.service.AnswerSheetTest.row;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Quiz-scoped submissions graded on the quiz's answer sheet, strictly for /quiz/quizSubmit and leniently
+// for the pipeline; loose ones against the answer-key index
+class SubmissionGraderTest {
+
+    private AnswerKeyIndex answerKeyIndex;
+    private AnswerSheets answerSheets;
+    private AnswerStats answerStats;
+    private SubmissionGrader grader;
+
+    // Quiz 1: questions 10, 20, 30 with right options 1, 2 and a free-text answer
+    @BeforeEach
+    void setUp() {
+        answerKeyIndex = mock(AnswerKeyIndex.class);
+        answerSheets = mock(AnswerSheets.class);
+        answerStats = mock(AnswerStats.class);
+        grader = new SubmissionGrader();
+        ReflectionTestUtils.setField(grader, "answerKeyIndex", answerKeyIndex);
+        ReflectionTestUtils.setField(grader, "answerSheets", answerSheets);
+        ReflectionTestUtils.setField(grader, "answerStats", answerStats);
+
+        when(answerSheets.get(1)).thenReturn(AnswerSheet.compile(1, List.of(
+                row(10, "a", "b", "c", "d", "a"),
+                row(20, "a", "b", "c", "d", "b"),
+                row(30, "a", "b", "c", "d", "anything"))));
+    }
+
+    @Test
+    void responsesAreGradedOnTheSheetInAnyOrder() {
+        Submission submission = new Submission(new int[]{30, 10, 20}, new String[]{"anything", "a", "c"}, null, 3,
+                1, null);
+        GradeResult result = grader.grade(submission);
+        assertEquals(3, result.getTotalQuestions());
+        assertEquals(2, result.getCorrectAnswers());
+        verify(answerStats).record(new int[]{30, 10, 20}, new String[]{"anything", "a", "c"},
+                new String[]{"anything", "a", "b"}, 0);
+    }
+
+    @Test
+    void optionsAreGradedByIndexAndCountedByText() {
+        // Question 20 picks option 2, question 10 sends a text instead, question 30 picks an option
+        Submission submission = new Submission(new int[]{10, 20, 30}, new String[]{"a", null, null},
+                new byte[]{0, 2, 1}, 3, 1, null);
+        assertEquals(2, grader.grade(submission).getCorrectAnswers());
+        verify(answerStats).record(new int[]{10, 20, 30}, new String[]{"a", "b", "a"},
+                new String[]{"a", "b", "anything"}, 0);
+
+        Submission wrong = new Submission(new int[]{20}, new String[]{"b"}, new byte[]{3}, 1, 1, null);
+        assertEquals(0, grader.grade(wrong).getCorrectAnswers());
+    }
+
+    @Test
+    void strictGradingRejectsUnknownQuizzesAndQuestions() {
+        Submission outside = new Submission(new int[]{10, 25}, new String[]{"a", "a"}, null, 2, 1, null);
+        IllegalArgumentException notInQuiz = assertThrows(IllegalArgumentException.class, () -> grader.grade(outside));
+        assertEquals("Question 25 is not part of quiz 1.", notInQuiz.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> grader.validate(outside));
+
+        Submission unknown = new Submission(new int[]{10}, new String[]{"a"}, null, 1, 99, null);
+        IllegalArgumentException notFound = assertThrows(IllegalArgumentException.class, () -> grader.grade(unknown));
+        assertEquals("Quiz 99 not found.", notFound.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> grader.validate(unknown));
+
+        assertDoesNotThrow(() -> grader.validate(new Submission(new int[]{30, 10}, new String[]{"a", "a"}, null, 2,
+                1, null)));
+        assertDoesNotThrow(() -> grader.validate(new Submission(new int[]{25}, new String[]{"a"}, 1)));
+    }
+
+    @Test
+    void lenientBatchScoresWhatTheQuizStillHas() {
+        when(answerKeyIndex.answersFor(any())).thenReturn(new String[]{"x", "y", "z"});
+        List<GradeResult> results = grader.gradeBatch(List.of(
+                // Question 25 left the quiz after the submission was accepted
+                new Submission(new int[]{10, 25}, new String[]{"a", "a"}, null, 2, 1, null),
+                // The quiz is gone
+                new Submission(new int[]{10}, new String[]{"a"}, null, 1, 99, null),
+                new Submission(new int[]{1, 2}, new String[]{"x", "q"}, 2),
+                new Submission(new int[]{3}, new String[]{"z"}, 1)));
+
+        assertEquals(List.of(1, 0, 1, 1), results.stream().map(GradeResult::getCorrectAnswers).toList());
+        assertEquals(List.of(2, 1, 2, 1), results.stream().map(GradeResult::getTotalQuestions).toList());
+        // The loose submissions share one lookup
+        verify(answerKeyIndex).answersFor(new int[]{1, 2, 3});
+        verify(answerStats).record(eq(new int[]{10, 25}), any(), eq(new String[]{"a", null}), anyInt());
+    }
+
+    @Test
+    void looseSubmissionIsGradedAgainstTheIndex() {
+        when(answerKeyIndex.answersFor(new int[]{1, 2})).thenReturn(new String[]{"x", null});
+        GradeResult result = grader.grade(new Submission(new int[]{1, 2}, new String[]{"x", null}, 3));
+        assertEquals(3, result.getTotalQuestions());
+        assertEquals(1, result.getCorrectAnswers());
+        verify(answerStats).record(new int[]{1, 2}, new String[]{"x", null}, new String[]{"x", null}, 0);
+    }
+}
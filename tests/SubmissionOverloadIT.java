@@ -0,0 +1,50 @@
+package com.quize.quizproject.it;
+
+import com.quize.quizproject.config.DatabaseConcurrencyGuard.DatabaseBusyException;
+import com.quize.quizproject.service.AnswerSheets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A submission whose answer-sheet miss finds no database capacity is answered 503 with Retry-After
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:submission-overload;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "quiz.pool.enabled=false"})
+@AutoConfigureMockMvc
+class SubmissionOverloadIT {
+
+    private static final String SUBMISSION =
+            "{\"quizId\":1,\"userId\":\"u1\",\"answers\":[{\"questionId\":1,\"response\":\"x\"}]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private AnswerSheets answerSheets;
+
+    @Test
+    void busyDatabaseAnswers503() throws Exception {
+        when(answerSheets.get(anyInt())).thenThrow(new DatabaseBusyException("No database capacity"));
+
+        mockMvc.perform(post("/quiz/quizSubmit").contentType(MediaType.APPLICATION_JSON).content(SUBMISSION))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value("error"));
+
+        mockMvc.perform(post("/quiz/submitAsync").contentType(MediaType.APPLICATION_JSON).content(SUBMISSION))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+}
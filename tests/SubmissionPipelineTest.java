@@ -0,0 +1,194 @@
+package com.quize.quizproject.service;
+
+import com.quize.quizproject.repository.QuizAttemptRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Micro-batched grading and writes, with the insert failing a set number of times. No worker threads are
+// started: runWorker is called directly and, with the pipeline not running, returns once the queue is empty.
+class SubmissionPipelineTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private QuizLeaderboards quizLeaderboards;
+    private SubmissionPipeline pipeline;
+    // Batch sizes handed to each insert try, failed ones included
+    private final List<Integer> inserts = new ArrayList<>();
+    // How many insert tries fail before they start succeeding
+    private int failures;
+
+    @BeforeEach
+    void setUp() {
+        SubmissionGrader grader = mock(SubmissionGrader.class);
+        when(grader.gradeBatch(anyList())).thenAnswer(invocation -> {
+            List<Submission> submissions = invocation.getArgument(0);
+            return submissions.stream().map(submission -> new GradeResult(submission.getTotalQuestions(), 1)).toList();
+        });
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            Collection<?> batch = invocation.getArgument(1);
+            inserts.add(batch.size());
+            if (inserts.size() <= failures) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+            return new int[][]{new int[batch.size()]};
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(Collection.class), anyInt(), any());
+        quizLeaderboards = mock(QuizLeaderboards.class);
+
+        pipeline = new SubmissionPipeline();
+        ReflectionTestUtils.setField(pipeline, "submissionGrader", grader);
+        ReflectionTestUtils.setField(pipeline, "quizAttemptRepository", mock(QuizAttemptRepository.class));
+        ReflectionTestUtils.setField(pipeline, "quizLeaderboards", quizLeaderboards);
+        ReflectionTestUtils.setField(pipeline, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(pipeline, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 100);
+        ReflectionTestUtils.setField(pipeline, "batchSize", 2);
+        ReflectionTestUtils.setField(pipeline, "offerTimeoutMillis", 0L);
+        ReflectionTestUtils.setField(pipeline, "writeRetries", 3);
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMillis", 5L);
+        ReflectionTestUtils.setField(pipeline, "failedTtlMillis", 60_000L);
+        ReflectionTestUtils.setField(pipeline, "queue", new ArrayBlockingQueue<>(100));
+    }
+
+    @Test
+    void queuedSubmissionsAreWrittenInBatches() throws Exception {
+        List<String> attemptIds = submit(5);
+        assertEquals("QUEUED", pipeline.getAttempt(attemptIds.get(0)).getStatus());
+
+        drain();
+
+        assertEquals(List.of(2, 2, 1), inserts);
+        assertEquals(3, pipeline.getBatches());
+        assertEquals(5, pipeline.getPersisted());
+        assertEquals(0, pipeline.getRetries());
+        verify(quizLeaderboards, times(5)).record(any(), any());
+        // Written attempts are looked up in quiz_attempt, which the mocked repository does not have
+        assertNull(pipeline.getAttempt(attemptIds.get(4)));
+    }
+
+    @Test
+    void failedInsertIsRetriedWithADoublingBackoff() throws Exception {
+        failures = 2;
+        submit(2);
+
+        long start = System.nanoTime();
+        drain();
+
+        // 5 ms, then 10 ms
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(15));
+        assertEquals(List.of(2, 2, 2), inserts);
+        assertEquals(2, pipeline.getRetries());
+        assertEquals(2, pipeline.getPersisted());
+        assertEquals(0, pipeline.getFailed());
+        verify(quizLeaderboards, times(2)).record(any(), any());
+    }
+
+    @Test
+    void batchIsFailedAfterTheLastRetry() throws Exception {
+        failures = 4;
+        List<String> attemptIds = submit(3);
+
+        drain();
+
+        // The first batch is tried once and retried 3 times; the second one succeeds on its first try
+        assertEquals(List.of(2, 2, 2, 2, 1), inserts);
+        assertEquals(3, pipeline.getRetries());
+        assertEquals(2, pipeline.getFailed());
+        assertEquals(1, pipeline.getPersisted());
+        SubmissionPipeline.AttemptStatus failed = pipeline.getAttempt(attemptIds.get(0));
+        assertEquals("FAILED", failed.getStatus());
+        assertEquals(1, failed.getResult().getCorrectAnswers());
+        assertEquals("FAILED", pipeline.getAttempt(attemptIds.get(1)).getStatus());
+        // Never ranked, since its attempt was never written
+        verify(quizLeaderboards, times(1)).record(any(), any());
+    }
+
+    @Test
+    void interruptedWorkerFailsItsBatchAndEverythingStillQueued() throws Exception {
+        failures = Integer.MAX_VALUE;
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMillis", 60_000L);
+        List<String> attemptIds = submit(5);
+
+        Thread worker = new Thread(() -> ReflectionTestUtils.invokeMethod(pipeline, "runWorker"));
+        worker.start();
+        // The retry is counted just before the worker goes to sleep on its backoff
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pipeline.getRetries() == 0) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        worker.interrupt();
+        worker.join(5000);
+
+        assertFalse(worker.isAlive());
+        assertEquals(List.of(2), inserts);
+        assertEquals(0, pipeline.getQueueDepth());
+        assertEquals(5, pipeline.getFailed());
+        for (String attemptId : attemptIds) {
+            assertEquals("FAILED", pipeline.getAttempt(attemptId).getStatus());
+        }
+        // The ones that never left the queue were not graded either
+        assertNull(pipeline.getAttempt(attemptIds.get(4)).getResult());
+        verify(quizLeaderboards, never()).record(any(), any());
+    }
+
+    @Test
+    void failedAttemptsExpireAfterTheirTtl() throws Exception {
+        failures = Integer.MAX_VALUE;
+        ReflectionTestUtils.setField(pipeline, "writeRetries", 0);
+        List<String> attemptIds = submit(1);
+        drain();
+        String queued = submit(1).get(0);
+
+        pipeline.expireFailed();
+        assertEquals("FAILED", pipeline.getAttempt(attemptIds.get(0)).getStatus());
+
+        ReflectionTestUtils.setField(pipeline, "failedTtlMillis", -1L);
+        pipeline.expireFailed();
+        assertNull(pipeline.getAttempt(attemptIds.get(0)));
+        // Only failed attempts expire
+        assertEquals("QUEUED", pipeline.getAttempt(queued).getStatus());
+    }
+
+    private List<String> submit(int count) throws InterruptedException {
+        List<String> attemptIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String attemptId = pipeline.submit(new Submission(new int[]{i + 1}, new String[]{"a"}, 1));
+            assertNotNull(attemptId);
+            attemptIds.add(attemptId);
+        }
+        return attemptIds;
+    }
+
+    private void drain() {
+        ReflectionTestUtils.invokeMethod(pipeline, "runWorker");
+        assertEquals(0, pipeline.getQueueDepth());
+    }
+}
@@ -0,0 +1,75 @@
+package com.quize.quizproject.it;
+
+import com.quize.quizproject.repository.AnswerSheetRow;
+import com.quize.quizproject.service.AnswerSheet;
+import com.quize.quizproject.service.AnswerSheets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Quiz-scoped submissions are checked against the quiz before they are graded or queued
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:submission-validation;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "quiz.pool.enabled=false"})
+@AutoConfigureMockMvc
+class SubmissionValidationIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private AnswerSheets answerSheets;
+
+    // Quiz 1 has questions 10 and 20; every other quiz is unknown
+    @BeforeEach
+    void setUp() {
+        when(answerSheets.get(1)).thenReturn(AnswerSheet.compile(1, List.of(
+                new Row(10, "a", "b", "c", "d", "a"),
+                new Row(20, "a", "b", "c", "d", "b"))));
+    }
+
+    @Test
+    void submissionOnTheQuizIsGraded() throws Exception {
+        mockMvc.perform(post("/quiz/quizSubmit").contentType(MediaType.APPLICATION_JSON).content(
+                        "{\"quizId\":1,\"answers\":[{\"questionId\":10,\"response\":\"a\"},{\"questionId\":20,\"option\":2}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.correctAnswers").value(2));
+    }
+
+    @Test
+    void questionOutsideTheQuizIs400() throws Exception {
+        String body = "{\"quizId\":1,\"answers\":[{\"questionId\":10,\"response\":\"a\"},{\"questionId\":30,\"response\":\"a\"}]}";
+        for (String path : List.of("/quiz/quizSubmit", "/quiz/submitAsync")) {
+            mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Question 30 is not part of quiz 1."));
+        }
+    }
+
+    @Test
+    void unknownQuizIs400() throws Exception {
+        String body = "{\"quizId\":99,\"answers\":[{\"questionId\":10,\"response\":\"a\"}]}";
+        for (String path : List.of("/quiz/quizSubmit", "/quiz/submitAsync")) {
+            mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Quiz 99 not found."));
+        }
+    }
+
+    private record Row(Integer getQuestionId, String getOption1, String getOption2, String getOption3,
+                       String getOption4, String getRightAns) implements AnswerSheetRow {
+    }
+}